@@ -9,6 +9,8 @@ import java.util.Set;
 
 import edu.ucsb.cs156.organic.entities.User;
 import edu.ucsb.cs156.organic.repositories.UserRepository;
+import edu.ucsb.cs156.organic.services.CurrentUserCache;
+import edu.ucsb.cs156.organic.services.UserRoleCache;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -76,6 +78,12 @@ public class SecurityConfig {
   @Autowired
   UserRepository userRepository;
 
+  @Autowired
+  UserRoleCache userRoleCache;
+
+  @Autowired
+  CurrentUserCache currentUserCache;
+
   // @Autowired
   // private LoginSuccessHandler loginSuccessHandler;
 
@@ -133,6 +141,8 @@ public class SecurityConfig {
       User user = u.get();
       user.setAdmin(true);
       userRepository.save(user);
+      userRoleCache.invalidate(user.getGithubId());
+      currentUserCache.invalidateUser(user.getGithubId());
     }
     return result;
   }
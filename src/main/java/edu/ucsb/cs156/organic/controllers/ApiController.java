@@ -3,10 +3,12 @@ package edu.ucsb.cs156.organic.controllers;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import edu.ucsb.cs156.organic.errors.EntityNotFoundException;
+import edu.ucsb.cs156.organic.errors.JobAlreadyRunningException;
 import edu.ucsb.cs156.organic.models.CurrentUser;
 import edu.ucsb.cs156.organic.services.CurrentUserService;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -27,6 +29,10 @@ public abstract class ApiController {
         return currentUserService.getCurrentUser();
     }
 
+    protected Integer getCurrentUserGithubId() {
+        return currentUserService.getGithubId();
+    }
+
     @ExceptionHandler({ IllegalArgumentException.class })
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Object handleIllegalArgumentException(Throwable e) {
@@ -53,6 +59,22 @@ public abstract class ApiController {
                 "message", e.getMessage());
     }
 
+    @ExceptionHandler({ JobAlreadyRunningException.class })
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Object handleJobAlreadyRunningException(Throwable e) {
+        return Map.of(
+                "type", e.getClass().getSimpleName(),
+                "message", e.getMessage());
+    }
+
+    @ExceptionHandler({ OptimisticLockingFailureException.class })
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public Object handleOptimisticLockingFailureException(Throwable e) {
+        return Map.of(
+                "type", e.getClass().getSimpleName(),
+                "message", "This was changed by someone else; reload it and try again");
+    }
+
     private ObjectMapper mapper;
 
     /**
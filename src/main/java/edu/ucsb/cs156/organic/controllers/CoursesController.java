@@ -3,32 +3,66 @@ package edu.ucsb.cs156.organic.controllers;
 import edu.ucsb.cs156.organic.entities.Course;
 import edu.ucsb.cs156.organic.entities.Staff;
 import edu.ucsb.cs156.organic.entities.User;
+import edu.ucsb.cs156.organic.events.CourseSavedEvent;
+import edu.ucsb.cs156.organic.events.StaffAddedEvent;
+import edu.ucsb.cs156.organic.events.StaffRemovedEvent;
+import edu.ucsb.cs156.organic.models.CourseDeleteResult;
+import edu.ucsb.cs156.organic.models.CourseFilter;
+import edu.ucsb.cs156.organic.models.CourseImportResult;
+import edu.ucsb.cs156.organic.models.CourseImportRow;
+import edu.ucsb.cs156.organic.models.CoursePage;
+import edu.ucsb.cs156.organic.models.CourseRowCount;
+import edu.ucsb.cs156.organic.models.CourseSummary;
+import edu.ucsb.cs156.organic.models.StaffBatchResult;
+import edu.ucsb.cs156.organic.models.StaffSummary;
 import edu.ucsb.cs156.organic.repositories.CourseRepository;
 import edu.ucsb.cs156.organic.repositories.StaffRepository;
+import edu.ucsb.cs156.organic.repositories.StudentRepository;
 import edu.ucsb.cs156.organic.repositories.UserRepository;
+import edu.ucsb.cs156.organic.services.CourseCatalogCache;
+import edu.ucsb.cs156.organic.services.CourseDeletionService;
+import edu.ucsb.cs156.organic.services.CourseImportService;
+import edu.ucsb.cs156.organic.services.CourseSearchIndex;
+import edu.ucsb.cs156.organic.services.StaffAssignmentService;
+import edu.ucsb.cs156.organic.services.StaffAuthorizationIndex;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.opencsv.exceptions.CsvException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
 import edu.ucsb.cs156.organic.errors.EntityNotFoundException;
 import org.springframework.security.access.AccessDeniedException;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
@@ -47,38 +81,212 @@ public class CoursesController extends ApiController {
     @Autowired
     StaffRepository courseStaffRepository;
 
+    @Autowired
+    StudentRepository studentRepository;
+
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    StaffAuthorizationIndex staffAuthorizationIndex;
+
+    @Autowired
+    CourseCatalogCache courseCatalogCache;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    CourseImportService courseImportService;
+
+    @Autowired
+    CourseDeletionService courseDeletionService;
+
+    @Autowired
+    CourseSearchIndex courseSearchIndex;
+
+    @Autowired
+    StaffAssignmentService staffAssignmentService;
+
+    static final int MAX_PAGE_SIZE = 500;
+
+    static final int MAX_SEARCH_RESULTS = 100;
+
     @Operation(summary = "List all courses")
     @PreAuthorize("hasAnyRole('ROLE_USER', 'ROLE_ADMIN')")
     @GetMapping("/all")
-    public Iterable<Course> allCourses() {
+    public Iterable<Course> allCourses(WebRequest webRequest) {
         User u = getCurrentUser().getUser();
         log.info("u={}", u);
+        List<Course> courses;
+        String prefix = "";
+        if (u.isAdmin()) {
+            courses = courseCatalogCache.all();
+        } else {
+            long[] courseIds = staffAuthorizationIndex.courseIds(u.getGithubId());
+            if (courseIds.length == 0) {
+                return List.of();
+            }
+            courses = courseCatalogCache.courses(courseIds);
+            // the same counts can come from a different set of courses, so
+            // the ids are part of the tag too
+            prefix = Integer.toHexString(Arrays.hashCode(courseIds)) + "-";
+        }
+        if (webRequest.checkNotModified(listEtag(courses, prefix))) {
+            return null;
+        }
+        return courses;
+    }
+
+    /**
+     * Weak, since it identifies the list by its contents' versions rather
+     * than by its exact bytes: an update bumps the sum of the versions, a
+     * delete lowers the count, and an insert raises the count and the
+     * largest id (ids are never reused).
+     */
+    static String listEtag(List<Course> courses, String prefix) {
+        long versionSum = 0;
+        long maxId = 0;
+        for (Course course : courses) {
+            versionSum += course.getVersion();
+            maxId = Math.max(maxId, course.getId());
+        }
+        return "W/\"%s%d-%d-%d\"".formatted(prefix, courses.size(), versionSum, maxId);
+    }
+
+    static String courseEtag(Course course) {
+        return "\"%d-%d\"".formatted(course.getId(), course.getVersion());
+    }
+
+    @Operation(summary = "List courses one page at a time, optionally filtered by school, term and dates")
+    @PreAuthorize("hasAnyRole('ROLE_USER', 'ROLE_ADMIN')")
+    @GetMapping("/all/paged")
+    public CoursePage pagedCourses(
+            @Parameter(name = "after", description = "nextCursor from the previous page; omit for the first page") @RequestParam(required = false) Long after,
+            @Parameter(name = "size", description = "courses per page, at most 500") @RequestParam(defaultValue = "50") int size,
+            @Parameter(name = "school", description = "school abbreviation e.g. UCSB") @RequestParam(required = false) String school,
+            @Parameter(name = "term", description = "quarter or semester, e.g. F23") @RequestParam(required = false) String term,
+            @Parameter(name = "from", description = "only courses still running at this time, in iso format") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(name = "to", description = "only courses already started at this time, in iso format") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and %d".formatted(MAX_PAGE_SIZE));
+        }
+
+        CourseFilter.CourseFilterBuilder filter = CourseFilter.builder()
+                .school(school)
+                .term(term)
+                .from(from)
+                .to(to);
+
+        User u = getCurrentUser().getUser();
+        if (!u.isAdmin()) {
+            long[] courseIds = staffAuthorizationIndex.courseIds(u.getGithubId());
+            if (courseIds.length == 0) {
+                return CoursePage.builder().courses(List.of()).build();
+            }
+            filter.ids(Arrays.stream(courseIds).boxed().toList());
+        }
+
+        // ask for one extra row to find out whether there is a next page
+        List<Course> courses = courseRepository.findPage(filter.build(), after, size + 1);
+        if (courses.size() <= size) {
+            return CoursePage.builder().courses(courses).build();
+        }
+        courses = courses.subList(0, size);
+        return CoursePage.builder()
+                .courses(courses)
+                .nextCursor(courses.get(size - 1).getId())
+                .build();
+    }
+
+    @Operation(summary = "Search courses by name, term, school and github org")
+    @PreAuthorize("hasAnyRole('ROLE_USER', 'ROLE_ADMIN')")
+    @GetMapping("/search")
+    public List<Course> searchCourses(
+            @Parameter(name = "q", description = "words to look for; each must occur in some field, words shorter than 3 characters only at the start of a word") @RequestParam String q,
+            @Parameter(name = "limit", description = "most courses to return, at most 100") @RequestParam(defaultValue = "20") int limit) {
+        if (q.isBlank()) {
+            throw new IllegalArgumentException("q must not be blank");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+            throw new IllegalArgumentException("limit must be between 1 and %d".formatted(MAX_SEARCH_RESULTS));
+        }
+
+        User u = getCurrentUser().getUser();
+        long[] visibleIds = null;
+        if (!u.isAdmin()) {
+            visibleIds = staffAuthorizationIndex.courseIds(u.getGithubId());
+            if (visibleIds.length == 0) {
+                return List.of();
+            }
+        }
+        return courseSearchIndex.search(q, visibleIds, limit);
+    }
+
+    @Operation(summary = "Student, linked github account and staff counts of each course")
+    @PreAuthorize("hasAnyRole('ROLE_USER', 'ROLE_ADMIN')")
+    @GetMapping("/summary")
+    public List<CourseSummary> courseSummaries() {
+        User u = getCurrentUser().getUser();
+        List<Course> courses;
+        List<CourseRowCount> studentCounts;
+        List<CourseRowCount> staffCounts;
         if (u.isAdmin()) {
-            return courseRepository.findAll();
+            courses = courseCatalogCache.all();
+            studentCounts = studentRepository.countPerCourse();
+            staffCounts = courseStaffRepository.countPerCourse();
         } else {
-            return courseRepository.findCoursesStaffedByUser(u.getGithubId());
+            long[] courseIds = staffAuthorizationIndex.courseIds(u.getGithubId());
+            if (courseIds.length == 0) {
+                return List.of();
+            }
+            List<Long> ids = Arrays.stream(courseIds).boxed().toList();
+            courses = courseCatalogCache.courses(courseIds);
+            studentCounts = studentRepository.countPerCourse(ids);
+            staffCounts = courseStaffRepository.countPerCourse(ids);
         }
+
+        Map<Long, CourseRowCount> students = byCourseId(studentCounts);
+        Map<Long, CourseRowCount> staff = byCourseId(staffCounts);
+        return courses.stream().map(course -> {
+            CourseRowCount courseStudents = students.get(course.getId());
+            CourseRowCount courseStaff = staff.get(course.getId());
+            return CourseSummary.builder()
+                    .courseId(course.getId())
+                    .name(course.getName())
+                    .term(course.getTerm())
+                    .school(course.getSchool())
+                    .students(courseStudents == null ? 0 : courseStudents.getRows())
+                    .linkedGithubAccounts(courseStudents == null ? 0 : courseStudents.getWithGithubId())
+                    .staff(courseStaff == null ? 0 : courseStaff.getRows())
+                    .build();
+        }).toList();
+    }
+
+    private static Map<Long, CourseRowCount> byCourseId(List<CourseRowCount> counts) {
+        return counts.stream().collect(Collectors.toMap(CourseRowCount::getCourseId, Function.identity()));
     }
 
     @Operation(summary= "Get a single course by id")
     @PreAuthorize("hasAnyRole('ROLE_USER', 'ROLE_ADMIN')")
     @GetMapping("/get")
     public Course getById(
-            @Parameter(name="id") @RequestParam Long id) {
+            @Parameter(name="id") @RequestParam Long id,
+            WebRequest webRequest) {
         User u = getCurrentUser().getUser();
 
-        Course course = courseRepository.findById(id)
+        Course course = courseCatalogCache.get(id)
                 .orElseThrow(() -> new EntityNotFoundException(Course.class, id));
         
-        if(!u.isAdmin()){
-                courseStaffRepository.findByCourseIdAndGithubId(id, u.getGithubId())
-                        .orElseThrow(() -> new AccessDeniedException(
-                String.format("User %s is not authorized to get course %d", u.getGithubLogin(), id)));
+        if(!u.isAdmin() && !staffAuthorizationIndex.isStaff(u.getGithubId(), id)){
+                throw new AccessDeniedException(
+                String.format("User %s is not authorized to get course %d", u.getGithubLogin(), id));
         }
 
+        // sets the ETag header, or the 304 status if the client's copy is current
+        if (webRequest.checkNotModified(courseEtag(course))) {
+            return null;
+        }
         return course;
 }
 
@@ -113,10 +321,37 @@ public class CoursesController extends ApiController {
 
         log.info("courseStaff={}", courseStaff);
         courseStaffRepository.save(courseStaff);
+        eventPublisher.publishEvent(new CourseSavedEvent(savedCourse));
+        eventPublisher.publishEvent(new StaffAddedEvent(u.getGithubId(), savedCourse.getId()));
 
         return savedCourse;
     }
 
+    @Operation(summary = "Create many courses at once from a JSON array; the current user becomes staff for each")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN','ROLE_INSTRUCTOR')")
+    @PostMapping(value = "/import", consumes = { "application/json" })
+    public CourseImportResult importCourses(@RequestBody List<CourseImportRow> rows) {
+        return courseImportService.importCourses(rows, getCurrentUser().getUser().getGithubId());
+    }
+
+    @Operation(summary = "Create many courses at once from a CSV with columns name,school,term,startDate,endDate,githubOrg")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN','ROLE_INSTRUCTOR')")
+    @PostMapping(value = "/import/csv", consumes = { "multipart/form-data" })
+    public CourseImportResult importCoursesCsv(
+            @Parameter(name = "file") @RequestParam("file") MultipartFile file)
+            throws IOException, CsvException {
+        long start = System.nanoTime();
+        List<CourseImportRow> rows;
+        try (Reader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+            rows = courseImportService.parseCsv(reader);
+        }
+        long parseMillis = (System.nanoTime() - start) / 1_000_000;
+
+        CourseImportResult result = courseImportService.importCourses(rows, getCurrentUser().getUser().getGithubId());
+        result.setParseMillis(parseMillis);
+        return result;
+    }
+
     @Operation(summary = "Add a staff member to a course")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/addStaff")
@@ -125,12 +360,18 @@ public class CoursesController extends ApiController {
             @Parameter(name = "githubLogin") @RequestParam String githubLogin)
             throws JsonProcessingException {
 
-        Course course = courseRepository.findById(courseId)
+        Course course = courseCatalogCache.get(courseId)
                 .orElseThrow(() -> new EntityNotFoundException(Course.class, courseId.toString()));
 
         User user = userRepository.findByGithubLogin(githubLogin)
                 .orElseThrow(() -> new EntityNotFoundException(User.class, githubLogin.toString()));
 
+        // (course_id, github_id) is unique, so adding someone twice is a no-op
+        Optional<Staff> existing = courseStaffRepository.findByCourseIdAndGithubId(course.getId(), user.getGithubId());
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
         Staff courseStaff = Staff.builder()
                 .courseId(course.getId())
                 .githubId(user.getGithubId())
@@ -138,23 +379,34 @@ public class CoursesController extends ApiController {
                 .build();
 
         courseStaff = courseStaffRepository.save(courseStaff);
+        eventPublisher.publishEvent(new StaffAddedEvent(user.getGithubId(), course.getId()));
         log.info("courseStaff={}", courseStaff);
 
         return courseStaff;
     }
 
+    @Operation(summary = "Add many staff members to a course at once, by github login")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/addStaff/batch", consumes = { "application/json" })
+    public StaffBatchResult addStaffBatch(
+            @Parameter(name = "courseId") @RequestParam Long courseId,
+            @RequestBody List<String> githubLogins) {
+        Course course = courseCatalogCache.get(courseId)
+                .orElseThrow(() -> new EntityNotFoundException(Course.class, courseId.toString()));
+        return staffAssignmentService.addStaff(course, githubLogins);
+    }
+
     @Operation(summary = "Get Staff for course")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @GetMapping("/getStaff")
-    public Iterable<Staff> getStaff(
+    public Iterable<StaffSummary> getStaff(
             @Parameter(name = "courseId") @RequestParam Long courseId)
             throws JsonProcessingException {
 
-        Course course = courseRepository.findById(courseId)
+        Course course = courseCatalogCache.get(courseId)
                 .orElseThrow(() -> new EntityNotFoundException(Course.class, courseId.toString()));
 
-        Iterable<Staff> courseStaff = courseStaffRepository.findByCourseId(course.getId());
-        return courseStaff;
+        return courseStaffRepository.findSummariesByCourseId(course.getId());
     }
 
     @Operation(summary = "Delete a Course Staff by id")
@@ -166,6 +418,7 @@ public class CoursesController extends ApiController {
                 .orElseThrow(() -> new EntityNotFoundException(Staff.class, id.toString()));
 
                 courseStaffRepository.delete(staff);
+                eventPublisher.publishEvent(new StaffRemovedEvent(staff.getGithubId(), staff.getCourseId()));
                 return genericMessage("Staff with id %s is deleted".formatted(id));
         }
 
@@ -174,16 +427,19 @@ public class CoursesController extends ApiController {
     // for the course
     @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_INSTRUCTOR')")
     @PutMapping("/update")
-    public Course updateCourse(
+    public ResponseEntity<Course> updateCourse(
             @Parameter(name = "id") @RequestParam Long id,
             @Parameter(name = "name", description = "course name, e.g. CMPSC 156") @RequestParam String name,
             @Parameter(name = "school", description = "school abbreviation e.g. UCSB") @RequestParam String school,
             @Parameter(name = "term", description = "quarter or semester, e.g. F23") @RequestParam String term,
             @Parameter(name = "startDate", description = "in iso format, i.e. YYYY-mm-ddTHH:MM:SS; e.g. 2023-10-01T00:00:00 see https://en.wikipedia.org/wiki/ISO_8601") @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @Parameter(name = "endDate", description = "in iso format, i.e. YYYY-mm-ddTHH:MM:SS; e.g. 2023-12-31T11:59:59 see https://en.wikipedia.org/wiki/ISO_8601") @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
-            @Parameter(name = "githubOrg", description = "for example ucsb-cs156-f23") @RequestParam String githubOrg)
+            @Parameter(name = "githubOrg", description = "for example ucsb-cs156-f23") @RequestParam String githubOrg,
+            WebRequest webRequest)
             throws JsonProcessingException {
 
+        // from the database rather than CourseCatalogCache, so that the
+        // version checked below is the current one
         Course course = courseRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(Course.class, id.toString()));
 
@@ -191,10 +447,14 @@ public class CoursesController extends ApiController {
         // not, throw AccessDeniedException
 
         User u = getCurrentUser().getUser();
-        if (!u.isAdmin()) {
-            courseStaffRepository.findByCourseIdAndGithubId(course.getId(), u.getGithubId())
-                    .orElseThrow(() -> new AccessDeniedException(
-                            "User is not a staff member for this course"));
+        if (!u.isAdmin() && !staffAuthorizationIndex.isStaff(u.getGithubId(), course.getId())) {
+            throw new AccessDeniedException("User is not a staff member for this course");
+        }
+
+        // an If-Match naming an older version gets a 412; the @Version column
+        // catches anyone who saves between here and our save below
+        if (webRequest.checkNotModified(courseEtag(course))) {
+            return null;
         }
 
         course.setName(name);
@@ -205,16 +465,17 @@ public class CoursesController extends ApiController {
         course.setGithubOrg(githubOrg);
 
         course = courseRepository.save(course);
+        eventPublisher.publishEvent(new CourseSavedEvent(course));
         log.info("course={}", course);
 
-        return course;
+        return ResponseEntity.ok().eTag(courseEtag(course)).body(course);
     }
 
     // delete a course if the user is an admin or instructor for the course
-    @Operation(summary = "Delete a course")
+    @Operation(summary = "Delete a course along with its staff and students")
     @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_INSTRUCTOR')")
     @DeleteMapping("/delete")
-    public Course deleteCourse(
+    public CourseDeleteResult deleteCourse(
             @Parameter(name = "id") @RequestParam Long id)
             throws JsonProcessingException {
 
@@ -225,14 +486,11 @@ public class CoursesController extends ApiController {
         // not, throw AccessDeniedException
 
         User u = getCurrentUser().getUser();
-        if (!u.isAdmin()) {
-            courseStaffRepository.findByCourseIdAndGithubId(course.getId(), u.getGithubId())
-                    .orElseThrow(() -> new AccessDeniedException(
-                            "User is not a staff member for this course"));
+        if (!u.isAdmin() && !staffAuthorizationIndex.isStaff(u.getGithubId(), course.getId())) {
+            throw new AccessDeniedException("User is not a staff member for this course");
         }
 
-        courseRepository.delete(course);
-        return course;
+        return courseDeletionService.deleteCourse(course);
     }
 
 }
@@ -21,6 +21,7 @@ import org.springframework.web.bind.annotation.RestController;
 import edu.ucsb.cs156.organic.entities.jobs.Job;
 import edu.ucsb.cs156.organic.jobs.TestJob;
 import edu.ucsb.cs156.organic.repositories.jobs.JobsRepository;
+import edu.ucsb.cs156.organic.services.GithubUserSyncService;
 import edu.ucsb.cs156.organic.services.jobs.JobService;
 
 
@@ -34,6 +35,9 @@ public class JobsController extends ApiController {
     @Autowired
     private JobService jobService;
 
+    @Autowired
+    private GithubUserSyncService githubUserSyncService;
+
 
     @Autowired
     ObjectMapper mapper;
@@ -78,4 +82,11 @@ public class JobsController extends ApiController {
 
         return jobService.runAsJob(testJob, id);
     }
+
+    @Operation(summary = "Launch Github User Sync Job (refreshes profiles and emails of recently active users)")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/launch/githubUserSync")
+    public Job launchGithubUserSyncJob() {
+        return githubUserSyncService.launchSyncJob();
+    }
 }
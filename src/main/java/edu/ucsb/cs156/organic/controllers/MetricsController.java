@@ -0,0 +1,77 @@
+package edu.ucsb.cs156.organic.controllers;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+import io.swagger.v3.oas.annotations.Operation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.ucsb.cs156.organic.models.BufferStats;
+import edu.ucsb.cs156.organic.models.CacheStats;
+import edu.ucsb.cs156.organic.models.CourseCatalogStats;
+import edu.ucsb.cs156.organic.models.GithubApiStats;
+import edu.ucsb.cs156.organic.models.WriteStats;
+import edu.ucsb.cs156.organic.services.CourseCatalogCache;
+import edu.ucsb.cs156.organic.services.CurrentUserCache;
+import edu.ucsb.cs156.organic.services.GithubApiGovernor;
+import edu.ucsb.cs156.organic.services.LastOnlineBuffer;
+import edu.ucsb.cs156.organic.services.UserChangeTracker;
+
+@Tag(name = "Metrics (admin only)")
+@RequestMapping("/api/admin/metrics")
+@RestController
+public class MetricsController extends ApiController {
+
+    @Autowired
+    CurrentUserCache currentUserCache;
+
+    @Autowired
+    UserChangeTracker userChangeTracker;
+
+    @Autowired
+    LastOnlineBuffer lastOnlineBuffer;
+
+    @Autowired
+    GithubApiGovernor githubApiGovernor;
+
+    @Autowired
+    CourseCatalogCache courseCatalogCache;
+
+    @Operation(summary = "Get hit/miss/refresh counts for the current user cache")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/currentUserCache")
+    public CacheStats currentUserCacheStats() {
+        return currentUserCache.getStats();
+    }
+
+    @Operation(summary = "Get counts of users table writes made and skipped because nothing changed")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/userWrites")
+    public WriteStats userWriteStats() {
+        return userChangeTracker.getStats();
+    }
+
+    @Operation(summary = "Get size and flush timings of the last online write-behind buffer")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/lastOnlineBuffer")
+    public BufferStats lastOnlineBufferStats() {
+        return lastOnlineBuffer.getStats();
+    }
+
+    @Operation(summary = "Get github rate limit quota, circuit breaker state and call latency")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/githubApi")
+    public GithubApiStats githubApiStats() {
+        return githubApiGovernor.getStats();
+    }
+
+    @Operation(summary = "Get size, hit ratio and rebuild time of the course catalog cache")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/courseCatalog")
+    public CourseCatalogStats courseCatalogStats() {
+        return courseCatalogCache.getStats();
+    }
+}
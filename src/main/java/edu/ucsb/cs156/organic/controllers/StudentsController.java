@@ -2,17 +2,19 @@ package edu.ucsb.cs156.organic.controllers;
 
 import edu.ucsb.cs156.organic.entities.Course;
 import edu.ucsb.cs156.organic.entities.Student;
+import edu.ucsb.cs156.organic.entities.jobs.Job;
+import edu.ucsb.cs156.organic.models.RosterImportResult;
 import edu.ucsb.cs156.organic.repositories.CourseRepository;
 import edu.ucsb.cs156.organic.repositories.StaffRepository;
 import edu.ucsb.cs156.organic.repositories.StudentRepository;
 import edu.ucsb.cs156.organic.repositories.UserRepository;
+import edu.ucsb.cs156.organic.services.RosterImportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvException;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,15 +28,8 @@ import org.springframework.web.multipart.MultipartFile;
 
 import edu.ucsb.cs156.organic.errors.EntityNotFoundException;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 @Tag(name = "Students")
 @RequestMapping("/api/students")
@@ -42,10 +37,6 @@ import java.util.Optional;
 @Slf4j
 public class StudentsController extends ApiController {
 
-        public enum Status {
-                INSERTED, UPDATED
-        };
-
         @Autowired
         CourseRepository courseRepository;
 
@@ -58,6 +49,9 @@ public class StudentsController extends ApiController {
         @Autowired
         UserRepository userRepository;
 
+        @Autowired
+        RosterImportService rosterImportService;
+
         @Operation(summary = "Get Students for course")
         @PreAuthorize("hasRole('ROLE_ADMIN')")
         @GetMapping("/all")
@@ -74,8 +68,8 @@ public class StudentsController extends ApiController {
 
         @Operation(summary = "Upload Students for Course in UCSB Egrades Format")
         @PreAuthorize("hasRole('ROLE_ADMIN')")
-        @PostMapping(value = "/upload/egrades", consumes = { "multipart/form-data" })
-        public Map<String, String> getStaff(
+        @PostMapping(value = "/upload/egrades", params = "async!=true", consumes = { "multipart/form-data" })
+        public Map<String, Object> getStaff(
                         @Parameter(name = "courseId") @RequestParam Long courseId,
                         @Parameter(name = "file") @RequestParam("file") MultipartFile file)
                         throws JsonProcessingException, IOException, CsvException {
@@ -83,51 +77,36 @@ public class StudentsController extends ApiController {
                 Course course = courseRepository.findById(courseId)
                                 .orElseThrow(() -> new EntityNotFoundException(Course.class, courseId.toString()));
 
-                int counts[] = { 0, 0 };
-
-                try (InputStream inputStream = new BufferedInputStream(file.getInputStream());
-                                InputStreamReader reader = new InputStreamReader(inputStream);
-                                CSVReader csvReader = new CSVReader(reader);) {
-                        csvReader.skip(2);
-                        List<String[]> myEntries = csvReader.readAll();
-                        for (String[] row : myEntries) {
-                                Student student = fromEgradesCSVRow(row);
-                                student.setCourseId(course.getId());
-                                Status s = upsertStudent(student, course);
-                                counts[s.ordinal()]++;
-                        }
+                RosterImportResult result = rosterImportService.importUpload(course, file.getOriginalFilename(), file);
+                String message = String.format("Inserted %d new students, Updated %d students, %d unchanged",
+                                result.getInserted(), result.getUpdated(), result.getUnchanged());
+                if (result.isAlreadyImported()) {
+                        message = "Already imported, nothing changed (" + message + ")";
                 }
                 return Map.of(
                                 "filename", file.getOriginalFilename(),
-                                "message", String.format("Inserted %d new students, Updated %d students",
-                                                counts[Status.INSERTED.ordinal()], counts[Status.UPDATED.ordinal()]));
+                                "message", message,
+                                "inserted", result.getInserted(),
+                                "updated", result.getUpdated(),
+                                "unchanged", result.getUnchanged(),
+                                "importMillis", result.getImportMillis(),
+                                "alreadyImported", result.isAlreadyImported());
 
         }
 
-        public Student fromEgradesCSVRow(String[] row) {
-                return Student.builder()
-                                .fname(row[5])
-                                .lname(row[4])
-                                .studentId(row[1])
-                                .email(row[10])
-                                .build();
-        }
+        @Operation(summary = "Upload Students for Course in UCSB Egrades Format, imported by a background job")
+        @PreAuthorize("hasRole('ROLE_ADMIN')")
+        @PostMapping(value = "/upload/egrades", params = "async=true", consumes = { "multipart/form-data" })
+        public Job uploadEgradesAsJob(
+                        @Parameter(name = "courseId") @RequestParam Long courseId,
+                        @Parameter(name = "async") @RequestParam boolean async,
+                        @Parameter(name = "file") @RequestParam("file") MultipartFile file)
+                        throws IOException {
 
-        public Status upsertStudent(Student student, Course course) {
-                Optional<Student> existingStudent = studentRepository.findByCourseIdAndStudentId(course.getId(),
-                                student.getStudentId());
-                if (existingStudent.isPresent()) {
-                        Student existingStudentObj = existingStudent.get();
-                        existingStudentObj.setFname(student.getFname());
-                        existingStudentObj.setLname(student.getLname());
-                        existingStudentObj.setEmail(student.getEmail());
-                        studentRepository.save(existingStudentObj);
-                        return Status.UPDATED;
-                } else {
-                        studentRepository.save(student);
-                        return Status.INSERTED;
-                }
+                Course course = courseRepository.findById(courseId)
+                                .orElseThrow(() -> new EntityNotFoundException(Course.class, courseId.toString()));
 
+                return rosterImportService.launchImportJob(course, file.getOriginalFilename(), file.getInputStream());
         }
 
 }
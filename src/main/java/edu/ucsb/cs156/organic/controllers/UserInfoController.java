@@ -4,8 +4,9 @@ import edu.ucsb.cs156.organic.entities.Course;
 import edu.ucsb.cs156.organic.entities.User;
 import edu.ucsb.cs156.organic.entities.UserEmail;
 import edu.ucsb.cs156.organic.models.CurrentUser;
-import edu.ucsb.cs156.organic.repositories.CourseRepository;
 import edu.ucsb.cs156.organic.repositories.UserRepository;
+import edu.ucsb.cs156.organic.services.CourseCatalogCache;
+import edu.ucsb.cs156.organic.services.LastOnlineBuffer;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import io.swagger.v3.oas.annotations.Operation;
@@ -34,6 +35,12 @@ public class UserInfoController extends ApiController {
   @Autowired
   private UserRepository userRepository;
 
+  @Autowired
+  private CourseCatalogCache courseCatalogCache;
+
+  @Autowired
+  private LastOnlineBuffer lastOnlineBuffer;
+
   @Operation(summary = "Get information about current user")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
@@ -47,10 +54,9 @@ public class UserInfoController extends ApiController {
   @PreAuthorize("hasRole('ROLE_USER')")
   @PostMapping("/last-online")
   public ResponseEntity<Timestamp> updateLastOnline() {
-    User user = super.getCurrentUser().getUser();
+    // buffered and written to the database in batches by LastOnlineBuffer
     Timestamp timeNow = new Timestamp(System.currentTimeMillis());
-    user.setLastOnline(timeNow);
-    userRepository.save(user);
+    lastOnlineBuffer.record(super.getCurrentUserGithubId(), timeNow);
     return ResponseEntity.ok().body(timeNow);}
 
   @Operation(summary = "Get current users emails")
@@ -66,7 +72,7 @@ public class UserInfoController extends ApiController {
   @GetMapping("/staffedCourses")
   public Iterable<Course> getStaffedCourses() {
     User user = super.getCurrentUser().getUser();
-    return userRepository.findCoursesStaffedByUser(user.getGithubId());  
+    return courseCatalogCache.staffedCourses(user.getGithubId());
   }
 
 }
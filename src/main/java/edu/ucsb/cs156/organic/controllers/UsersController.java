@@ -16,6 +16,8 @@ import org.springframework.web.bind.annotation.RestController;
 
 import edu.ucsb.cs156.organic.entities.User;
 import edu.ucsb.cs156.organic.repositories.UserRepository;
+import edu.ucsb.cs156.organic.services.CurrentUserCache;
+import edu.ucsb.cs156.organic.services.UserRoleCache;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -30,6 +32,12 @@ public class UsersController extends ApiController {
     @Autowired
     ObjectMapper mapper;
 
+    @Autowired
+    CurrentUserCache currentUserCache;
+
+    @Autowired
+    UserRoleCache userRoleCache;
+
     @Operation(summary = "Get a list of all users")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @GetMapping("")
@@ -53,6 +61,8 @@ public class UsersController extends ApiController {
         user.setInstructor(!user.isInstructor());
 
         userRepository.save(user);
+        currentUserCache.invalidateUser(githubId);
+        userRoleCache.invalidate(githubId);
         return genericMessage("User with githubId %s has toggled instructor status to %s".formatted(githubId, user.isInstructor()));
     }
 
@@ -65,6 +75,8 @@ public class UsersController extends ApiController {
 
         user.setAdmin(!user.isAdmin());
         userRepository.save(user);
+        currentUserCache.invalidateUser(githubId);
+        userRoleCache.invalidate(githubId);
         return genericMessage("User with githubId %s has toggled admin status to %s".formatted(githubId, user.isAdmin()));
     }
 }
@@ -9,7 +9,7 @@ import java.time.LocalDateTime;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
-@Builder
+@Builder(toBuilder = true)
 @Entity(name = "courses")
 public class Course {
   @Id
@@ -22,5 +22,8 @@ public class Course {
   private LocalDateTime startDate;
   private LocalDateTime endDate;
   private String githubOrg;
-  
+
+  // bumped by hibernate on every update; used for ETags and If-Match
+  @Version
+  private long version;
 }
@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.organic.entities;
+
+import lombok.*;
+
+import jakarta.persistence.*;
+
+import java.sql.Timestamp;
+
+/**
+ * The last egrades roster imported into a course, identified by the
+ * SHA-256 of the file, with what importing it did.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+@Entity(name = "roster_uploads")
+public class RosterUpload {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private long id;
+  private Long courseId;
+  private String sha256;
+  private String filename;
+  private int inserted;
+  private int updated;
+  private int unchanged;
+  private Timestamp uploadedAt;
+}
@@ -14,7 +14,7 @@ import java.util.List;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
-@Builder
+@Builder(toBuilder = true)
 @Entity(name = "users")
 public class User {
   @Id
@@ -32,7 +32,10 @@ public class User {
   @OneToMany(mappedBy = "user", cascade = CascadeType.REMOVE)  @Fetch(FetchMode.JOIN)
   private List<UserEmail> emails;
 
+  // Written only by LastOnlineBuffer, so that saving a User loaded earlier
+  // never overwrites a newer heartbeat with a stale value
   @Builder.Default
+  @Column(updatable = false)
   private Timestamp lastOnline = new Timestamp(System.currentTimeMillis());
 
 
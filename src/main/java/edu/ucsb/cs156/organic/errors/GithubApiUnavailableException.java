@@ -0,0 +1,13 @@
+package edu.ucsb.cs156.organic.errors;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of calling github when the token's rate limit is nearly
+ * used up or when the github circuit breaker is open.
+ */
+public class GithubApiUnavailableException extends IOException {
+  public GithubApiUnavailableException(String message) {
+    super(message);
+  }
+}
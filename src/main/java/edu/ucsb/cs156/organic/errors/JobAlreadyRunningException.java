@@ -0,0 +1,11 @@
+package edu.ucsb.cs156.organic.errors;
+
+/**
+ * Thrown when asked to start a job of which only one may run at a time
+ * while another is still running.
+ */
+public class JobAlreadyRunningException extends RuntimeException {
+  public JobAlreadyRunningException(String message) {
+    super(message);
+  }
+}
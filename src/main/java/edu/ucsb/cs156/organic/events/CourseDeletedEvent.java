@@ -0,0 +1,7 @@
+package edu.ucsb.cs156.organic.events;
+
+/**
+ * Published when a course has been deleted.
+ */
+public record CourseDeletedEvent(long courseId) {
+}
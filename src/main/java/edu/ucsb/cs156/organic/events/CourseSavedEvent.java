@@ -0,0 +1,10 @@
+package edu.ucsb.cs156.organic.events;
+
+import edu.ucsb.cs156.organic.entities.Course;
+
+/**
+ * Published when a course has been created or updated; course is the saved
+ * entity.
+ */
+public record CourseSavedEvent(Course course) {
+}
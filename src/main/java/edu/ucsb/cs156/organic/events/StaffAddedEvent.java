@@ -0,0 +1,7 @@
+package edu.ucsb.cs156.organic.events;
+
+/**
+ * Published when githubId has been added to the staff of a course.
+ */
+public record StaffAddedEvent(Integer githubId, long courseId) {
+}
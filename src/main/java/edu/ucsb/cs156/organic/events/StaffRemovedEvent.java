@@ -0,0 +1,7 @@
+package edu.ucsb.cs156.organic.events;
+
+/**
+ * Published when githubId has been removed from the staff of a course.
+ */
+public record StaffRemovedEvent(Integer githubId, long courseId) {
+}
@@ -6,12 +6,10 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
-import org.springframework.web.servlet.ModelAndView;
 
-import edu.ucsb.cs156.organic.repositories.UserRepository;
+import edu.ucsb.cs156.organic.services.UserRoleCache;
+import edu.ucsb.cs156.organic.services.UserRoleCache.RoleFlags;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
@@ -23,7 +21,6 @@ import java.util.Optional;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.Collection;
-import edu.ucsb.cs156.organic.entities.User;
 
 
 
@@ -31,27 +28,33 @@ import edu.ucsb.cs156.organic.entities.User;
 public class RoleUserInterceptor implements HandlerInterceptor {
 
    @Autowired
-   UserRepository userRepository;
+   UserRoleCache userRoleCache;
 
    @Override
    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
         // Update user's security context on server each time the user makes HTTP request to the backend
         // If user has admin status in database we will keep ROLE_ADMIN in security context
         // Otherwise interceptor will remove ROLE_ADMIN before the incoming request is processed by backend API
+        // The flags come from UserRoleCache, so this normally does not touch the database.
         SecurityContext securityContext = SecurityContextHolder.getContext();
         Authentication authentication = securityContext.getAuthentication();
 
-        
-
         if (authentication instanceof OAuth2AuthenticationToken ) {
             OAuth2User oAuthUser = ((OAuth2AuthenticationToken) authentication).getPrincipal();
             Integer githubId = oAuthUser.getAttribute("id");
-            Optional<User> optionalUser = userRepository.findByGithubId(githubId);
-            if (optionalUser.isPresent()){
-                User user = optionalUser.get();
+            Optional<RoleFlags> optionalFlags = userRoleCache.get(githubId);
+            if (optionalFlags.isPresent()){
+                RoleFlags flags = optionalFlags.get();
 
-                Set<GrantedAuthority> newAuthorities = new HashSet<>();
                 Collection<? extends GrantedAuthority> currentAuthorities = authentication.getAuthorities();
+                boolean hasAdmin = hasAuthority(currentAuthorities, "ROLE_ADMIN");
+                boolean hasInstructor = hasAuthority(currentAuthorities, "ROLE_INSTRUCTOR");
+                if (hasAdmin == flags.admin() && hasInstructor == flags.instructor()) {
+                    // authorities already match the database; nothing to rebuild
+                    return true;
+                }
+
+                Set<GrantedAuthority> newAuthorities = new HashSet<>();
                 currentAuthorities.stream()
                 .filter(authority -> !authority.getAuthority().equals("ROLE_ADMIN")
                  && !authority.getAuthority().equals("ROLE_INSTRUCTOR"))
@@ -59,11 +62,11 @@ public class RoleUserInterceptor implements HandlerInterceptor {
                     newAuthorities.add(authority);
                 });
 
-                if (user.isAdmin()){
+                if (flags.admin()){
                     newAuthorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
                 }
 
-                if (user.isInstructor()){
+                if (flags.instructor()){
                     newAuthorities.add(new SimpleGrantedAuthority("ROLE_INSTRUCTOR"));
                 }
                 
@@ -74,5 +77,9 @@ public class RoleUserInterceptor implements HandlerInterceptor {
 
       return true;
    }
+
+   private static boolean hasAuthority(Collection<? extends GrantedAuthority> authorities, String role) {
+        return authorities.stream().anyMatch(authority -> authority.getAuthority().equals(role));
+   }
     
 }
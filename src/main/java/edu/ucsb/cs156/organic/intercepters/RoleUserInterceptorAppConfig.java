@@ -13,7 +13,8 @@ public class RoleUserInterceptorAppConfig implements WebMvcConfigurer {
 
    @Override
    public void addInterceptors(InterceptorRegistry registry) {
-      registry.addInterceptor(roleUserInterceptor);
+      // roles only matter for @PreAuthorize checks on the api endpoints
+      registry.addInterceptor(roleUserInterceptor).addPathPatterns("/api/**");
    }
    
 }
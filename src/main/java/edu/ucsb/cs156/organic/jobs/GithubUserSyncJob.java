@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.organic.jobs;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import edu.ucsb.cs156.organic.entities.User;
+import edu.ucsb.cs156.organic.models.UserSyncResult;
+import edu.ucsb.cs156.organic.repositories.UserRepository;
+import edu.ucsb.cs156.organic.services.GithubUserSyncService;
+import edu.ucsb.cs156.organic.services.jobs.JobContext;
+import edu.ucsb.cs156.organic.services.jobs.JobContextConsumer;
+import lombok.Builder;
+
+/**
+ * Refreshes profile fields and emails from github for every user that has
+ * been online since activeSince.  Users are processed in batches of
+ * batchSize, in githubId order, pausing delayMs between users so that we
+ * stay well clear of github's rate limits.
+ */
+@Builder
+public class GithubUserSyncJob implements JobContextConsumer {
+
+    private UserRepository userRepository;
+    private GithubUserSyncService githubUserSyncService;
+    private Timestamp activeSince;
+    private int batchSize;
+    private long delayMs;
+
+    @Override
+    public void accept(JobContext ctx) throws Exception {
+        ctx.log("Syncing users active since %s from github".formatted(activeSince));
+
+        int synced = 0;
+        int failed = 0;
+        int deferred = 0;
+        long rowsWritten = 0;
+        // keyset paging: users who come online during the run change the set
+        // of active users, which would shift the pages of an offset query
+        List<User> batch;
+        int batchNumber = 0;
+        int lastGithubId = 0;
+        do {
+            batch = userRepository.findByLastOnlineAfterAndGithubIdGreaterThan(activeSince, lastGithubId,
+                    PageRequest.of(0, batchSize, Sort.by("githubId")));
+            int batchSynced = 0;
+            for (User user : batch) {
+                lastGithubId = user.getGithubId();
+                UserSyncResult result = githubUserSyncService.syncUser(user);
+                rowsWritten += result.getRowsWritten();
+                if (result.isSynced()) {
+                    batchSynced++;
+                } else if (result.isDeferred()) {
+                    deferred++;
+                } else {
+                    failed++;
+                }
+                Thread.sleep(delayMs);
+            }
+            synced += batchSynced;
+            batchNumber++;
+            if (!batch.isEmpty()) {
+                ctx.log("Batch %d: synced %d of %d users".formatted(batchNumber, batchSynced, batch.size()));
+            }
+        } while (batch.size() == batchSize);
+
+        String summary = "Github sync complete: %d synced, %d failed, %d rows written".formatted(synced, failed, rowsWritten);
+        if (deferred > 0) {
+            summary += ", %d deferred until github is available".formatted(deferred);
+        }
+        ctx.log(summary);
+    }
+}
@@ -0,0 +1,61 @@
+package edu.ucsb.cs156.organic.jobs;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import edu.ucsb.cs156.organic.models.RosterImportResult;
+import edu.ucsb.cs156.organic.services.RosterImportService;
+import edu.ucsb.cs156.organic.services.jobs.JobContext;
+import edu.ucsb.cs156.organic.services.jobs.JobContextConsumer;
+import lombok.Builder;
+
+/**
+ * Imports an uploaded egrades roster into a course (see
+ * RosterImportService.launchImportJob).  Progress is logged once every
+ * progressEveryRows rows rather than after every chunk, since each log line
+ * rewrites the whole job log.  The upload is deleted when the job is done,
+ * whether or not it succeeded.  A file identical to the one last imported
+ * into the course is not imported again.
+ */
+@Builder
+public class RosterImportJob implements JobContextConsumer {
+
+    private RosterImportService rosterImportService;
+    private Course course;
+    private String filename;
+    private String sha256;
+    private Path upload;
+    private int progressEveryRows;
+
+    @Override
+    public void accept(JobContext ctx) throws Exception {
+        ctx.log("Importing egrades roster %s into course %d".formatted(filename, course.getId()));
+
+        int[] nextReport = { progressEveryRows };
+        RosterImportResult result;
+        try (Reader reader = Files.newBufferedReader(upload, StandardCharsets.UTF_8)) {
+            result = rosterImportService.importUpload(course, filename, sha256, reader, progress -> {
+                if (progress.getRows() >= nextReport[0]) {
+                    ctx.log("Processed %d rows: %d inserted, %d updated".formatted(progress.getRows(),
+                            progress.getInserted(), progress.getUpdated()));
+                    nextReport[0] = (progress.getRows() / progressEveryRows + 1) * progressEveryRows;
+                }
+            });
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+
+        if (result.isAlreadyImported()) {
+            ctx.log("This is the roster last imported into the course, so nothing was imported: "
+                    + "it had %d inserted, %d updated, %d unchanged".formatted(result.getInserted(),
+                            result.getUpdated(), result.getUnchanged()));
+            return;
+        }
+        ctx.log("Roster import complete: %d rows, %d inserted, %d updated, %d unchanged in %d ms".formatted(
+                result.getRows(), result.getInserted(), result.getUpdated(), result.getUnchanged(),
+                result.getImportMillis()));
+    }
+}
@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.organic.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class BufferStats {
+  private long size;
+  private long recorded;
+  private long flushes;
+  private long rowsFlushed;
+  private long failedFlushes;
+  private long lastFlushMillis;
+  private long maxFlushMillis;
+}
@@ -0,0 +1,18 @@
+package edu.ucsb.cs156.organic.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class CacheStats {
+  private long size;
+  private long hits;
+  private long misses;
+  private long refreshes;
+}
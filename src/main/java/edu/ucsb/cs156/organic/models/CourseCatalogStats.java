@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.organic.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class CourseCatalogStats {
+  private long size;
+  private boolean complete;
+  private long hits;
+  private long misses;
+  private double hitRatio;
+  private long rebuilds;
+  private long lastRebuildMillis;
+}
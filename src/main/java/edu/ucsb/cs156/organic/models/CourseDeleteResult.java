@@ -0,0 +1,19 @@
+package edu.ucsb.cs156.organic.models;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class CourseDeleteResult {
+  private Course course;
+  private int staffDeleted;
+  private int studentsDeleted;
+  private long deleteMillis;
+}
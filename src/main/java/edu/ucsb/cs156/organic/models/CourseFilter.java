@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.organic.models;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * Optional filters for a page of courses; null fields are not filtered on.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class CourseFilter {
+  private String school;
+  private String term;
+  // courses running at any time between from and to
+  private LocalDateTime from;
+  private LocalDateTime to;
+  // restrict to these course ids (e.g. the courses a user is staff for)
+  private Collection<Long> ids;
+}
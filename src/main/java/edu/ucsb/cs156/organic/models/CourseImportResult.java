@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.organic.models;
+
+import java.util.List;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class CourseImportResult {
+  private int inserted;
+  private int invalid;
+  private long parseMillis;
+  private long insertMillis;
+  private List<CourseImportRowResult> results;
+}
@@ -0,0 +1,31 @@
+package edu.ucsb.cs156.organic.models;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * One course to create in a bulk import; same fields as POST /api/courses/post.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class CourseImportRow {
+  private String name;
+  private String school;
+  private String term;
+  private LocalDateTime startDate;
+  private LocalDateTime endDate;
+  private String githubOrg;
+  // set by CourseImportService.parseCsv when a field of the CSV line could
+  // not be read, e.g. a date not in iso format; the row is reported INVALID
+  @JsonIgnore
+  private String parseError;
+}
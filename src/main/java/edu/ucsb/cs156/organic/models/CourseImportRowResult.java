@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.organic.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class CourseImportRowResult {
+  // 1-based position in the uploaded array or CSV (not counting the header)
+  private int row;
+  private String status;
+  // id of the new course; null unless status is INSERTED
+  private Long courseId;
+  private String message;
+}
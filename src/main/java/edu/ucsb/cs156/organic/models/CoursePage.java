@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.organic.models;
+
+import java.util.List;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class CoursePage {
+  private List<Course> courses;
+  // pass as "after" to get the next page; null on the last page
+  private Long nextCursor;
+}
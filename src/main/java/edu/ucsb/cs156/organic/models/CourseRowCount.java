@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.organic.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * How many rows of a table belong to a course, and how many of those have
+ * a githubId; see StudentRepository.countPerCourse and
+ * StaffRepository.countPerCourse.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class CourseRowCount {
+  private Long courseId;
+  private long rows;
+  private long withGithubId;
+}
@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.organic.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class CourseSummary {
+  private Long courseId;
+  private String name;
+  private String term;
+  private String school;
+  private long students;
+  private long linkedGithubAccounts;
+  private long staff;
+}
@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.organic.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class GithubApiStats {
+  private String breakerState;
+  private long consecutiveFailures;
+  private long breakerOpens;
+  private long calls;
+  private long failures;
+  private long rejectedCalls;
+  private long trackedTokens;
+  private long lowestRemaining;
+  private long lastLatencyMillis;
+  private long maxLatencyMillis;
+  private long averageLatencyMillis;
+}
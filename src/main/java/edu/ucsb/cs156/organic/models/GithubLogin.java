@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.organic.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * The githubId of a user with a given githubLogin; see
+ * UserRepository.findGithubLoginsByGithubLoginIn.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class GithubLogin {
+  private String githubLogin;
+  private Integer githubId;
+}
@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.organic.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class RosterImportResult {
+  private int inserted;
+  private int updated;
+  private int unchanged;
+  private int chunks;
+  private long importMillis;
+  // true if the file was the one last imported into the course, so the
+  // counts are those of that import and nothing was read this time
+  private boolean alreadyImported;
+
+  /**
+   * @return the roster lines read so far
+   */
+  public int getRows() {
+    return inserted + updated + unchanged;
+  }
+}
@@ -0,0 +1,23 @@
+package edu.ucsb.cs156.organic.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * The columns of a student that an egrades roster sets; see
+ * StudentRepository.findRosterByCourseId.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class RosterStudent {
+  private Long id;
+  private String studentId;
+  private String fname;
+  private String lname;
+  private String email;
+}
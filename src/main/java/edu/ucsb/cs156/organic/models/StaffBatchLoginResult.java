@@ -0,0 +1,18 @@
+package edu.ucsb.cs156.organic.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class StaffBatchLoginResult {
+  private String githubLogin;
+  private String status;
+  // null if status is NOT_FOUND
+  private Integer githubId;
+}
@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.organic.models;
+
+import java.util.List;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class StaffBatchResult {
+  private long courseId;
+  private int added;
+  private int alreadyStaff;
+  private int notFound;
+  private List<StaffBatchLoginResult> results;
+}
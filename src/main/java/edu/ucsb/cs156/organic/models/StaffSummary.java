@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.organic.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * A staff row with just the parts of its User that staff lists show; see
+ * StaffRepository.findSummariesByCourseId.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class StaffSummary {
+  private Long id;
+  private Long courseId;
+  private Integer githubId;
+  private String githubLogin;
+  private String fullName;
+  private String pictureUrl;
+}
@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.organic.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class UserSyncResult {
+  private boolean synced;
+  // users + useremails rows inserted, updated or deleted by the sync
+  private int rowsWritten;
+  // github was rate limited or unavailable, so the user was left as is
+  private boolean deferred;
+
+  public static UserSyncResult failed() {
+    return UserSyncResult.builder().synced(false).rowsWritten(0).build();
+  }
+
+  public static UserSyncResult deferred() {
+    return UserSyncResult.builder().synced(false).rowsWritten(0).deferred(true).build();
+  }
+}
@@ -1,17 +1,24 @@
 package edu.ucsb.cs156.organic.repositories;
 
 import edu.ucsb.cs156.organic.entities.Course;
+import java.util.Collection;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CourseRepository extends CrudRepository<Course, Integer> {
+public interface CourseRepository extends CrudRepository<Course, Integer>, CourseRepositoryCustom {
 
    public Optional<Course> findById(Long id);
 
-   @Query("select c from courses c where c.id in (select cs.courseId from staff cs where cs.githubId = :githubId)")
-   public Iterable<Course> findCoursesStaffedByUser(Integer githubId);
+   public Iterable<Course> findByIdIn(Collection<Long> ids);
+
+   // a single DELETE statement; see CourseDeletionService for the staff
+   // and students that have to go first
+   @Modifying(flushAutomatically = true, clearAutomatically = true)
+   @Query("delete from courses c where c.id = :id")
+   public int deleteCourseById(Long id);
 }
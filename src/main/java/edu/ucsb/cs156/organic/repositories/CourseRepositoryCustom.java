@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.organic.repositories;
+
+import java.util.List;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import edu.ucsb.cs156.organic.models.CourseFilter;
+
+public interface CourseRepositoryCustom {
+  /**
+   * Keyset (seek) pagination on id: the courses matching filter with id
+   * greater than afterId, in id order.  Unlike an offset, the cost of a
+   * page does not grow with how far into the list it is.
+   *
+   * @param filter  only the non-null fields are turned into predicates
+   * @param afterId the id of the last course on the previous page, or null
+   *                for the first page
+   * @param limit   the maximum number of courses to return
+   */
+  List<Course> findPage(CourseFilter filter, Long afterId, int limit);
+
+  /**
+   * Insert courses using JDBC batches of hibernate.jdbc.batch_size rows.
+   * Hibernate cannot batch these itself because course ids are database
+   * generated (IDENTITY); the generated ids are set on the courses passed in.
+   *
+   * @param courses new courses (their ids are ignored)
+   */
+  void insertAll(List<Course> courses);
+}
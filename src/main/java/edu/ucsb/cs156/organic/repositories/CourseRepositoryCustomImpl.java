@@ -0,0 +1,104 @@
+package edu.ucsb.cs156.organic.repositories;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import edu.ucsb.cs156.organic.models.CourseFilter;
+
+public class CourseRepositoryCustomImpl implements CourseRepositoryCustom {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+  private int batchSize;
+
+  @Override
+  public List<Course> findPage(CourseFilter filter, Long afterId, int limit) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Course> query = cb.createQuery(Course.class);
+    Root<Course> course = query.from(Course.class);
+
+    // only add the predicates that are actually used, rather than
+    // "(:school is null or school = :school)", so the database can pick
+    // the matching index
+    List<Predicate> predicates = new ArrayList<>();
+    if (afterId != null) {
+      predicates.add(cb.greaterThan(course.get("id"), afterId));
+    }
+    if (filter.getSchool() != null) {
+      predicates.add(cb.equal(course.get("school"), filter.getSchool()));
+    }
+    if (filter.getTerm() != null) {
+      predicates.add(cb.equal(course.get("term"), filter.getTerm()));
+    }
+    if (filter.getFrom() != null) {
+      predicates.add(cb.greaterThanOrEqualTo(course.get("endDate"), filter.getFrom()));
+    }
+    if (filter.getTo() != null) {
+      predicates.add(cb.lessThanOrEqualTo(course.get("startDate"), filter.getTo()));
+    }
+    if (filter.getIds() != null) {
+      predicates.add(course.get("id").in(filter.getIds()));
+    }
+
+    query.select(course)
+        .where(predicates.toArray(new Predicate[0]))
+        .orderBy(cb.asc(course.get("id")));
+    return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+  }
+
+  @Override
+  public void insertAll(List<Course> courses) {
+    String sql = "INSERT INTO courses (name, school, term, start_date, end_date, github_org) VALUES (?, ?, ?, ?, ?, ?)";
+    for (int from = 0; from < courses.size(); from += batchSize) {
+      List<Course> batch = courses.subList(from, Math.min(from + batchSize, courses.size()));
+      jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+        try (PreparedStatement ps = connection.prepareStatement(sql, new String[] { "id" })) {
+          for (Course course : batch) {
+            ps.setString(1, course.getName());
+            ps.setString(2, course.getSchool());
+            ps.setString(3, course.getTerm());
+            ps.setObject(4, toTimestamp(course.getStartDate()), Types.TIMESTAMP);
+            ps.setObject(5, toTimestamp(course.getEndDate()), Types.TIMESTAMP);
+            ps.setString(6, course.getGithubOrg());
+            ps.addBatch();
+          }
+          ps.executeBatch();
+          try (ResultSet keys = ps.getGeneratedKeys()) {
+            for (Course course : batch) {
+              keys.next();
+              course.setId(keys.getLong(1));
+            }
+          }
+        }
+        return null;
+      });
+    }
+  }
+
+  private static Timestamp toTimestamp(LocalDateTime dateTime) {
+    return dateTime == null ? null : Timestamp.valueOf(dateTime);
+  }
+}
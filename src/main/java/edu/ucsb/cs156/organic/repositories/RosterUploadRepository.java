@@ -0,0 +1,19 @@
+package edu.ucsb.cs156.organic.repositories;
+
+import edu.ucsb.cs156.organic.entities.RosterUpload;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RosterUploadRepository extends CrudRepository<RosterUpload, Long>, RosterUploadRepositoryCustom {
+    Optional<RosterUpload> findByCourseId(Long courseId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from roster_uploads r where r.courseId = :courseId")
+    int deleteAllOfCourse(Long courseId);
+}
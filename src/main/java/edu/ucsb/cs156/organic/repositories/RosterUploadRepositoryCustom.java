@@ -0,0 +1,16 @@
+package edu.ucsb.cs156.organic.repositories;
+
+import edu.ucsb.cs156.organic.entities.RosterUpload;
+
+public interface RosterUploadRepositoryCustom {
+  /**
+   * Record upload as the last roster imported into its course, replacing
+   * the course's previous upload if there is one, in a single statement:
+   * INSERT ... ON CONFLICT on postgres, MERGE on H2.  Two first uploads to
+   * a course at the same time therefore both succeed (the later one wins)
+   * rather than one failing on the unique course_id constraint.
+   *
+   * @param upload an upload with a courseId (its id is ignored)
+   */
+  void upsert(RosterUpload upload);
+}
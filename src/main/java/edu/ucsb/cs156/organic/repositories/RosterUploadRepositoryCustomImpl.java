@@ -0,0 +1,44 @@
+package edu.ucsb.cs156.organic.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import edu.ucsb.cs156.organic.entities.RosterUpload;
+
+public class RosterUploadRepositoryCustomImpl implements RosterUploadRepositoryCustom {
+
+  // both rely on the ROSTER_UPLOADS_COURSE_ID_UNIQUE constraint
+  static final String POSTGRES_UPSERT = "INSERT INTO roster_uploads"
+      + " (course_id, sha256, filename, inserted, updated, unchanged, uploaded_at)"
+      + " VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT (course_id)"
+      + " DO UPDATE SET sha256 = EXCLUDED.sha256, filename = EXCLUDED.filename, inserted = EXCLUDED.inserted,"
+      + " updated = EXCLUDED.updated, unchanged = EXCLUDED.unchanged, uploaded_at = EXCLUDED.uploaded_at";
+  static final String H2_UPSERT = "MERGE INTO roster_uploads"
+      + " (course_id, sha256, filename, inserted, updated, unchanged, uploaded_at)"
+      + " KEY (course_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private volatile String upsertSql;
+
+  @Override
+  public void upsert(RosterUpload upload) {
+    jdbcTemplate.update(upsertSql(), upload.getCourseId(), upload.getSha256(), upload.getFilename(),
+        upload.getInserted(), upload.getUpdated(), upload.getUnchanged(), upload.getUploadedAt());
+  }
+
+  private String upsertSql() {
+    if (upsertSql == null) {
+      String database = jdbcTemplate.execute(
+          (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+      upsertSql = switch (database) {
+        case "PostgreSQL" -> POSTGRES_UPSERT;
+        case "H2" -> H2_UPSERT;
+        default -> throw new IllegalStateException("no roster upload upsert for database " + database);
+      };
+    }
+    return upsertSql;
+  }
+}
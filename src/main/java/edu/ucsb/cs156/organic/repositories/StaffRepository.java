@@ -1,16 +1,46 @@
 package edu.ucsb.cs156.organic.repositories;
 
 import edu.ucsb.cs156.organic.entities.Staff;
+import edu.ucsb.cs156.organic.models.CourseRowCount;
+import edu.ucsb.cs156.organic.models.StaffSummary;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface StaffRepository extends CrudRepository<Staff, Integer> {
+public interface StaffRepository extends CrudRepository<Staff, Integer>, StaffRepositoryCustom {
     Iterable<Staff> findByCourseId(Long courseId);
     Iterable<Staff> findByGithubId(Integer githubId);
     Optional<Staff> findById(Long id);
     Optional<Staff> findByCourseIdAndGithubId(Long courseId, Integer githubId);
+
+    // one statement: unlike findByCourseId, this does not load each staff
+    // member's User, and with it all of their emails
+    @Query("select new edu.ucsb.cs156.organic.models.StaffSummary(s.id, s.courseId, s.githubId, u.githubLogin, u.fullName, u.pictureUrl)"
+        + " from staff s left join users u on u.githubId = s.githubId where s.courseId = :courseId order by s.id")
+    Iterable<StaffSummary> findSummariesByCourseId(Long courseId);
+
+    // just the ids: loading the Staff rows would load each of their Users too
+    @Query("select s.githubId from staff s where s.courseId = :courseId and s.githubId in :githubIds")
+    List<Integer> findGithubIdsByCourseIdAndGithubIdIn(Long courseId, Collection<Integer> githubIds);
+
+    // counted by the database; courses without any staff are left out
+    @Query("select new edu.ucsb.cs156.organic.models.CourseRowCount(s.courseId, count(s), count(s.githubId))"
+        + " from staff s group by s.courseId")
+    List<CourseRowCount> countPerCourse();
+
+    @Query("select new edu.ucsb.cs156.organic.models.CourseRowCount(s.courseId, count(s), count(s.githubId))"
+        + " from staff s where s.courseId in :courseIds group by s.courseId")
+    List<CourseRowCount> countPerCourse(Collection<Long> courseIds);
+
+    // unlike a derived deleteByCourseId, this does not load each row first
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from staff s where s.courseId = :courseId")
+    int deleteAllOfCourse(Long courseId);
 }
@@ -0,0 +1,16 @@
+package edu.ucsb.cs156.organic.repositories;
+
+import java.util.List;
+
+import edu.ucsb.cs156.organic.entities.Staff;
+
+public interface StaffRepositoryCustom {
+  /**
+   * Insert staff rows using JDBC batches of hibernate.jdbc.batch_size rows
+   * (staff ids are IDENTITY, so Hibernate would insert them one at a time).
+   *
+   * @param staff new staff rows (their ids are ignored and not set)
+   * @return the number of rows inserted
+   */
+  int insertAll(List<Staff> staff);
+}
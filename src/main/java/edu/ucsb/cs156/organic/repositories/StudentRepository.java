@@ -2,16 +2,45 @@ package edu.ucsb.cs156.organic.repositories;
 
 import edu.ucsb.cs156.organic.entities.Staff;
 import edu.ucsb.cs156.organic.entities.Student;
+import edu.ucsb.cs156.organic.models.CourseRowCount;
+import edu.ucsb.cs156.organic.models.RosterStudent;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface StudentRepository extends CrudRepository<Student, Integer> {
+public interface StudentRepository extends CrudRepository<Student, Integer>, StudentRepositoryCustom {
     Iterable<Student> findByCourseId(Long courseId);
     Iterable<Student> findByGithubId(Integer githubId);
     Optional<Student> findById(Long id);
     Optional<Student> findByCourseIdAndStudentId(Long courseId, String studentId);
+
+    // projections, so that the User of each student is not loaded too
+    @Query("select new edu.ucsb.cs156.organic.models.RosterStudent(s.id, s.studentId, s.fname, s.lname, s.email)"
+        + " from students s where s.courseId = :courseId")
+    List<RosterStudent> findRosterByCourseId(Long courseId);
+
+    @Query("select new edu.ucsb.cs156.organic.models.RosterStudent(s.id, s.studentId, s.fname, s.lname, s.email)"
+        + " from students s where s.courseId = :courseId and s.studentId in :studentIds")
+    List<RosterStudent> findRosterByCourseIdAndStudentIdIn(Long courseId, Collection<String> studentIds);
+
+    // counted by the database; courses without any students are left out
+    @Query("select new edu.ucsb.cs156.organic.models.CourseRowCount(s.courseId, count(s), count(s.githubId))"
+        + " from students s group by s.courseId")
+    List<CourseRowCount> countPerCourse();
+
+    @Query("select new edu.ucsb.cs156.organic.models.CourseRowCount(s.courseId, count(s), count(s.githubId))"
+        + " from students s where s.courseId in :courseIds group by s.courseId")
+    List<CourseRowCount> countPerCourse(Collection<Long> courseIds);
+
+    // unlike a derived deleteByCourseId, this does not load each row first
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from students s where s.courseId = :courseId")
+    int deleteAllOfCourse(Long courseId);
 }
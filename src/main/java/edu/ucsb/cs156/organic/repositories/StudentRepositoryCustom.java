@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.organic.repositories;
+
+import java.util.List;
+
+import edu.ucsb.cs156.organic.entities.Student;
+
+public interface StudentRepositoryCustom {
+  /**
+   * Insert students, or set the fname, lname and email of the student
+   * already in the course with the same studentId, using JDBC batches of
+   * hibernate.jdbc.batch_size rows: INSERT ... ON CONFLICT on postgres,
+   * MERGE on H2.  Nothing goes through Hibernate, so no student is selected
+   * first, and ids and githubIds are left alone.
+   *
+   * @param students students with a courseId and studentId (their ids are
+   *                 ignored); a studentId should appear only once
+   * @return the number of rows inserted or updated
+   */
+  int upsertAll(List<Student> students);
+}
@@ -0,0 +1,58 @@
+package edu.ucsb.cs156.organic.repositories;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import edu.ucsb.cs156.organic.entities.Student;
+
+public class StudentRepositoryCustomImpl implements StudentRepositoryCustom {
+
+  // both rely on the STUDENTS_COURSE_ID_STUDENT_ID_UNIQUE constraint
+  static final String POSTGRES_UPSERT = "INSERT INTO students (course_id, student_id, fname, lname, email)"
+      + " VALUES (?, ?, ?, ?, ?) ON CONFLICT (course_id, student_id)"
+      + " DO UPDATE SET fname = EXCLUDED.fname, lname = EXCLUDED.lname, email = EXCLUDED.email";
+  static final String H2_UPSERT = "MERGE INTO students (course_id, student_id, fname, lname, email)"
+      + " KEY (course_id, student_id) VALUES (?, ?, ?, ?, ?)";
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+  private int batchSize;
+
+  private volatile String upsertSql;
+
+  @Override
+  public int upsertAll(List<Student> students) {
+    if (students.isEmpty()) {
+      return 0;
+    }
+    int[][] counts = jdbcTemplate.batchUpdate(upsertSql(), students, batchSize, (ps, student) -> {
+      ps.setLong(1, student.getCourseId());
+      ps.setString(2, student.getStudentId());
+      ps.setString(3, student.getFname());
+      ps.setString(4, student.getLname());
+      ps.setString(5, student.getEmail());
+    });
+    // see StaffRepositoryCustomImpl.insertAll
+    return Arrays.stream(counts).flatMapToInt(Arrays::stream).map(count -> count < 0 ? 1 : count).sum();
+  }
+
+  private String upsertSql() {
+    if (upsertSql == null) {
+      String database = jdbcTemplate.execute(
+          (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+      upsertSql = switch (database) {
+        case "PostgreSQL" -> POSTGRES_UPSERT;
+        case "H2" -> H2_UPSERT;
+        default -> throw new IllegalStateException("no student upsert for database " + database);
+      };
+    }
+    return upsertSql;
+  }
+}
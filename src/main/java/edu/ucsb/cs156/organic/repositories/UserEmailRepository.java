@@ -7,5 +7,5 @@ import org.springframework.stereotype.Repository;
 
 @Repository
 public interface UserEmailRepository extends CrudRepository<UserEmail, String> {
-    Iterable<UserEmail> findByUserGithubId(Long userGithubId);
+    Iterable<UserEmail> findByUserGithubId(Integer userGithubId);
 }
@@ -1,19 +1,28 @@
 package edu.ucsb.cs156.organic.repositories;
 
-import edu.ucsb.cs156.organic.entities.Course;
 import edu.ucsb.cs156.organic.entities.User;
+import edu.ucsb.cs156.organic.models.GithubLogin;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends CrudRepository<User, Integer> {
+public interface UserRepository extends CrudRepository<User, Integer>, UserRepositoryCustom {
   Optional<User> findByGithubId(Integer githubId);
   Optional<User> findByGithubLogin(String githubLogin);
 
-   @Query("select c from courses c where c.id in (select cs.courseId from staff cs where cs.githubId = :githubId)")
-   public Iterable<Course> findCoursesStaffedByUser(Integer githubId);
+  // only the two columns, so neither the users nor their emails are loaded
+  @Query("select new edu.ucsb.cs156.organic.models.GithubLogin(u.githubLogin, u.githubId)"
+      + " from users u where u.githubLogin in :githubLogins")
+  List<GithubLogin> findGithubLoginsByGithubLoginIn(Collection<String> githubLogins);
+  boolean existsByLastOnlineAfter(Timestamp since);
+  // the next page of active users after githubId, in githubId order
+  List<User> findByLastOnlineAfterAndGithubIdGreaterThan(Timestamp since, Integer githubId, Pageable pageable);
 }
@@ -0,0 +1,14 @@
+package edu.ucsb.cs156.organic.repositories;
+
+import java.sql.Timestamp;
+import java.util.Map;
+
+public interface UserRepositoryCustom {
+  /**
+   * Set last_online for many users in a single JDBC batch.
+   *
+   * @param lastOnlineByGithubId the new last_online value for each githubId
+   * @return the number of rows updated
+   */
+  int updateLastOnline(Map<Integer, Timestamp> lastOnlineByGithubId);
+}
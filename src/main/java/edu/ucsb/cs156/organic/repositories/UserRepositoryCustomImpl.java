@@ -0,0 +1,28 @@
+package edu.ucsb.cs156.organic.repositories;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Override
+  public int updateLastOnline(Map<Integer, Timestamp> lastOnlineByGithubId) {
+    if (lastOnlineByGithubId.isEmpty()) {
+      return 0;
+    }
+    List<Object[]> args = new ArrayList<>(lastOnlineByGithubId.size());
+    lastOnlineByGithubId.forEach((githubId, lastOnline) -> args.add(new Object[] { lastOnline, githubId }));
+    int[] counts = jdbcTemplate.batchUpdate("UPDATE users SET last_online = ? WHERE github_id = ?", args);
+    // drivers may report SUCCESS_NO_INFO (-2) for batched statements
+    return Arrays.stream(counts).map(count -> Math.max(count, 0)).sum();
+  }
+}
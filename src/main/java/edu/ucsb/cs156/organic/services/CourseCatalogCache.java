@@ -0,0 +1,242 @@
+package edu.ucsb.cs156.organic.services;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import edu.ucsb.cs156.organic.events.CourseDeletedEvent;
+import edu.ucsb.cs156.organic.events.CourseSavedEvent;
+import edu.ucsb.cs156.organic.models.CourseCatalogStats;
+import edu.ucsb.cs156.organic.repositories.CourseRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory copy of the courses table, so that course reads do not need a
+ * database round trip.
+ *
+ * Courses are loaded by id the first time they are asked for, and all at
+ * once the first time the whole catalog is; the courses a user is on the
+ * staff of are looked up through StaffAuthorizationIndex.  After that the
+ * cache is kept up to date by the CourseSavedEvent and CourseDeletedEvent
+ * published by whatever changes the courses table, applied once the
+ * publishing transaction has committed.
+ *
+ * Courses can also be written without an event (by a migration, another
+ * instance, or a repository save outside the controllers), so a course
+ * that is not cached is always looked up rather than taken not to exist,
+ * and the whole catalog is loaded again once it is ttlSeconds old.  At
+ * most maxEntries courses are kept; past that, reads of the whole catalog
+ * go to the database.
+ *
+ * The cache holds copies of the courses and hands out copies, so callers
+ * may change what they get (e.g. before saving it) without changing the
+ * cache.
+ */
+@Slf4j
+@Service
+public class CourseCatalogCache {
+
+  private static final Comparator<Course> BY_ID = Comparator.comparingLong(Course::getId);
+
+  @Autowired
+  private CourseRepository courseRepository;
+
+  @Autowired
+  private StaffAuthorizationIndex staffAuthorizationIndex;
+
+  @Value("${app.courseCatalog.ttlSeconds:300}")
+  private long ttlSeconds;
+
+  @Value("${app.courseCatalog.maxEntries:10000}")
+  private int maxEntries;
+
+  @Autowired(required = false)
+  private Clock clock = Clock.systemUTC();
+
+  private final Map<Long, Course> coursesById = new ConcurrentHashMap<>();
+
+  // true once every course has been loaded, so that all() can be answered
+  // from coursesById until completeUntil
+  private volatile boolean complete;
+  private volatile long completeUntil;
+
+  // see UserRoleCache: a load is only stored if no change was applied while
+  // it was reading from the database.  Changes and stores are synchronized
+  // so that the check and the store cannot interleave with a change.
+  private final AtomicLong version = new AtomicLong();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong rebuilds = new AtomicLong();
+  private final AtomicLong lastRebuildMillis = new AtomicLong();
+
+  public Optional<Course> get(long id) {
+    Course cached = coursesById.get(id);
+    if (cached != null) {
+      hits.incrementAndGet();
+      return Optional.of(copy(cached));
+    }
+
+    misses.incrementAndGet();
+    long versionAtLoad = version.get();
+    Optional<Course> loaded = courseRepository.findById(id);
+    loaded.ifPresent(course -> store(List.of(course), versionAtLoad));
+    return loaded;
+  }
+
+  /**
+   * @return every course, sorted by id
+   */
+  public List<Course> all() {
+    if (isComplete()) {
+      hits.incrementAndGet();
+      return sorted(copies(coursesById.values()));
+    }
+    return rebuild();
+  }
+
+  /**
+   * @param ids sorted course ids, e.g. from StaffAuthorizationIndex
+   * @return those of the courses that exist, sorted by id
+   */
+  public List<Course> courses(long[] ids) {
+    List<Course> result = new ArrayList<>(ids.length);
+    List<Long> missing = new ArrayList<>();
+    for (long id : ids) {
+      Course cached = coursesById.get(id);
+      if (cached != null) {
+        result.add(copy(cached));
+      } else {
+        missing.add(id);
+      }
+    }
+    if (missing.isEmpty()) {
+      hits.incrementAndGet();
+      return result;
+    }
+
+    misses.incrementAndGet();
+    long versionAtLoad = version.get();
+    List<Course> loaded = new ArrayList<>();
+    courseRepository.findByIdIn(missing).forEach(loaded::add);
+    store(loaded, versionAtLoad);
+    result.addAll(loaded);
+    return sorted(result);
+  }
+
+  /**
+   * @return the courses githubId is on the staff of, sorted by id
+   */
+  public List<Course> staffedCourses(Integer githubId) {
+    return courses(staffAuthorizationIndex.courseIds(githubId));
+  }
+
+  private List<Course> rebuild() {
+    misses.incrementAndGet();
+    long versionAtLoad = version.get();
+    long start = System.nanoTime();
+    List<Course> loaded = new ArrayList<>();
+    courseRepository.findAll().forEach(loaded::add);
+
+    synchronized (this) {
+      if (version.get() == versionAtLoad && loaded.size() <= maxEntries) {
+        coursesById.clear();
+        loaded.forEach(course -> coursesById.put(course.getId(), copy(course)));
+        complete = true;
+        completeUntil = clock.millis() + ttlSeconds * 1000;
+      }
+    }
+    long millis = (System.nanoTime() - start) / 1_000_000;
+    rebuilds.incrementAndGet();
+    lastRebuildMillis.set(millis);
+    if (loaded.size() > maxEntries) {
+      log.warn("Not caching the catalog: {} courses is more than the {} the cache holds", loaded.size(),
+          maxEntries);
+    } else {
+      log.info("Loaded {} courses into the catalog cache in {} ms", loaded.size(), millis);
+    }
+    return sorted(loaded);
+  }
+
+  private synchronized void store(List<Course> courses, long versionAtLoad) {
+    if (version.get() == versionAtLoad) {
+      courses.forEach(this::put);
+    }
+  }
+
+  // callers hold the lock
+  private void put(Course course) {
+    if (coursesById.size() < maxEntries || coursesById.containsKey(course.getId())) {
+      coursesById.put(course.getId(), copy(course));
+    } else {
+      // no room, so the cached catalog is no longer the whole of it
+      complete = false;
+    }
+  }
+
+  private boolean isComplete() {
+    return complete && clock.millis() < completeUntil;
+  }
+
+  private static Course copy(Course course) {
+    return course.toBuilder().build();
+  }
+
+  private static List<Course> copies(Collection<Course> courses) {
+    List<Course> result = new ArrayList<>(courses.size());
+    courses.forEach(course -> result.add(copy(course)));
+    return result;
+  }
+
+  private static List<Course> sorted(List<Course> courses) {
+    courses.sort(BY_ID);
+    return courses;
+  }
+
+  // fallbackExecution: also apply changes made outside a transaction,
+  // e.g. by a plain repository save, straight away
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onCourseSaved(CourseSavedEvent event) {
+    version.incrementAndGet();
+    put(event.course());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onCourseDeleted(CourseDeletedEvent event) {
+    version.incrementAndGet();
+    coursesById.remove(event.courseId());
+  }
+
+  public synchronized void clear() {
+    version.incrementAndGet();
+    coursesById.clear();
+    complete = false;
+  }
+
+  public CourseCatalogStats getStats() {
+    long hitCount = hits.get();
+    long missCount = misses.get();
+    long lookups = hitCount + missCount;
+    return CourseCatalogStats.builder()
+        .size(coursesById.size())
+        .complete(isComplete())
+        .hits(hitCount)
+        .misses(missCount)
+        .hitRatio(lookups == 0 ? 0 : (double) hitCount / lookups)
+        .rebuilds(rebuilds.get())
+        .lastRebuildMillis(lastRebuildMillis.get())
+        .build();
+  }
+}
@@ -0,0 +1,64 @@
+package edu.ucsb.cs156.organic.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import edu.ucsb.cs156.organic.events.CourseDeletedEvent;
+import edu.ucsb.cs156.organic.models.CourseDeleteResult;
+import edu.ucsb.cs156.organic.repositories.CourseRepository;
+import edu.ucsb.cs156.organic.repositories.RosterUploadRepository;
+import edu.ucsb.cs156.organic.repositories.StaffRepository;
+import edu.ucsb.cs156.organic.repositories.StudentRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deletes a course together with its staff, students and roster upload.
+ *
+ * Each table is cleared with one DELETE ... WHERE course_id = ? statement
+ * (served by the indexes of the unique staff (course_id, github_id) and
+ * students (course_id, student_id) constraints), so the cost does not
+ * depend on loading the rows; the foreign keys from staff and students to
+ * courses make sure nothing is left behind.
+ */
+@Slf4j
+@Service
+public class CourseDeletionService {
+
+  @Autowired
+  private CourseRepository courseRepository;
+
+  @Autowired
+  private StaffRepository staffRepository;
+
+  @Autowired
+  private StudentRepository studentRepository;
+
+  @Autowired
+  private RosterUploadRepository rosterUploadRepository;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Transactional
+  public CourseDeleteResult deleteCourse(Course course) {
+    long start = System.nanoTime();
+    int staffDeleted = staffRepository.deleteAllOfCourse(course.getId());
+    int studentsDeleted = studentRepository.deleteAllOfCourse(course.getId());
+    rosterUploadRepository.deleteAllOfCourse(course.getId());
+    courseRepository.deleteCourseById(course.getId());
+    eventPublisher.publishEvent(new CourseDeletedEvent(course.getId()));
+    long deleteMillis = (System.nanoTime() - start) / 1_000_000;
+
+    log.info("Deleted course {} with {} staff and {} students in {} ms",
+        course.getId(), staffDeleted, studentsDeleted, deleteMillis);
+    return CourseDeleteResult.builder()
+        .course(course)
+        .staffDeleted(staffDeleted)
+        .studentsDeleted(studentsDeleted)
+        .deleteMillis(deleteMillis)
+        .build();
+  }
+}
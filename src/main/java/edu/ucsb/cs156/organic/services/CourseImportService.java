@@ -0,0 +1,214 @@
+package edu.ucsb.cs156.organic.services;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvException;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import edu.ucsb.cs156.organic.entities.Staff;
+import edu.ucsb.cs156.organic.events.CourseSavedEvent;
+import edu.ucsb.cs156.organic.events.StaffAddedEvent;
+import edu.ucsb.cs156.organic.models.CourseImportResult;
+import edu.ucsb.cs156.organic.models.CourseImportRow;
+import edu.ucsb.cs156.organic.models.CourseImportRowResult;
+import edu.ucsb.cs156.organic.repositories.CourseRepository;
+import edu.ucsb.cs156.organic.repositories.StaffRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Creates many courses at once, e.g. at the start of term.  Every valid row
+ * becomes a course with the importing user as staff; all of them are
+ * inserted in one transaction using JDBC batches, rather than two round
+ * trips per course as with POST /api/courses/post.  Invalid rows are
+ * reported and skipped.
+ */
+@Slf4j
+@Service
+public class CourseImportService {
+
+  public enum Status {
+    INSERTED, INVALID
+  }
+
+  static final List<String> CSV_COLUMNS = List.of("name", "school", "term", "startDate", "endDate", "githubOrg");
+
+  @Autowired
+  private CourseRepository courseRepository;
+
+  @Autowired
+  private StaffRepository staffRepository;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Value("${app.courseImport.maxRows:5000}")
+  private int maxRows;
+
+  /**
+   * Read courses from a CSV with a header row naming the columns
+   * name, school, term, startDate, endDate, githubOrg (in any order);
+   * dates are in iso format, e.g. 2023-10-01T00:00:00.  Lines are read one
+   * at a time, and reading stops with an IllegalArgumentException as soon
+   * as there are more than maxRows of them.  A line with a bad date becomes
+   * a row with a parseError, which importCourses reports as INVALID.
+   */
+  public List<CourseImportRow> parseCsv(Reader reader) throws IOException, CsvException {
+    try (CSVReader csvReader = new CSVReader(reader)) {
+      String[] header = csvReader.readNext();
+      if (header == null) {
+        return List.of();
+      }
+      Map<String, Integer> columns = new HashMap<>();
+      for (int i = 0; i < header.length; i++) {
+        columns.put(header[i].trim().toLowerCase(Locale.ROOT), i);
+      }
+      for (String column : CSV_COLUMNS) {
+        if (!columns.containsKey(column.toLowerCase(Locale.ROOT))) {
+          throw new IllegalArgumentException("CSV header is missing column %s".formatted(column));
+        }
+      }
+
+      List<CourseImportRow> rows = new ArrayList<>();
+      String[] fields;
+      while ((fields = csvReader.readNext()) != null) {
+        if (rows.size() == maxRows) {
+          throw tooManyRows();
+        }
+        List<String> problems = new ArrayList<>(2);
+        rows.add(CourseImportRow.builder()
+            .name(field(fields, columns, "name"))
+            .school(field(fields, columns, "school"))
+            .term(field(fields, columns, "term"))
+            .startDate(dateField(fields, columns, "startDate", problems))
+            .endDate(dateField(fields, columns, "endDate", problems))
+            .githubOrg(field(fields, columns, "githubOrg"))
+            .parseError(problems.isEmpty() ? null : String.join("; ", problems))
+            .build());
+      }
+      return rows;
+    }
+  }
+
+  private static String field(String[] fields, Map<String, Integer> columns, String column) {
+    int index = columns.get(column.toLowerCase(Locale.ROOT));
+    if (index >= fields.length || fields[index].isBlank()) {
+      return null;
+    }
+    return fields[index].trim();
+  }
+
+  private static LocalDateTime dateField(String[] fields, Map<String, Integer> columns, String column,
+      List<String> problems) {
+    String value = field(fields, columns, column);
+    if (value == null) {
+      return null;
+    }
+    try {
+      return LocalDateTime.parse(value);
+    } catch (DateTimeParseException e) {
+      problems.add("%s %s is not in iso format, e.g. 2023-10-01T00:00:00".formatted(column, value));
+      return null;
+    }
+  }
+
+  private IllegalArgumentException tooManyRows() {
+    return new IllegalArgumentException("at most %d courses can be imported at once".formatted(maxRows));
+  }
+
+  /**
+   * Insert a course, plus a staff row for creatorGithubId, for every valid
+   * row.
+   *
+   * @param rows            the courses to create
+   * @param creatorGithubId the user doing the import
+   * @return what happened to each row, in order
+   */
+  @Transactional
+  public CourseImportResult importCourses(List<CourseImportRow> rows, Integer creatorGithubId) {
+    if (rows.size() > maxRows) {
+      throw tooManyRows();
+    }
+
+    List<CourseImportRowResult> results = new ArrayList<>(rows.size());
+    List<Course> courses = new ArrayList<>();
+    for (int i = 0; i < rows.size(); i++) {
+      CourseImportRow row = rows.get(i);
+      String problem = validate(row);
+      CourseImportRowResult result = CourseImportRowResult.builder()
+          .row(i + 1)
+          .status(problem == null ? Status.INSERTED.name() : Status.INVALID.name())
+          .message(problem)
+          .build();
+      results.add(result);
+      if (problem == null) {
+        courses.add(Course.builder()
+            .name(row.getName())
+            .school(row.getSchool())
+            .term(row.getTerm())
+            .startDate(row.getStartDate())
+            .endDate(row.getEndDate())
+            .githubOrg(row.getGithubOrg())
+            .build());
+      }
+    }
+
+    long start = System.nanoTime();
+    courseRepository.insertAll(courses);
+    staffRepository.insertAll(courses.stream()
+        .map(course -> Staff.builder().courseId(course.getId()).githubId(creatorGithubId).build())
+        .toList());
+    long insertMillis = (System.nanoTime() - start) / 1_000_000;
+
+    int next = 0;
+    for (CourseImportRowResult result : results) {
+      if (result.getMessage() == null) {
+        Course course = courses.get(next++);
+        result.setCourseId(course.getId());
+        eventPublisher.publishEvent(new CourseSavedEvent(course));
+        eventPublisher.publishEvent(new StaffAddedEvent(creatorGithubId, course.getId()));
+      }
+    }
+    log.info("Imported {} of {} courses in {} ms", courses.size(), rows.size(), insertMillis);
+
+    return CourseImportResult.builder()
+        .inserted(courses.size())
+        .invalid(rows.size() - courses.size())
+        .insertMillis(insertMillis)
+        .results(results)
+        .build();
+  }
+
+  private static String validate(CourseImportRow row) {
+    if (row.getParseError() != null) {
+      return row.getParseError();
+    }
+    if (row.getName() == null || row.getName().isBlank()) {
+      return "name is required";
+    }
+    if (row.getSchool() == null || row.getSchool().isBlank()) {
+      return "school is required";
+    }
+    if (row.getTerm() == null || row.getTerm().isBlank()) {
+      return "term is required";
+    }
+    if (row.getStartDate() != null && row.getEndDate() != null && row.getEndDate().isBefore(row.getStartDate())) {
+      return "endDate is before startDate";
+    }
+    return null;
+  }
+}
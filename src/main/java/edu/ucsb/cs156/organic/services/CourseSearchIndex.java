@@ -0,0 +1,287 @@
+package edu.ucsb.cs156.organic.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import edu.ucsb.cs156.organic.events.CourseDeletedEvent;
+import edu.ucsb.cs156.organic.events.CourseSavedEvent;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Inverted index over the name, term, school and githubOrg of every course,
+ * for GET /api/courses/search.
+ *
+ * Every (lower cased) field contributes its trigrams, plus the first one
+ * and two characters of each of its words.  A search term of three or more
+ * characters matches courses with the term anywhere in a field: the posting
+ * lists of its trigrams are intersected, and for terms longer than three
+ * characters the candidates left are checked against the fields.  Shorter
+ * terms match the start of a word, so "cs" finds "CS 156" but not
+ * "CMPSC 156".  Terms separated by spaces must all match.
+ *
+ * Posting lists are sorted long[]s of course ids, replaced (never changed
+ * in place) when a course is saved or deleted, so searches need no locks.
+ * The index is built when the application starts and kept up to date by
+ * the same CourseSavedEvent and CourseDeletedEvent as CourseCatalogCache.
+ */
+@Slf4j
+@Service
+public class CourseSearchIndex {
+
+  // marks the one and two character word prefixes, so that they cannot be
+  // confused with trigrams
+  private static final char PREFIX_MARK = '\u0001';
+
+  private static final long[] NONE = new long[0];
+
+  @Autowired
+  private CourseCatalogCache courseCatalogCache;
+
+  private record Entry(Course course, List<String> fields) {
+  }
+
+  private volatile Map<Long, Entry> entries = new ConcurrentHashMap<>();
+  private volatile Map<String, long[]> postings = new ConcurrentHashMap<>();
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    rebuild();
+  }
+
+  /**
+   * Index every course again from scratch.  Changes published while this
+   * runs wait for it to finish.
+   */
+  public synchronized void rebuild() {
+    long start = System.nanoTime();
+    Map<Long, Entry> newEntries = new ConcurrentHashMap<>();
+    Map<String, List<Long>> lists = new HashMap<>();
+    // all() is sorted by id, so every list comes out sorted too
+    for (Course course : courseCatalogCache.all()) {
+      Entry entry = entry(course);
+      newEntries.put(course.getId(), entry);
+      for (String gram : grams(entry.fields())) {
+        lists.computeIfAbsent(gram, g -> new ArrayList<>()).add(course.getId());
+      }
+    }
+    Map<String, long[]> newPostings = new ConcurrentHashMap<>(lists.size() * 2);
+    lists.forEach((gram, ids) -> newPostings.put(gram, ids.stream().mapToLong(Long::longValue).toArray()));
+
+    entries = newEntries;
+    postings = newPostings;
+    log.info("Indexed {} courses ({} grams) for search in {} ms", newEntries.size(), newPostings.size(),
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  /**
+   * @param query      one or more terms separated by spaces
+   * @param visibleIds sorted ids of the courses the caller may see, or null
+   *                   for all of them
+   * @param limit      the most courses to return
+   * @return matching courses; those with a field starting with the first
+   *         term first, then by id
+   */
+  public List<Course> search(String query, long[] visibleIds, int limit) {
+    String[] terms = query.toLowerCase(Locale.ROOT).trim().split("\\s+");
+    if (terms.length == 0 || terms[0].isEmpty()) {
+      return List.of();
+    }
+
+    long[] candidates = null;
+    for (String term : terms) {
+      long[] ids = candidates(term);
+      candidates = candidates == null ? ids : intersect(candidates, ids);
+    }
+    if (visibleIds != null) {
+      candidates = intersect(candidates, visibleIds);
+    }
+
+    // candidates are in id order, so once there are limit courses
+    // starting with the first term none of the others can make the cut
+    List<Course> prefixMatches = new ArrayList<>();
+    List<Course> otherMatches = new ArrayList<>();
+    for (long id : candidates) {
+      Entry entry = entries.get(id);
+      if (entry == null || !Arrays.stream(terms).allMatch(term -> matches(entry, term))) {
+        continue;
+      }
+      if (startsWith(entry, terms[0])) {
+        prefixMatches.add(entry.course());
+        if (prefixMatches.size() == limit) {
+          break;
+        }
+      } else if (otherMatches.size() < limit) {
+        otherMatches.add(entry.course());
+      }
+    }
+    prefixMatches.addAll(otherMatches);
+    return prefixMatches.size() > limit ? prefixMatches.subList(0, limit) : prefixMatches;
+  }
+
+  private long[] candidates(String term) {
+    if (term.length() < 3) {
+      return postings.getOrDefault(PREFIX_MARK + term, NONE);
+    }
+    long[] result = null;
+    for (int i = 0; i + 3 <= term.length(); i++) {
+      long[] ids = postings.getOrDefault(term.substring(i, i + 3), NONE);
+      result = result == null ? ids : intersect(result, ids);
+      if (result.length == 0) {
+        break;
+      }
+    }
+    return result;
+  }
+
+  // the posting lists of terms of up to three characters are exact; only
+  // longer terms can have trigrams spread over several fields or places
+  private static boolean matches(Entry entry, String term) {
+    if (term.length() <= 3) {
+      return true;
+    }
+    for (String field : entry.fields()) {
+      if (field.contains(term)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean startsWith(Entry entry, String term) {
+    for (String field : entry.fields()) {
+      if (field.startsWith(term)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onCourseSaved(CourseSavedEvent event) {
+    Course course = event.course();
+    Entry entry = entry(course);
+    Entry previous = entries.put(course.getId(), entry);
+    Set<String> oldGrams = previous == null ? Set.of() : grams(previous.fields());
+    Set<String> newGrams = grams(entry.fields());
+    for (String gram : oldGrams) {
+      if (!newGrams.contains(gram)) {
+        postings.computeIfPresent(gram, (g, ids) -> without(ids, course.getId()));
+      }
+    }
+    for (String gram : newGrams) {
+      postings.merge(gram, new long[] { course.getId() }, (ids, one) -> with(ids, course.getId()));
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onCourseDeleted(CourseDeletedEvent event) {
+    Entry previous = entries.remove(event.courseId());
+    if (previous == null) {
+      return;
+    }
+    for (String gram : grams(previous.fields())) {
+      postings.computeIfPresent(gram, (g, ids) -> without(ids, event.courseId()));
+    }
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  private static Set<String> grams(List<String> fields) {
+    Set<String> grams = new HashSet<>();
+    for (String field : fields) {
+      for (int i = 0; i + 3 <= field.length(); i++) {
+        grams.add(field.substring(i, i + 3));
+      }
+      for (String word : words(field)) {
+        grams.add(PREFIX_MARK + word.substring(0, 1));
+        if (word.length() >= 2) {
+          grams.add(PREFIX_MARK + word.substring(0, 2));
+        }
+      }
+    }
+    return grams;
+  }
+
+  private static Entry entry(Course course) {
+    List<String> fields = new ArrayList<>(4);
+    for (String field : new String[] { course.getName(), course.getTerm(), course.getSchool(),
+        course.getGithubOrg() }) {
+      if (field != null && !field.isBlank()) {
+        fields.add(field.toLowerCase(Locale.ROOT));
+      }
+    }
+    return new Entry(course, fields);
+  }
+
+  private static List<String> words(String field) {
+    List<String> words = new ArrayList<>();
+    for (String word : field.split("[^\\p{L}\\p{N}]+")) {
+      if (!word.isEmpty()) {
+        words.add(word);
+      }
+    }
+    return words;
+  }
+
+  private static long[] intersect(long[] a, long[] b) {
+    long[] result = new long[Math.min(a.length, b.length)];
+    int n = 0;
+    for (int i = 0, j = 0; i < a.length && j < b.length;) {
+      if (a[i] < b[j]) {
+        i++;
+      } else if (a[i] > b[j]) {
+        j++;
+      } else {
+        result[n++] = a[i];
+        i++;
+        j++;
+      }
+    }
+    return n == result.length ? result : Arrays.copyOf(result, n);
+  }
+
+  private static long[] with(long[] ids, long id) {
+    int i = Arrays.binarySearch(ids, id);
+    if (i >= 0) {
+      return ids;
+    }
+    int insertAt = -i - 1;
+    long[] result = new long[ids.length + 1];
+    System.arraycopy(ids, 0, result, 0, insertAt);
+    result[insertAt] = id;
+    System.arraycopy(ids, insertAt, result, insertAt + 1, ids.length - insertAt);
+    return result;
+  }
+
+  // returns null rather than an empty array, so that computeIfPresent
+  // drops grams no course has any more
+  private static long[] without(long[] ids, long id) {
+    int i = Arrays.binarySearch(ids, id);
+    if (i < 0) {
+      return ids;
+    }
+    if (ids.length == 1) {
+      return null;
+    }
+    long[] result = new long[ids.length - 1];
+    System.arraycopy(ids, 0, result, 0, i);
+    System.arraycopy(ids, i + 1, result, i, ids.length - i - 1);
+    return result;
+  }
+}
@@ -0,0 +1,152 @@
+package edu.ucsb.cs156.organic.services;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.task.DelegatingSecurityContextAsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import edu.ucsb.cs156.organic.entities.User;
+import edu.ucsb.cs156.organic.models.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Caches the User resolved for each logged in session so that we do not
+ * have to go back to the database (and github) on every API request.
+ *
+ * Entries younger than refreshAfterSeconds are returned as is. Entries older
+ * than that (but younger than ttlSeconds) are still returned immediately, but
+ * a reload is started in the background so the next request sees fresh data.
+ * Entries older than ttlSeconds are reloaded synchronously.
+ */
+
+@Slf4j
+@Service
+public class CurrentUserCache {
+
+  @Value("${app.currentUserCache.ttlSeconds:300}")
+  private long ttlSeconds;
+
+  @Value("${app.currentUserCache.refreshAfterSeconds:60}")
+  private long refreshAfterSeconds;
+
+  @Value("${app.currentUserCache.maxEntries:10000}")
+  private int maxEntries;
+
+  // Propagates the security context of the request to the refresh thread
+  @Autowired
+  private DelegatingSecurityContextAsyncTaskExecutor taskExecutor;
+
+  // the system clock, unless there is a Clock bean (as there is in tests)
+  @Autowired(required = false)
+  private Clock clock = Clock.systemUTC();
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong refreshes = new AtomicLong();
+
+  private static class Entry {
+    final User user;
+    final long loadedAt;
+    final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+    Entry(User user, long loadedAt) {
+      this.user = user;
+      this.loadedAt = loadedAt;
+    }
+  }
+
+  public static String key(String sessionId, Integer githubId) {
+    return sessionId + ":" + githubId;
+  }
+
+  /**
+   * Get the user cached under key, calling loader if there is no usable entry.
+   *
+   * @param key    see {@link #key(String, Integer)}
+   * @param loader loads the user; may return null, in which case nothing is
+   *               cached
+   * @return the cached or freshly loaded user
+   */
+  public User get(String key, Supplier<User> loader) {
+    long now = clock.millis();
+    Entry entry = entries.get(key);
+
+    if (entry != null && now - entry.loadedAt < ttlSeconds * 1000) {
+      hits.incrementAndGet();
+      if (now - entry.loadedAt >= refreshAfterSeconds * 1000 && entry.refreshing.compareAndSet(false, true)) {
+        refreshes.incrementAndGet();
+        refreshInBackground(key, entry, loader);
+      }
+      return entry.user;
+    }
+
+    misses.incrementAndGet();
+    User user = loader.get();
+    put(key, user);
+    return user;
+  }
+
+  private void refreshInBackground(String key, Entry entry, Supplier<User> loader) {
+    taskExecutor.execute(() -> {
+      try {
+        User user = loader.get();
+        if (user != null) {
+          entries.replace(key, entry, new Entry(user, clock.millis()));
+        }
+      } catch (Exception e) {
+        log.error("Unable to refresh cached user {}: {}", key, e);
+      } finally {
+        entry.refreshing.set(false);
+      }
+    });
+  }
+
+  private void put(String key, User user) {
+    if (user == null) {
+      return;
+    }
+    if (entries.size() >= maxEntries) {
+      evictExpired();
+    }
+    if (entries.size() < maxEntries || entries.containsKey(key)) {
+      entries.put(key, new Entry(user, clock.millis()));
+    }
+  }
+
+  /**
+   * Drop every entry for a user, e.g. after an admin changes their roles.
+   */
+  public void invalidateUser(Integer githubId) {
+    String suffix = ":" + githubId;
+    entries.keySet().removeIf(k -> k.endsWith(suffix));
+  }
+
+  public void invalidateAll() {
+    entries.clear();
+  }
+
+  @Scheduled(fixedDelayString = "${app.currentUserCache.evictIntervalMs:60000}")
+  public void evictExpired() {
+    long cutoff = clock.millis() - ttlSeconds * 1000;
+    entries.values().removeIf(e -> e.loadedAt <= cutoff);
+  }
+
+  public CacheStats getStats() {
+    return CacheStats.builder()
+        .size(entries.size())
+        .hits(hits.get())
+        .misses(misses.get())
+        .refreshes(refreshes.get())
+        .build();
+  }
+}
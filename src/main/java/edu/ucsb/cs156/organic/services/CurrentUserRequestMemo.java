@@ -0,0 +1,66 @@
+package edu.ucsb.cs156.organic.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Remembers values derived from the logged in user (the CurrentUser, its
+ * roles) for the rest of the HTTP request, so that controllers, jobs and
+ * SpEL expressions that ask for them repeatedly only resolve them once.
+ *
+ * Values are stored as request attributes and tied to the Authentication
+ * they were computed for; if the Authentication is replaced during the
+ * request (as RoleUserInterceptor does when roles change) they are
+ * recomputed.  Outside of a request nothing is memoised.
+ */
+@Service
+public class CurrentUserRequestMemo {
+
+  private static final String ATTRIBUTE_PREFIX = CurrentUserRequestMemo.class.getName() + ".";
+
+  private record Memo(Authentication authentication, Object value) {
+  }
+
+  private final Map<String, AtomicLong> resolutions = new ConcurrentHashMap<>();
+
+  @SuppressWarnings("unchecked")
+  public <T> T get(String name, Supplier<T> supplier) {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes == null) {
+      return resolve(name, supplier);
+    }
+
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    String attributeName = ATTRIBUTE_PREFIX + name;
+    Object existing = attributes.getAttribute(attributeName, RequestAttributes.SCOPE_REQUEST);
+    if (existing instanceof Memo memo && memo.authentication() == authentication) {
+      return (T) memo.value();
+    }
+
+    T value = resolve(name, supplier);
+    attributes.setAttribute(attributeName, new Memo(authentication, value), RequestAttributes.SCOPE_REQUEST);
+    return value;
+  }
+
+  private <T> T resolve(String name, Supplier<T> supplier) {
+    resolutions.computeIfAbsent(name, k -> new AtomicLong()).incrementAndGet();
+    return supplier.get();
+  }
+
+  /**
+   * How many times the value called name has actually been computed (as
+   * opposed to served from the request), mainly for tests.
+   */
+  public long getResolutions(String name) {
+    AtomicLong count = resolutions.get(name);
+    return count == null ? 0 : count.get();
+  }
+}
@@ -12,4 +12,13 @@ public abstract class CurrentUserService {
   public abstract CurrentUser getCurrentUser() ;
   public abstract Collection<? extends GrantedAuthority> getRoles();
 
+  /**
+   * The githubId of the currently logged in user, or null if no user is
+   * logged in.  Subclasses may override this to avoid loading the User.
+   */
+  public Integer getGithubId() {
+    User user = getUser();
+    return user == null ? null : user.getGithubId();
+  }
+
 }
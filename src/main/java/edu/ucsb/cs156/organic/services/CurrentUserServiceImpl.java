@@ -2,16 +2,13 @@ package edu.ucsb.cs156.organic.services;
 
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-import org.kohsuke.github.GHEmail;
-import org.kohsuke.github.GHMyself;
-import org.kohsuke.github.GitHub;
-import org.kohsuke.github.GitHubBuilder;
+import jakarta.servlet.http.HttpSession;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
@@ -23,11 +20,11 @@ import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import edu.ucsb.cs156.organic.entities.User;
-import edu.ucsb.cs156.organic.entities.UserEmail;
 import edu.ucsb.cs156.organic.models.CurrentUser;
-import edu.ucsb.cs156.organic.repositories.UserEmailRepository;
 import edu.ucsb.cs156.organic.repositories.UserRepository;
 
 @Slf4j
@@ -40,27 +37,43 @@ public class CurrentUserServiceImpl extends CurrentUserService {
   GrantedAuthoritiesService grantedAuthoritiesService;
 
   @Autowired
-  private UserEmailRepository userEmailRepository;
+  OAuth2AuthorizedClientService clientService;
 
   @Autowired
-  OAuth2AuthorizedClientService clientService;
+  CurrentUserCache currentUserCache;
+
+  @Autowired
+  UserChangeTracker userChangeTracker;
+
+  @Autowired
+  CurrentUserRequestMemo currentUserRequestMemo;
 
   @Value("${app.admin.githubLogins}")
   final private List<String> adminGithubLogins = new ArrayList<String>();
 
   public CurrentUser getCurrentUser() {
+    return currentUserRequestMemo.get("currentUser", this::resolveCurrentUser);
+  }
+
+  private CurrentUser resolveCurrentUser() {
+    Collection<? extends GrantedAuthority> roles = this.getRoles();
+    User user = this.getUser();
+    boolean admin = false;
+    for (GrantedAuthority role : roles) {
+      log.debug("role={}", role);
+      admin |= role.getAuthority().equals("ROLE_ADMIN");
+    }
+    if (admin && user != null && !user.isAdmin()) {
+      // user may be the instance CurrentUserCache hands to other requests,
+      // so flag a copy rather than the cached user
+      user = user.toBuilder().admin(true).build();
+    }
     CurrentUser cu = CurrentUser.builder()
-        .user(this.getUser())
-        .roles(this.getRoles())
+        .user(user)
+        .roles(roles)
         .build();
-    this.getRoles().forEach( (role) -> {
-      log.info("role={}", role);
-      if (role.getAuthority().equals("ROLE_ADMIN")) {
-        cu.getUser().setAdmin(true);
-      }
-    });
 
-    log.info("getCurrentUser returns {}", cu);
+    log.debug("getCurrentUser returns {}", cu);
     return cu;
   }
 
@@ -68,20 +81,60 @@ public class CurrentUserServiceImpl extends CurrentUserService {
    * Get the currently logged in user, or null if no user is logged in.
    */
   public User getUser() {
+    return currentUserRequestMemo.get("user", this::resolveUser);
+  }
+
+  private User resolveUser() {
     SecurityContext securityContext = SecurityContextHolder.getContext();
     Authentication authentication = securityContext.getAuthentication();
 
     if (authentication instanceof OAuth2AuthenticationToken) {
-      try {
-        return getOAuth2AuthenticatedUser(securityContext, authentication);
-      } catch (Exception e) {
-        log.error("Exception thrown: {}", e);
-        return null;
+      String sessionId = currentSessionId();
+      if (sessionId == null) {
+        return loadOAuth2AuthenticatedUser(securityContext, authentication);
       }
+      Integer githubId = ((OAuth2AuthenticationToken) authentication).getPrincipal().getAttribute("id");
+      return currentUserCache.get(CurrentUserCache.key(sessionId, githubId),
+          () -> loadOAuth2AuthenticatedUser(securityContext, authentication));
     }
     return null;
   }
 
+  /**
+   * Read the githubId straight from the OAuth2 principal, without loading
+   * the User.
+   */
+  @Override
+  public Integer getGithubId() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication instanceof OAuth2AuthenticationToken) {
+      return ((OAuth2AuthenticationToken) authentication).getPrincipal().getAttribute("id");
+    }
+    return super.getGithubId();
+  }
+
+  private User loadOAuth2AuthenticatedUser(SecurityContext securityContext, Authentication authentication) {
+    try {
+      return getOAuth2AuthenticatedUser(securityContext, authentication);
+    } catch (Exception e) {
+      log.error("Exception thrown: {}", e);
+      return null;
+    }
+  }
+
+  /**
+   * The id of the http session of the current request, or null if the
+   * request has no session (we never create one just for the cache) or we
+   * are not handling a request (e.g. inside a background job).
+   */
+  private String currentSessionId() {
+    if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+      return null;
+    }
+    HttpSession session = attributes.getRequest().getSession(false);
+    return session == null ? null : session.getId();
+  }
+
   /**
    * Get the currently logged in user, or null if no user is logged in.
    * 
@@ -100,30 +153,33 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     String githubLogin = oAuthUser.getAttribute("login");
     Integer githubId = oAuthUser.getAttribute("id");
 
-    User u = null;
+    // Profile fields and emails are refreshed from github by
+    // GithubUserSyncService in the background; here we only record the
+    // latest token so that the sync job can use it.  Either way the user
+    // is written at most once, and not at all if the token is unchanged.
     Optional<User> ou = userRepository.findById(githubId);
     if (ou.isPresent()) {
-      u = ou.get();
-    } else {
-      u = User.builder()
-          .githubId(githubId)
-          .githubNodeId(oAuthUser.getAttribute("node_id"))
-          .githubLogin(githubLogin)
-          .pictureUrl(oAuthUser.getAttribute("avatar_url"))
-          .fullName(oAuthUser.getAttribute("name"))
-          .admin(adminGithubLogins.contains(githubLogin))
-          .build();
-      u = userRepository.save(u);
+      User u = ou.get();
+      UserChangeTracker.Snapshot before = userChangeTracker.snapshot(u);
+      updateToken(u);
+      return userChangeTracker.saveIfChanged(u, before);
     }
 
+    User u = User.builder()
+        .githubId(githubId)
+        .githubNodeId(oAuthUser.getAttribute("node_id"))
+        .githubLogin(githubLogin)
+        .email(oAuthUser.getAttribute("email"))
+        .pictureUrl(oAuthUser.getAttribute("avatar_url"))
+        .fullName(oAuthUser.getAttribute("name"))
+        .admin(adminGithubLogins.contains(githubLogin))
+        .build();
     updateToken(u);
-    updateUserFromGithubAPI(u);
-    u = userRepository.save(u);
-    return u;
+    return userRepository.save(u);
   }
 
   public Collection<? extends GrantedAuthority> getRoles() {
-    return grantedAuthoritiesService.getGrantedAuthorities();
+    return currentUserRequestMemo.get("roles", grantedAuthoritiesService::getGrantedAuthorities);
   }
 
   public void updateToken(User user) {
@@ -146,58 +202,4 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     }
   }
 
-  public void updateUserFromGithubAPI(User user) {
-
-    String token = user.getAccessToken();
-
-    if (token == null) {
-      log.error("Unable to authenticate to github because token is null");
-      return;
-    }
-
-    GitHub github = null;
-
-    try {
-      github = new GitHubBuilder().withOAuthToken(token).build();
-    } catch (Exception e) {
-      log.error("Unable to authenticate to github, Exception thrown: {}", e);
-      return;
-    }
-
-    GHMyself myself = null;
-    List<GHEmail> emails = null;
-    try {
-      myself = github.getMyself();
-      user.setEmail(myself.getEmail());
-      user.setPictureUrl(myself.getAvatarUrl());
-      user.setGithubLogin(myself.getLogin());
-    } catch (IOException e) {
-      log.error("Unable to getMyself from github, IOException thrown: {}", e);
-      return;
-    }
-
-    try {
-      emails = myself.getEmails2();
-    } catch (IOException e) {
-      log.error("Unable to getEmails2 from github, IOException thrown: {}", e);
-      return;
-    }
-
-    emails.forEach((email) -> {
-      log.trace("email={}", email);
-      if (email.isPrimary()) {
-        user.setEmail(email.getEmail());
-        if (email.isVerified()) {
-          user.setEmailVerified(true);
-        }
-        userRepository.save(user);
-      }
-      UserEmail userEmail = UserEmail.builder()
-          .user(user)
-          .email(email.getEmail())
-          .build();
-      userEmailRepository.save(userEmail);
-    });
-  }
-
 }
\ No newline at end of file
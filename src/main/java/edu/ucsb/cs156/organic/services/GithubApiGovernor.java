@@ -0,0 +1,215 @@
+package edu.ucsb.cs156.organic.services;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import edu.ucsb.cs156.organic.errors.GithubApiUnavailableException;
+import edu.ucsb.cs156.organic.models.GithubApiStats;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import okio.ByteString;
+
+/**
+ * Sits in front of every call we make to github (as an OkHttp
+ * interceptor, see GithubClientFactory).
+ *
+ * It remembers the X-RateLimit-Remaining / X-RateLimit-Reset headers of the
+ * last response for each token and refuses further calls with that token
+ * once only rateLimitReserve calls are left, until the limit resets.
+ *
+ * It also acts as a circuit breaker for github as a whole: after
+ * failureThreshold consecutive failures (I/O errors or 5xx responses) every
+ * call is refused for openSeconds, after which a single trial call is let
+ * through; if that succeeds the breaker closes again.
+ *
+ * Refused calls fail fast with GithubApiUnavailableException, so callers
+ * keep using the User data already in the database.
+ */
+@Slf4j
+@Service
+public class GithubApiGovernor {
+
+  public enum BreakerState {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  @Value("${app.github.rateLimitReserve:100}")
+  private int rateLimitReserve;
+
+  @Value("${app.github.breaker.failureThreshold:5}")
+  private int failureThreshold;
+
+  @Value("${app.github.breaker.openSeconds:60}")
+  private long openSeconds;
+
+  // a Clock bean, if there is one, decides when quotas reset and breakers close
+  @Autowired(required = false)
+  private Clock clock = Clock.systemUTC();
+
+  private record Quota(long remaining, long resetEpochSeconds) {
+  }
+
+  private final Map<String, Quota> quotas = new ConcurrentHashMap<>();
+
+  private BreakerState breakerState = BreakerState.CLOSED;
+  private long consecutiveFailures;
+  private long openedAt;
+  private boolean trialInFlight;
+
+  private final AtomicLong calls = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+  private final AtomicLong rejectedCalls = new AtomicLong();
+  private final AtomicLong breakerOpens = new AtomicLong();
+  private final AtomicLong totalLatencyMillis = new AtomicLong();
+  private final AtomicLong lastLatencyMillis = new AtomicLong();
+  private final AtomicLong maxLatencyMillis = new AtomicLong();
+
+  /**
+   * The key quotas are tracked under; a hash, so that tokens are not kept
+   * around any longer than necessary.
+   */
+  public static String tokenKey(String token) {
+    return ByteString.encodeUtf8(token).sha256().hex();
+  }
+
+  /**
+   * @param tokenKey see {@link #tokenKey(String)}
+   * @return an interceptor that governs the calls made with that token
+   */
+  public Interceptor interceptor(String tokenKey) {
+    return chain -> intercept(tokenKey, chain);
+  }
+
+  private Response intercept(String tokenKey, Interceptor.Chain chain) throws IOException {
+    checkQuota(tokenKey);
+    acquire();
+
+    calls.incrementAndGet();
+    long start = System.nanoTime();
+    Response response;
+    try {
+      response = chain.proceed(chain.request());
+    } catch (IOException e) {
+      recordLatency(start);
+      onFailure();
+      throw e;
+    }
+    recordLatency(start);
+    recordQuota(tokenKey, response);
+    if (response.code() >= 500) {
+      onFailure();
+    } else {
+      onSuccess();
+    }
+    return response;
+  }
+
+  private void checkQuota(String tokenKey) throws GithubApiUnavailableException {
+    Quota quota = quotas.get(tokenKey);
+    if (quota == null || quota.remaining() > rateLimitReserve) {
+      return;
+    }
+    if (clock.millis() >= quota.resetEpochSeconds() * 1000) {
+      quotas.remove(tokenKey, quota);
+      return;
+    }
+    rejectedCalls.incrementAndGet();
+    throw new GithubApiUnavailableException("github rate limit nearly used up (%d calls left); deferred until %s"
+        .formatted(quota.remaining(), Instant.ofEpochSecond(quota.resetEpochSeconds())));
+  }
+
+  private void recordQuota(String tokenKey, Response response) {
+    String remaining = response.header("X-RateLimit-Remaining");
+    String reset = response.header("X-RateLimit-Reset");
+    if (remaining == null || reset == null) {
+      return;
+    }
+    try {
+      quotas.put(tokenKey, new Quota(Long.parseLong(remaining), Long.parseLong(reset)));
+    } catch (NumberFormatException e) {
+      log.warn("Ignoring unparseable github rate limit headers {} / {}", remaining, reset);
+    }
+  }
+
+  private void recordLatency(long startNanos) {
+    long millis = (System.nanoTime() - startNanos) / 1_000_000;
+    totalLatencyMillis.addAndGet(millis);
+    lastLatencyMillis.set(millis);
+    maxLatencyMillis.accumulateAndGet(millis, Math::max);
+  }
+
+  private synchronized void acquire() throws GithubApiUnavailableException {
+    if (breakerState == BreakerState.OPEN && clock.millis() - openedAt >= openSeconds * 1000) {
+      breakerState = BreakerState.HALF_OPEN;
+      trialInFlight = false;
+    }
+    if (breakerState == BreakerState.CLOSED) {
+      return;
+    }
+    if (breakerState == BreakerState.HALF_OPEN && !trialInFlight) {
+      trialInFlight = true;
+      return;
+    }
+    rejectedCalls.incrementAndGet();
+    throw new GithubApiUnavailableException("github circuit breaker is %s".formatted(breakerState));
+  }
+
+  private synchronized void onSuccess() {
+    if (breakerState != BreakerState.CLOSED) {
+      log.info("github circuit breaker closed");
+    }
+    breakerState = BreakerState.CLOSED;
+    consecutiveFailures = 0;
+    trialInFlight = false;
+  }
+
+  private synchronized void onFailure() {
+    failures.incrementAndGet();
+    consecutiveFailures++;
+    trialInFlight = false;
+    if (breakerState == BreakerState.HALF_OPEN
+        || (breakerState == BreakerState.CLOSED && consecutiveFailures >= failureThreshold)) {
+      log.warn("github circuit breaker opened after {} consecutive failures", consecutiveFailures);
+      breakerState = BreakerState.OPEN;
+      openedAt = clock.millis();
+      breakerOpens.incrementAndGet();
+    }
+  }
+
+  /**
+   * Stop tracking a token, e.g. once GithubClientFactory has evicted it.
+   */
+  public void forget(String tokenKey) {
+    quotas.remove(tokenKey);
+  }
+
+  public synchronized BreakerState getBreakerState() {
+    return breakerState;
+  }
+
+  public synchronized GithubApiStats getStats() {
+    long callCount = calls.get();
+    return GithubApiStats.builder()
+        .breakerState(breakerState.name())
+        .consecutiveFailures(consecutiveFailures)
+        .breakerOpens(breakerOpens.get())
+        .calls(callCount)
+        .failures(failures.get())
+        .rejectedCalls(rejectedCalls.get())
+        .trackedTokens(quotas.size())
+        .lowestRemaining(quotas.values().stream().mapToLong(Quota::remaining).min().orElse(-1))
+        .lastLatencyMillis(lastLatencyMillis.get())
+        .maxLatencyMillis(maxLatencyMillis.get())
+        .averageLatencyMillis(callCount == 0 ? 0 : totalLatencyMillis.get() / callCount)
+        .build();
+  }
+}
@@ -0,0 +1,167 @@
+package edu.ucsb.cs156.organic.services;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.kohsuke.github.AbuseLimitHandler;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.GitHubBuilder;
+import org.kohsuke.github.RateLimitHandler;
+import org.kohsuke.github.extras.okhttp3.OkHttpGitHubConnector;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+
+/**
+ * Hands out GitHub clients, one per access token, that share a single
+ * OkHttp connection pool and keep an on-disk HTTP cache so that repeated
+ * requests for unchanged resources are sent with If-None-Match and come
+ * back as 304s (which do not count against the rate limit).
+ *
+ * github responses vary on Authorization, so each token gets its own
+ * connector with a small cache directory; at most maxClients tokens (and
+ * their caches) are kept, least recently used first out.  A new GitHub
+ * object is built on top of the connector for every call, because GitHub
+ * remembers the result of getMyself() for its whole lifetime.
+ *
+ * The caches only live as long as the factory: they are deleted when it is
+ * closed, and any left behind by a run that did not shut down cleanly are
+ * deleted when it starts.
+ *
+ * Every call goes through GithubApiGovernor, and calls time out rather than
+ * wait: when github is rate limiting or slow we would rather fail fast and
+ * keep the data we already have.
+ */
+@Slf4j
+@Service
+public class GithubClientFactory {
+
+  @Value("${app.github.apiUrl:https://api.github.com}")
+  private String apiUrl;
+
+  @Value("${app.github.cacheDir:${java.io.tmpdir}/organic-github-cache}")
+  private String cacheDir;
+
+  @Value("${app.github.cacheBytesPerToken:65536}")
+  private long cacheBytesPerToken;
+
+  @Value("${app.github.maxClients:2000}")
+  private int maxClients;
+
+  @Autowired
+  private GithubApiGovernor githubApiGovernor;
+
+  // cache directories are named after GithubApiGovernor.tokenKey; nothing
+  // else in cacheDir is ever deleted
+  private static final Pattern CACHE_DIRECTORY = Pattern.compile("[0-9a-f]{64}");
+
+  private final OkHttpClient sharedClient = new OkHttpClient.Builder()
+      .connectTimeout(Duration.ofSeconds(5))
+      .readTimeout(Duration.ofSeconds(10))
+      .build();
+
+  private record Client(String tokenKey, OkHttpGitHubConnector connector, Cache cache) {
+  }
+
+  private final Map<String, Client> clients = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Client> eldest) {
+      if (size() > maxClients) {
+        githubApiGovernor.forget(eldest.getValue().tokenKey());
+        deleteCache(eldest.getValue().cache());
+        return true;
+      }
+      return false;
+    }
+  };
+
+  @PostConstruct
+  public void deleteStaleCaches() {
+    File[] stale = new File(cacheDir).listFiles(
+        file -> file.isDirectory() && CACHE_DIRECTORY.matcher(file.getName()).matches());
+    if (stale == null || stale.length == 0) {
+      return;
+    }
+    log.info("Deleting {} github response caches left in {}", stale.length, cacheDir);
+    for (File directory : stale) {
+      deleteDirectory(directory.toPath());
+    }
+  }
+
+  /**
+   * @param token a github OAuth access token
+   * @return a client authenticated with token
+   */
+  public GitHub getClient(String token) throws IOException {
+    return new GitHubBuilder()
+        .withEndpoint(apiUrl)
+        .withOAuthToken(token)
+        .withConnector(connector(token))
+        .withRateLimitHandler(RateLimitHandler.FAIL)
+        .withAbuseLimitHandler(AbuseLimitHandler.FAIL)
+        .build();
+  }
+
+  private synchronized OkHttpGitHubConnector connector(String token) {
+    Client client = clients.get(token);
+    if (client == null) {
+      // name the directory after a hash so the token never ends up on disk
+      String tokenKey = GithubApiGovernor.tokenKey(token);
+      Cache cache = new Cache(new File(cacheDir, tokenKey), cacheBytesPerToken);
+      OkHttpClient okHttpClient = sharedClient.newBuilder()
+          .cache(cache)
+          .addInterceptor(githubApiGovernor.interceptor(tokenKey))
+          .build();
+      client = new Client(tokenKey, new OkHttpGitHubConnector(okHttpClient), cache);
+      clients.put(token, client);
+    }
+    return client.connector();
+  }
+
+  private static void deleteCache(Cache cache) {
+    try {
+      // closes the cache and empties its directory, but leaves the directory
+      cache.delete();
+      Files.deleteIfExists(cache.directory().toPath());
+    } catch (IOException e) {
+      log.warn("Unable to delete github response cache {}: {}", cache.directory(), e);
+    }
+  }
+
+  private static void deleteDirectory(Path directory) {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(path);
+      }
+    } catch (IOException e) {
+      log.warn("Unable to delete github response cache {}: {}", directory, e);
+    }
+  }
+
+  public synchronized int size() {
+    return clients.size();
+  }
+
+  @PreDestroy
+  public synchronized void close() {
+    clients.values().forEach(client -> deleteCache(client.cache()));
+    clients.clear();
+    sharedClient.dispatcher().executorService().shutdown();
+    sharedClient.connectionPool().evictAll();
+  }
+}
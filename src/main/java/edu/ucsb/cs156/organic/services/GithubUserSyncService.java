@@ -0,0 +1,244 @@
+package edu.ucsb.cs156.organic.services;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.kohsuke.github.GHEmail;
+import org.kohsuke.github.GHMyself;
+import org.kohsuke.github.GitHub;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import edu.ucsb.cs156.organic.entities.User;
+import edu.ucsb.cs156.organic.entities.UserEmail;
+import edu.ucsb.cs156.organic.entities.jobs.Job;
+import edu.ucsb.cs156.organic.errors.GithubApiUnavailableException;
+import edu.ucsb.cs156.organic.errors.JobAlreadyRunningException;
+import edu.ucsb.cs156.organic.jobs.GithubUserSyncJob;
+import edu.ucsb.cs156.organic.models.UserSyncResult;
+import edu.ucsb.cs156.organic.repositories.UserEmailRepository;
+import edu.ucsb.cs156.organic.repositories.UserRepository;
+import edu.ucsb.cs156.organic.services.jobs.JobService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the profile fields and emails we store for each user in sync with
+ * github.  This runs as a scheduled background job so that requests only
+ * ever read user data from the database.
+ */
+@Slf4j
+@Service
+public class GithubUserSyncService {
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private UserEmailRepository userEmailRepository;
+
+  @Autowired
+  private JobService jobService;
+
+  @Autowired
+  private UserChangeTracker userChangeTracker;
+
+  @Autowired
+  private GithubClientFactory githubClientFactory;
+
+  @Value("${app.githubSync.activeWithinHours:24}")
+  private long activeWithinHours;
+
+  @Value("${app.githubSync.batchSize:50}")
+  private int batchSize;
+
+  @Value("${app.githubSync.delayMs:1000}")
+  private long delayMs;
+
+  // set while a sync job is running, so that runs never overlap
+  private final AtomicBoolean syncRunning = new AtomicBoolean();
+
+  /**
+   * Launch a sync job, unless the last one is still running or nobody has
+   * been online recently (so that idle periods do not leave a trail of
+   * empty jobs).
+   */
+  @Scheduled(cron = "${app.githubSync.cron:0 */15 * * * *}")
+  public void scheduledSync() {
+    if (syncRunning.get()) {
+      log.info("Skipping scheduled github user sync: the previous one is still running");
+      return;
+    }
+    if (!userRepository.existsByLastOnlineAfter(activeSince())) {
+      log.debug("Skipping scheduled github user sync: no recently active users");
+      return;
+    }
+    try {
+      launchSyncJob();
+    } catch (JobAlreadyRunningException e) {
+      log.info("Skipping scheduled github user sync: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * @throws JobAlreadyRunningException if a sync job is still running
+   */
+  public Job launchSyncJob() {
+    if (!syncRunning.compareAndSet(false, true)) {
+      throw new JobAlreadyRunningException("a github user sync job is already running");
+    }
+    GithubUserSyncJob job = GithubUserSyncJob.builder()
+        .userRepository(userRepository)
+        .githubUserSyncService(this)
+        .activeSince(activeSince())
+        .batchSize(batchSize)
+        .delayMs(delayMs)
+        .build();
+    try {
+      return jobService.runAsJob(ctx -> {
+        try {
+          job.accept(ctx);
+        } finally {
+          syncRunning.set(false);
+        }
+      }, 0);
+    } catch (RuntimeException e) {
+      syncRunning.set(false);
+      throw e;
+    }
+  }
+
+  public boolean isSyncRunning() {
+    return syncRunning.get();
+  }
+
+  private Timestamp activeSince() {
+    return new Timestamp(System.currentTimeMillis() - activeWithinHours * 60 * 60 * 1000);
+  }
+
+  /**
+   * Refresh a single user from github using their stored access token.
+   *
+   * @param user the user to refresh
+   * @return whether the user was refreshed (false if github could not be
+   *         reached with the user's token) and how many rows were written
+   */
+  public UserSyncResult syncUser(User user) {
+
+    String token = user.getAccessToken();
+
+    if (token == null) {
+      log.error("Unable to authenticate to github because token is null");
+      return UserSyncResult.failed();
+    }
+
+    GitHub github = null;
+
+    try {
+      github = githubClientFactory.getClient(token);
+    } catch (Exception e) {
+      log.error("Unable to authenticate to github, Exception thrown: {}", e);
+      return UserSyncResult.failed();
+    }
+
+    UserChangeTracker.Snapshot before = userChangeTracker.snapshot(user);
+    GHMyself myself = null;
+    List<GHEmail> emails = null;
+    try {
+      myself = github.getMyself();
+      user.setEmail(myself.getEmail());
+      user.setPictureUrl(myself.getAvatarUrl());
+      user.setGithubLogin(myself.getLogin());
+    } catch (IOException e) {
+      if (isGovernorRejection(e)) {
+        log.info("Deferring github sync of user {}: {}", user.getGithubId(), e.getMessage());
+        return UserSyncResult.deferred();
+      }
+      log.error("Unable to getMyself from github, IOException thrown: {}", e);
+      return UserSyncResult.failed();
+    }
+
+    try {
+      emails = myself.getEmails2();
+    } catch (IOException e) {
+      if (isGovernorRejection(e)) {
+        log.info("Deferring github sync of user {}: {}", user.getGithubId(), e.getMessage());
+        return UserSyncResult.deferred();
+      }
+      log.error("Unable to getEmails2 from github, IOException thrown: {}", e);
+      return UserSyncResult.failed();
+    }
+
+    emails.stream().filter(GHEmail::isPrimary).findFirst().ifPresent(primary -> {
+      user.setEmail(primary.getEmail());
+      if (primary.isVerified()) {
+        user.setEmailVerified(true);
+      }
+    });
+    int userRowsWritten = userChangeTracker.hasChanged(user, before) ? 1 : 0;
+    userChangeTracker.saveIfChanged(user, before);
+
+    int emailRowsWritten = syncEmails(user, emails.stream().map(GHEmail::getEmail).toList());
+    log.debug("Synced user {}: {} useremails rows written", user.getGithubId(), emailRowsWritten);
+
+    return UserSyncResult.builder()
+        .synced(true)
+        .rowsWritten(userRowsWritten + emailRowsWritten)
+        .build();
+  }
+
+  /**
+   * github-api may wrap the exception thrown by GithubApiGovernor, so look
+   * for it anywhere in the cause chain.
+   */
+  private static boolean isGovernorRejection(Throwable e) {
+    for (Throwable t = e; t != null; t = t.getCause()) {
+      if (t instanceof GithubApiUnavailableException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Make the stored emails for user match githubEmails.  The existing rows
+   * are read once; only the difference is written, and nothing at all is
+   * written when the two sets already match.
+   *
+   * @param user         the user whose emails are being synced
+   * @param githubEmails the emails github reports for the user
+   * @return the number of useremails rows inserted or deleted
+   */
+  public int syncEmails(User user, Collection<String> githubEmails) {
+    Map<String, UserEmail> existing = new HashMap<>();
+    userEmailRepository.findByUserGithubId(user.getGithubId())
+        .forEach(userEmail -> existing.put(userEmail.getEmail(), userEmail));
+
+    Set<String> wanted = new HashSet<>(githubEmails);
+
+    List<UserEmail> inserts = wanted.stream()
+        .filter(email -> !existing.containsKey(email))
+        .map(email -> UserEmail.builder().user(user).email(email).build())
+        .toList();
+
+    List<UserEmail> deletes = existing.values().stream()
+        .filter(userEmail -> !wanted.contains(userEmail.getEmail()))
+        .toList();
+
+    if (!deletes.isEmpty()) {
+      userEmailRepository.deleteAll(deletes);
+    }
+    if (!inserts.isEmpty()) {
+      userEmailRepository.saveAll(inserts);
+    }
+    return inserts.size() + deletes.size();
+  }
+}
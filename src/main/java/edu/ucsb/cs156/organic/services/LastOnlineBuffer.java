@@ -0,0 +1,99 @@
+package edu.ucsb.cs156.organic.services;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import edu.ucsb.cs156.organic.models.BufferStats;
+import edu.ucsb.cs156.organic.repositories.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind buffer for last online heartbeats.  Every open browser tab
+ * posts a heartbeat; we only keep the latest timestamp per user in memory
+ * and write all of them to the database in one batch on a schedule, and
+ * once more when the application shuts down.
+ */
+@Slf4j
+@Service
+public class LastOnlineBuffer {
+
+  @Autowired
+  private UserRepository userRepository;
+
+  private final Map<Integer, Timestamp> pending = new ConcurrentHashMap<>();
+
+  private final AtomicLong recorded = new AtomicLong();
+  private final AtomicLong flushes = new AtomicLong();
+  private final AtomicLong rowsFlushed = new AtomicLong();
+  private final AtomicLong failedFlushes = new AtomicLong();
+  private final AtomicLong lastFlushMillis = new AtomicLong();
+  private final AtomicLong maxFlushMillis = new AtomicLong();
+
+  public void record(Integer githubId, Timestamp lastOnline) {
+    recorded.incrementAndGet();
+    pending.merge(githubId, lastOnline, LastOnlineBuffer::later);
+  }
+
+  private static Timestamp later(Timestamp a, Timestamp b) {
+    return a.after(b) ? a : b;
+  }
+
+  @Scheduled(fixedDelayString = "${app.lastOnline.flushIntervalMs:30000}")
+  public synchronized void flush() {
+    if (pending.isEmpty()) {
+      return;
+    }
+
+    // remove() entry by entry so that a heartbeat arriving mid-flush is
+    // kept for the next flush rather than lost
+    Map<Integer, Timestamp> batch = new HashMap<>();
+    for (Integer githubId : pending.keySet()) {
+      Timestamp lastOnline = pending.remove(githubId);
+      if (lastOnline != null) {
+        batch.put(githubId, lastOnline);
+      }
+    }
+
+    long start = System.nanoTime();
+    try {
+      int rows = userRepository.updateLastOnline(batch);
+      rowsFlushed.addAndGet(rows);
+      flushes.incrementAndGet();
+    } catch (Exception e) {
+      log.error("Unable to flush {} last online timestamps, will retry: {}", batch.size(), e);
+      failedFlushes.incrementAndGet();
+      batch.forEach((githubId, lastOnline) -> pending.merge(githubId, lastOnline, LastOnlineBuffer::later));
+    } finally {
+      long millis = (System.nanoTime() - start) / 1_000_000;
+      lastFlushMillis.set(millis);
+      maxFlushMillis.accumulateAndGet(millis, Math::max);
+    }
+  }
+
+  @PreDestroy
+  public void flushOnShutdown() {
+    log.info("Flushing {} last online timestamps before shutdown", pending.size());
+    flush();
+  }
+
+  public BufferStats getStats() {
+    return BufferStats.builder()
+        .size(pending.size())
+        .recorded(recorded.get())
+        .flushes(flushes.get())
+        .rowsFlushed(rowsFlushed.get())
+        .failedFlushes(failedFlushes.get())
+        .lastFlushMillis(lastFlushMillis.get())
+        .maxFlushMillis(maxFlushMillis.get())
+        .build();
+  }
+}
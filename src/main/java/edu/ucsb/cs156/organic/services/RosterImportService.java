@@ -0,0 +1,363 @@
+package edu.ucsb.cs156.organic.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import edu.ucsb.cs156.organic.entities.RosterUpload;
+import edu.ucsb.cs156.organic.entities.Student;
+import edu.ucsb.cs156.organic.entities.jobs.Job;
+import edu.ucsb.cs156.organic.jobs.RosterImportJob;
+import edu.ucsb.cs156.organic.models.RosterImportResult;
+import edu.ucsb.cs156.organic.models.RosterStudent;
+import edu.ucsb.cs156.organic.repositories.RosterUploadRepository;
+import edu.ucsb.cs156.organic.repositories.StudentRepository;
+import edu.ucsb.cs156.organic.services.jobs.JobService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Adds the students in a UCSB egrades roster to a course, updating the
+ * ones already in it (matched by perm number).
+ *
+ * The roster is read one line at a time and handled chunkSize students at
+ * a time: only the current chunk of rows is held, never the whole file.
+ *
+ * The students already in the course are loaded once, up front, and each
+ * row is classified against them as an insert, an update or unchanged.
+ * The perm numbers of the students the import inserts are kept as well
+ * (the perm numbers only, so this grows with the upload by about 100
+ * bytes a student), so that a student listed again in a later chunk is
+ * not inserted twice.  Only such repeats, which egrades rosters should not
+ * have, are ever looked up again.  Each chunk's new and changed students
+ * are then written with one batch of upserts (see
+ * StudentRepositoryCustom.upsertAll); unchanged students are not written
+ * at all.
+ *
+ * Large rosters can also be imported as a background job (see
+ * launchImportJob), which reports its progress in the job log.
+ *
+ * Uploads are identified by their SHA-256, and the last one imported into
+ * each course is recorded (see RosterUpload): uploading that same file
+ * again returns the recorded result without reading the roster at all.
+ * Any other file, however similar, is imported as usual, which writes
+ * only the students that differ from what is already in the course.
+ */
+@Slf4j
+@Service
+public class RosterImportService {
+
+  public enum Status {
+    INSERTED, UPDATED, UNCHANGED
+  }
+
+  @Autowired
+  private StudentRepository studentRepository;
+
+  @Autowired
+  private RosterUploadRepository rosterUploadRepository;
+
+  @Autowired
+  private JobService jobService;
+
+  @Value("${app.rosterImport.chunkSize:500}")
+  private int chunkSize;
+
+  @Value("${app.rosterImport.progressEveryRows:10000}")
+  private int progressEveryRows;
+
+  /**
+   * @param course the course the students are enrolled in
+   * @param reader an egrades CSV: two header lines, then one student per
+   *               line; closed when done
+   */
+  public RosterImportResult importEgrades(Course course, Reader reader) throws IOException, CsvValidationException {
+    return importEgrades(course, reader, progress -> {
+    });
+  }
+
+  /**
+   * @param progress called after each chunk is written, with the counts so
+   *                 far
+   */
+  public RosterImportResult importEgrades(Course course, Reader reader, Consumer<RosterImportResult> progress)
+      throws IOException, CsvValidationException {
+    long start = System.nanoTime();
+    int[] counts = new int[Status.values().length];
+    int chunks = 0;
+
+    Map<String, RosterStudent> roster = new HashMap<>();
+    for (RosterStudent student : studentRepository.findRosterByCourseId(course.getId())) {
+      roster.putIfAbsent(student.getStudentId(), student);
+    }
+    Set<String> inserted = new HashSet<>();
+
+    List<Student> chunk = new ArrayList<>(chunkSize);
+    try (CSVReader csvReader = new CSVReader(reader)) {
+      csvReader.skip(2);
+      String[] row;
+      while ((row = csvReader.readNext()) != null) {
+        if (row.length == 1 && row[0].isBlank()) {
+          continue;
+        }
+        Student student = fromEgradesCSVRow(row);
+        student.setCourseId(course.getId());
+        chunk.add(student);
+        if (chunk.size() == chunkSize) {
+          upsertChunk(course, chunk, roster, inserted, counts);
+          chunks++;
+          chunk.clear();
+          progress.accept(result(counts, chunks, start));
+        }
+      }
+    }
+    if (!chunk.isEmpty()) {
+      upsertChunk(course, chunk, roster, inserted, counts);
+      chunks++;
+      progress.accept(result(counts, chunks, start));
+    }
+
+    RosterImportResult result = result(counts, chunks, start);
+    log.info("Imported {} new, {} changed and {} unchanged students into course {} in {} chunks, {} ms",
+        result.getInserted(), result.getUpdated(), result.getUnchanged(), course.getId(), chunks,
+        result.getImportMillis());
+    return result;
+  }
+
+  /**
+   * Import an uploaded egrades roster in this request, unless it is the
+   * file last imported into the course.
+   *
+   * The upload is read twice: once to hash it, then (unless that hash is
+   * the course's last upload) to import it.  Hashing while importing, as
+   * launchImportJob hashes while it copies, would read it once, but would
+   * only tell whether the file had been imported before after importing it
+   * again, which is what the hash is there to avoid.  Neither read holds
+   * more than a buffer or a chunk of the file.
+   *
+   * @param upload e.g. the MultipartFile; opened once for each read
+   */
+  public RosterImportResult importUpload(Course course, String filename, InputStreamSource upload)
+      throws IOException, CsvValidationException {
+    String sha256;
+    try (InputStream in = upload.getInputStream()) {
+      sha256 = sha256(in);
+    }
+    return importUpload(course, filename, sha256,
+        new InputStreamReader(upload.getInputStream(), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @param sha256 see {@link #sha256(InputStream)}
+   */
+  public RosterImportResult importUpload(Course course, String filename, String sha256, Reader reader)
+      throws IOException, CsvValidationException {
+    return importUpload(course, filename, sha256, reader, progress -> {
+    });
+  }
+
+  /**
+   * Import an egrades roster, unless it is the file last imported into the
+   * course, and record it as the course's last upload.
+   *
+   * @param sha256 see {@link #sha256(InputStream)}
+   * @param reader the roster; closed when done, whether or not it is read
+   */
+  public RosterImportResult importUpload(Course course, String filename, String sha256, Reader reader,
+      Consumer<RosterImportResult> progress) throws IOException, CsvValidationException {
+    Optional<RosterUpload> previous = rosterUploadRepository.findByCourseId(course.getId());
+    if (previous.isPresent() && sha256.equals(previous.get().getSha256())) {
+      reader.close();
+      RosterUpload upload = previous.get();
+      log.info("Roster {} for course {} is the one imported at {}; not importing it again", filename,
+          course.getId(), upload.getUploadedAt());
+      return RosterImportResult.builder()
+          .inserted(upload.getInserted())
+          .updated(upload.getUpdated())
+          .unchanged(upload.getUnchanged())
+          .alreadyImported(true)
+          .build();
+    }
+
+    RosterImportResult result = importEgrades(course, reader, progress);
+
+    // an upsert, since another upload to the course may have been recorded
+    // since we looked
+    rosterUploadRepository.upsert(RosterUpload.builder()
+        .courseId(course.getId())
+        .sha256(sha256)
+        .filename(filename)
+        .inserted(result.getInserted())
+        .updated(result.getUpdated())
+        .unchanged(result.getUnchanged())
+        .uploadedAt(new Timestamp(System.currentTimeMillis()))
+        .build());
+    return result;
+  }
+
+  /**
+   * @return the SHA-256 of everything left in the stream, in hex; read a
+   *         buffer at a time, so the file is never held in memory
+   */
+  public static String sha256(InputStream in) throws IOException {
+    DigestInputStream digestStream = new DigestInputStream(in, sha256Digest());
+    digestStream.transferTo(OutputStream.nullOutputStream());
+    return HexFormat.of().formatHex(digestStream.getMessageDigest().digest());
+  }
+
+  private static MessageDigest sha256Digest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Import an egrades roster in the background.  The upload is copied to a
+   * temporary file first, since the request (and whatever holds its body)
+   * is gone by the time the job runs; the job deletes the file when done,
+   * or this does if the job cannot be started.
+   *
+   * @param filename the name of the upload, for the job log
+   * @param in       the egrades CSV; read fully before this returns
+   * @return the job, already running
+   */
+  public Job launchImportJob(Course course, String filename, InputStream in) throws IOException {
+    Path upload = Files.createTempFile("egrades-", ".csv");
+    // hashed while it is copied, rather than read a second time
+    DigestInputStream digestStream = new DigestInputStream(in, sha256Digest());
+    try {
+      Files.copy(digestStream, upload, StandardCopyOption.REPLACE_EXISTING);
+      RosterImportJob job = RosterImportJob.builder()
+          .rosterImportService(this)
+          .course(course)
+          .filename(filename)
+          .sha256(HexFormat.of().formatHex(digestStream.getMessageDigest().digest()))
+          .upload(upload)
+          .progressEveryRows(progressEveryRows)
+          .build();
+      return jobService.runAsJob(job, 0);
+    } catch (IOException | RuntimeException e) {
+      // the job never started, so it will not delete the file either
+      Files.deleteIfExists(upload);
+      throw e;
+    }
+  }
+
+  private static RosterImportResult result(int[] counts, int chunks, long startNanos) {
+    return RosterImportResult.builder()
+        .inserted(counts[Status.INSERTED.ordinal()])
+        .updated(counts[Status.UPDATED.ordinal()])
+        .unchanged(counts[Status.UNCHANGED.ordinal()])
+        .chunks(chunks)
+        .importMillis((System.nanoTime() - startNanos) / 1_000_000)
+        .build();
+  }
+
+  public static Student fromEgradesCSVRow(String[] row) {
+    return Student.builder()
+        .fname(row[5])
+        .lname(row[4])
+        .studentId(row[1])
+        .email(row[10])
+        .build();
+  }
+
+  /**
+   * @param roster   the students in the course before the import
+   * @param inserted the perm numbers inserted by earlier chunks; added to
+   * @param counts   students so far, by Status
+   */
+  private void upsertChunk(Course course, List<Student> chunk, Map<String, RosterStudent> roster,
+      Set<String> inserted, int[] counts) {
+    // only the perm numbers of students inserted by earlier chunks are
+    // kept, so the names and emails of any listed again are looked up, in
+    // one query for the whole chunk
+    Map<String, RosterStudent> insertedEarlier = new HashMap<>();
+    Set<String> repeated = new HashSet<>();
+    for (Student student : chunk) {
+      if (inserted.contains(student.getStudentId())) {
+        repeated.add(student.getStudentId());
+      }
+    }
+    if (!repeated.isEmpty()) {
+      for (RosterStudent student : studentRepository.findRosterByCourseIdAndStudentIdIn(course.getId(), repeated)) {
+        insertedEarlier.putIfAbsent(student.getStudentId(), student);
+      }
+    }
+
+    // new and changed students, by perm number
+    Map<String, Student> writes = new LinkedHashMap<>();
+    for (Student student : chunk) {
+      String studentId = student.getStudentId();
+      Status status;
+      Student pending = writes.get(studentId);
+      RosterStudent current = roster.containsKey(studentId) ? roster.get(studentId) : insertedEarlier.get(studentId);
+      if (pending != null) {
+        // listed twice in this chunk: the last line wins
+        status = sameNameAndEmail(pending, student) ? Status.UNCHANGED : Status.UPDATED;
+        copyNameAndEmail(student, pending);
+      } else if (current == null) {
+        status = Status.INSERTED;
+        writes.put(studentId, student);
+        inserted.add(studentId);
+      } else if (Objects.equals(current.getFname(), student.getFname())
+          && Objects.equals(current.getLname(), student.getLname())
+          && Objects.equals(current.getEmail(), student.getEmail())) {
+        status = Status.UNCHANGED;
+      } else {
+        status = Status.UPDATED;
+        current.setFname(student.getFname());
+        current.setLname(student.getLname());
+        current.setEmail(student.getEmail());
+        writes.put(studentId, student);
+      }
+      counts[status.ordinal()]++;
+    }
+
+    studentRepository.upsertAll(new ArrayList<>(writes.values()));
+  }
+
+  private static boolean sameNameAndEmail(Student a, Student b) {
+    return Objects.equals(a.getFname(), b.getFname())
+        && Objects.equals(a.getLname(), b.getLname())
+        && Objects.equals(a.getEmail(), b.getEmail());
+  }
+
+  private static void copyNameAndEmail(Student from, Student to) {
+    to.setFname(from.getFname());
+    to.setLname(from.getLname());
+    to.setEmail(from.getEmail());
+  }
+}
@@ -0,0 +1,116 @@
+package edu.ucsb.cs156.organic.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import edu.ucsb.cs156.organic.entities.Staff;
+import edu.ucsb.cs156.organic.events.StaffAddedEvent;
+import edu.ucsb.cs156.organic.models.GithubLogin;
+import edu.ucsb.cs156.organic.models.StaffBatchLoginResult;
+import edu.ucsb.cs156.organic.models.StaffBatchResult;
+import edu.ucsb.cs156.organic.repositories.StaffRepository;
+import edu.ucsb.cs156.organic.repositories.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Adds many staff members to a course at once, e.g. a whole TA team.  The
+ * users are looked up in one query, the ones already on the staff in
+ * another, and the rest are inserted using JDBC batches, rather than three
+ * round trips per login as with POST /api/courses/addStaff.
+ */
+@Slf4j
+@Service
+public class StaffAssignmentService {
+
+  public enum Status {
+    ADDED, ALREADY_STAFF, NOT_FOUND
+  }
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private StaffRepository staffRepository;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Value("${app.staffBatch.maxLogins:500}")
+  private int maxLogins;
+
+  /**
+   * @param course       the course to add staff to
+   * @param githubLogins logins of users who have logged in at least once;
+   *                     a login given twice is only added once
+   * @return what happened to each distinct login, in order
+   */
+  @Transactional
+  public StaffBatchResult addStaff(Course course, List<String> githubLogins) {
+    if (githubLogins.size() > maxLogins) {
+      throw new IllegalArgumentException("at most %d staff can be added at once".formatted(maxLogins));
+    }
+
+    Set<String> logins = new LinkedHashSet<>();
+    for (String githubLogin : githubLogins) {
+      if (githubLogin != null && !githubLogin.isBlank()) {
+        logins.add(githubLogin.trim());
+      }
+    }
+    if (logins.isEmpty()) {
+      throw new IllegalArgumentException("no github logins given");
+    }
+
+    Map<String, Integer> githubIds = new HashMap<>();
+    for (GithubLogin user : userRepository.findGithubLoginsByGithubLoginIn(logins)) {
+      githubIds.put(user.getGithubLogin(), user.getGithubId());
+    }
+    Set<Integer> existing = githubIds.isEmpty() ? Set.of()
+        : new HashSet<>(staffRepository.findGithubIdsByCourseIdAndGithubIdIn(course.getId(), githubIds.values()));
+
+    List<StaffBatchLoginResult> results = new ArrayList<>(logins.size());
+    List<Staff> staff = new ArrayList<>();
+    for (String login : logins) {
+      Integer githubId = githubIds.get(login);
+      Status status;
+      if (githubId == null) {
+        status = Status.NOT_FOUND;
+      } else if (existing.contains(githubId)) {
+        status = Status.ALREADY_STAFF;
+      } else {
+        status = Status.ADDED;
+        staff.add(Staff.builder().courseId(course.getId()).githubId(githubId).build());
+      }
+      results.add(StaffBatchLoginResult.builder()
+          .githubLogin(login)
+          .status(status.name())
+          .githubId(githubId)
+          .build());
+    }
+
+    staffRepository.insertAll(staff);
+    for (Staff added : staff) {
+      eventPublisher.publishEvent(new StaffAddedEvent(added.getGithubId(), course.getId()));
+    }
+    log.info("Added {} of {} logins to the staff of course {}", staff.size(), logins.size(), course.getId());
+
+    return StaffBatchResult.builder()
+        .courseId(course.getId())
+        .added(staff.size())
+        .alreadyStaff(existing.size())
+        .notFound(logins.size() - githubIds.size())
+        .results(results)
+        .build();
+  }
+}
@@ -0,0 +1,154 @@
+package edu.ucsb.cs156.organic.services;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.StreamSupport;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import edu.ucsb.cs156.organic.entities.Staff;
+import edu.ucsb.cs156.organic.events.CourseDeletedEvent;
+import edu.ucsb.cs156.organic.events.StaffAddedEvent;
+import edu.ucsb.cs156.organic.events.StaffRemovedEvent;
+import edu.ucsb.cs156.organic.repositories.StaffRepository;
+
+/**
+ * In-memory index of which courses each user is on the staff of, used for
+ * the per-course permission checks in CoursesController.
+ *
+ * A user's course ids are loaded from the staff table the first time they
+ * are needed and kept as a sorted long[].  Code that changes the staff
+ * table publishes a StaffAddedEvent, StaffRemovedEvent or
+ * CourseDeletedEvent; those changes are applied to the index after the
+ * surrounding transaction commits (or immediately if there is none).
+ */
+@Service
+public class StaffAuthorizationIndex {
+
+  private static final long[] NONE = new long[0];
+
+  @Autowired
+  private StaffRepository staffRepository;
+
+  private final Map<Integer, long[]> courseIdsByGithubId = new ConcurrentHashMap<>();
+
+  // see UserRoleCache: a load is only stored if no change was applied while
+  // it was reading from the database
+  private final AtomicLong version = new AtomicLong();
+
+  public boolean isStaff(Integer githubId, long courseId) {
+    return Arrays.binarySearch(courseIds(githubId), courseId) >= 0;
+  }
+
+  /**
+   * @return the sorted ids of the courses githubId is on the staff of
+   */
+  public long[] courseIds(Integer githubId) {
+    long[] cached = courseIdsByGithubId.get(githubId);
+    if (cached != null) {
+      return cached;
+    }
+
+    long versionAtLoad = version.get();
+    long[] loaded = StreamSupport.stream(staffRepository.findByGithubId(githubId).spliterator(), false)
+        .mapToLong(Staff::getCourseId)
+        .distinct()
+        .sorted()
+        .toArray();
+    courseIdsByGithubId.compute(githubId, (id, existing) -> version.get() == versionAtLoad ? loaded : existing);
+    return loaded;
+  }
+
+  // plain @EventListeners: the methods below already wait for the commit
+
+  @EventListener
+  public void onStaffAdded(StaffAddedEvent event) {
+    staffAdded(event.githubId(), event.courseId());
+  }
+
+  @EventListener
+  public void onStaffRemoved(StaffRemovedEvent event) {
+    staffRemoved(event.githubId(), event.courseId());
+  }
+
+  @EventListener
+  public void onCourseDeleted(CourseDeletedEvent event) {
+    courseRemoved(event.courseId());
+  }
+
+  // the version is bumped even if githubId is not cached, since a load of
+  // githubId may be under way and would otherwise store what it read
+  // before the change
+
+  public void staffAdded(Integer githubId, long courseId) {
+    afterCommit(() -> {
+      version.incrementAndGet();
+      courseIdsByGithubId.computeIfPresent(githubId, (id, courseIds) -> with(courseIds, courseId));
+    });
+  }
+
+  public void staffRemoved(Integer githubId, long courseId) {
+    afterCommit(() -> {
+      version.incrementAndGet();
+      courseIdsByGithubId.computeIfPresent(githubId, (id, courseIds) -> without(courseIds, courseId));
+    });
+  }
+
+  public void courseRemoved(long courseId) {
+    afterCommit(() -> {
+      version.incrementAndGet();
+      courseIdsByGithubId.replaceAll((id, courseIds) -> without(courseIds, courseId));
+    });
+  }
+
+  public void clear() {
+    version.incrementAndGet();
+    courseIdsByGithubId.clear();
+  }
+
+  private static long[] with(long[] courseIds, long courseId) {
+    int i = Arrays.binarySearch(courseIds, courseId);
+    if (i >= 0) {
+      return courseIds;
+    }
+    int insertAt = -i - 1;
+    long[] result = new long[courseIds.length + 1];
+    System.arraycopy(courseIds, 0, result, 0, insertAt);
+    result[insertAt] = courseId;
+    System.arraycopy(courseIds, insertAt, result, insertAt + 1, courseIds.length - insertAt);
+    return result;
+  }
+
+  private static long[] without(long[] courseIds, long courseId) {
+    int i = Arrays.binarySearch(courseIds, courseId);
+    if (i < 0) {
+      return courseIds;
+    }
+    if (courseIds.length == 1) {
+      return NONE;
+    }
+    long[] result = new long[courseIds.length - 1];
+    System.arraycopy(courseIds, 0, result, 0, i);
+    System.arraycopy(courseIds, i + 1, result, i, courseIds.length - i - 1);
+    return result;
+  }
+
+  private static void afterCommit(Runnable change) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          change.run();
+        }
+      });
+    } else {
+      change.run();
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package edu.ucsb.cs156.organic.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import edu.ucsb.cs156.organic.entities.User;
+import edu.ucsb.cs156.organic.models.WriteStats;
+import edu.ucsb.cs156.organic.repositories.UserRepository;
+
+/**
+ * Saves a User only if one of the fields we refresh on login or from github
+ * actually changed.  Take a {@link #snapshot(User)} before modifying the
+ * user, then call {@link #saveIfChanged(User, Snapshot)} once at the end.
+ */
+@Service
+public class UserChangeTracker {
+
+  public record Snapshot(String accessToken, String email, String pictureUrl, String githubLogin,
+      boolean emailVerified) {
+  }
+
+  @Autowired
+  private UserRepository userRepository;
+
+  private final AtomicLong writes = new AtomicLong();
+  private final AtomicLong skippedWrites = new AtomicLong();
+
+  public Snapshot snapshot(User user) {
+    return new Snapshot(user.getAccessToken(), user.getEmail(), user.getPictureUrl(), user.getGithubLogin(),
+        user.isEmailVerified());
+  }
+
+  public boolean hasChanged(User user, Snapshot before) {
+    return !snapshot(user).equals(before);
+  }
+
+  /**
+   * @param user   the (possibly modified) user
+   * @param before a snapshot taken before the modifications
+   * @return the saved user, or user itself if nothing changed
+   */
+  public User saveIfChanged(User user, Snapshot before) {
+    if (!hasChanged(user, before)) {
+      skippedWrites.incrementAndGet();
+      return user;
+    }
+    writes.incrementAndGet();
+    return userRepository.save(user);
+  }
+
+  public WriteStats getStats() {
+    return WriteStats.builder()
+        .writes(writes.get())
+        .skippedWrites(skippedWrites.get())
+        .build();
+  }
+}
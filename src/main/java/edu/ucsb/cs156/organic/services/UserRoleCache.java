@@ -0,0 +1,78 @@
+package edu.ucsb.cs156.organic.services;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import edu.ucsb.cs156.organic.entities.User;
+import edu.ucsb.cs156.organic.repositories.UserRepository;
+
+/**
+ * Caches the admin and instructor flags of each user so that
+ * RoleUserInterceptor does not need a database round trip on every request.
+ *
+ * Anything that changes those flags in the database must call
+ * {@link #invalidate(Integer)}.
+ */
+@Service
+public class UserRoleCache {
+
+  public record RoleFlags(boolean admin, boolean instructor) {
+  }
+
+  @Autowired
+  private UserRepository userRepository;
+
+  private final Map<Integer, RoleFlags> flags = new ConcurrentHashMap<>();
+
+  // Bumped on every invalidation; a load only populates the cache if no
+  // invalidation happened while it was reading from the database.
+  private final AtomicLong version = new AtomicLong();
+
+  /**
+   * @param githubId the user's githubId
+   * @return the user's flags, or empty if there is no such user (yet)
+   */
+  public Optional<RoleFlags> get(Integer githubId) {
+    RoleFlags cached = flags.get(githubId);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+
+    long versionAtLoad = version.get();
+    Optional<User> user = userRepository.findByGithubId(githubId);
+    if (user.isEmpty()) {
+      return Optional.empty();
+    }
+
+    RoleFlags loaded = new RoleFlags(user.get().isAdmin(), user.get().isInstructor());
+    // compute() holds the same lock as the remove in invalidate(), so the
+    // version check and the insert cannot interleave with an invalidation
+    flags.compute(githubId, (id, existing) -> version.get() == versionAtLoad ? loaded : existing);
+    return Optional.of(loaded);
+  }
+
+  public void invalidate(Integer githubId) {
+    flags.compute(githubId, (id, existing) -> {
+      version.incrementAndGet();
+      return null;
+    });
+  }
+
+  public void invalidateAll() {
+    version.incrementAndGet();
+    flags.clear();
+  }
+
+  public long getVersion() {
+    return version.get();
+  }
+
+  public int size() {
+    return flags.size();
+  }
+}
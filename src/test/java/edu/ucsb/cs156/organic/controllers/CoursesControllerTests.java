@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -25,12 +26,14 @@ import java.util.Optional;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
@@ -40,6 +43,8 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
 
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.mock.web.MockMultipartFile;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -50,12 +55,31 @@ import edu.ucsb.cs156.organic.entities.Course;
 import edu.ucsb.cs156.organic.entities.Staff;
 import edu.ucsb.cs156.organic.entities.User;
 import edu.ucsb.cs156.organic.entities.jobs.Job;
+import edu.ucsb.cs156.organic.events.CourseSavedEvent;
+import edu.ucsb.cs156.organic.models.CourseDeleteResult;
+import edu.ucsb.cs156.organic.models.CourseFilter;
+import edu.ucsb.cs156.organic.models.CourseImportResult;
+import edu.ucsb.cs156.organic.models.CourseImportRow;
+import edu.ucsb.cs156.organic.models.CourseImportRowResult;
+import edu.ucsb.cs156.organic.models.CoursePage;
+import edu.ucsb.cs156.organic.models.CourseRowCount;
+import edu.ucsb.cs156.organic.models.CourseSummary;
+import edu.ucsb.cs156.organic.models.StaffBatchLoginResult;
+import edu.ucsb.cs156.organic.models.StaffBatchResult;
+import edu.ucsb.cs156.organic.models.StaffSummary;
 import edu.ucsb.cs156.organic.repositories.CourseRepository;
 import edu.ucsb.cs156.organic.repositories.StaffRepository;
+import edu.ucsb.cs156.organic.repositories.StudentRepository;
 import edu.ucsb.cs156.organic.repositories.UserRepository;
 import edu.ucsb.cs156.organic.repositories.jobs.JobsRepository;
 import edu.ucsb.cs156.organic.services.jobs.JobService;
 import edu.ucsb.cs156.organic.services.CurrentUserService;
+import edu.ucsb.cs156.organic.services.CourseCatalogCache;
+import edu.ucsb.cs156.organic.services.CourseDeletionService;
+import edu.ucsb.cs156.organic.services.CourseImportService;
+import edu.ucsb.cs156.organic.services.CourseSearchIndex;
+import edu.ucsb.cs156.organic.services.StaffAssignmentService;
+import edu.ucsb.cs156.organic.services.StaffAuthorizationIndex;
 import liquibase.pro.packaged.W;
 import lombok.With;
 import lombok.extern.slf4j.Slf4j;
@@ -78,9 +102,33 @@ public class CoursesControllerTests extends ControllerTestCase {
     @MockBean
     StaffRepository courseStaffRepository;
 
+    @MockBean
+    StudentRepository studentRepository;
+
     @Autowired
     CurrentUserService userService;
 
+    @Autowired
+    StaffAuthorizationIndex staffAuthorizationIndex;
+
+    @Autowired
+    CourseCatalogCache courseCatalogCache;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @MockBean
+    CourseImportService courseImportService;
+
+    @MockBean
+    CourseDeletionService courseDeletionService;
+
+    @MockBean
+    CourseSearchIndex courseSearchIndex;
+
+    @MockBean
+    StaffAssignmentService staffAssignmentService;
+
     @Autowired
     ObjectMapper objectMapper;
 
@@ -104,6 +152,13 @@ public class CoursesControllerTests extends ControllerTestCase {
             .githubOrg("ucsb-cs148-w24")
             .build();
 
+    @BeforeEach
+    public void clearStaffAuthorizationIndex() {
+        // the index is a singleton shared by every test using this context
+        staffAuthorizationIndex.clear();
+        courseCatalogCache.clear();
+    }
+
     @WithMockUser(roles = { "ADMIN" })
     @Test
     public void admin_can_get_all_courses() throws Exception {
@@ -136,19 +191,276 @@ public class CoursesControllerTests extends ControllerTestCase {
         ArrayList<Course> expectedCourses = new ArrayList<>();
         expectedCourses.addAll(Arrays.asList(course1, course2));
 
-        when(courseRepository.findCoursesStaffedByUser(any())).thenReturn(expectedCourses);
+        Integer githubId = userService.getCurrentUser().getUser().getGithubId();
+        List<Staff> staff = List.of(
+                Staff.builder().courseId(2L).githubId(githubId).build(),
+                Staff.builder().courseId(1L).githubId(githubId).build());
+        when(courseStaffRepository.findByGithubId(githubId)).thenReturn(staff);
+        when(courseRepository.findByIdIn(List.of(1L, 2L))).thenReturn(expectedCourses);
 
         // act
         MvcResult response = mockMvc.perform(get("/api/courses/all"))
                 .andExpect(status().isOk()).andReturn();
 
         // assert
-        verify(courseRepository, atLeastOnce()).findCoursesStaffedByUser(any());
+        verify(courseRepository, times(1)).findByIdIn(List.of(1L, 2L));
         String expectedJson = mapper.writeValueAsString(expectedCourses);
         String responseString = response.getResponse().getContentAsString();
         assertEquals(expectedJson, responseString);
     }
 
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void user_who_is_not_staff_anywhere_gets_no_courses_without_a_course_query() throws Exception {
+        // act
+        MvcResult response = mockMvc.perform(get("/api/courses/all"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(courseRepository, never()).findByIdIn(any());
+        assertEquals("[]", response.getResponse().getContentAsString());
+    }
+
+    // Tests for GET /api/courses/all/paged
+
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void admin_gets_a_full_page_and_a_next_cursor() throws Exception {
+        // arrange
+        Course course3 = Course.builder().id(3L).name("CS130A").school("UCSB").term("F23").build();
+        Course course7 = Course.builder().id(7L).name("CS130B").school("UCSB").term("F23").build();
+        Course course9 = Course.builder().id(9L).name("CS138").school("UCSB").term("F23").build();
+        CourseFilter filter = CourseFilter.builder()
+                .school("UCSB")
+                .term("F23")
+                .from(LocalDateTime.parse("2023-10-01T00:00:00"))
+                .build();
+        when(courseRepository.findPage(filter, 2L, 3)).thenReturn(List.of(course3, course7, course9));
+
+        // act
+        MvcResult response = mockMvc.perform(
+                get("/api/courses/all/paged?after=2&size=2&school=UCSB&term=F23&from=2023-10-01T00:00:00"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(courseRepository, times(1)).findPage(filter, 2L, 3);
+        String expectedJson = mapper.writeValueAsString(
+                CoursePage.builder().courses(List.of(course3, course7)).nextCursor(7L).build());
+        assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void last_page_has_no_next_cursor() throws Exception {
+        // arrange
+        when(courseRepository.findPage(CourseFilter.builder().build(), null, 51)).thenReturn(List.of(course1));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/courses/all/paged"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        String expectedJson = mapper.writeValueAsString(CoursePage.builder().courses(List.of(course1)).build());
+        assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void paged_courses_for_a_user_are_restricted_to_courses_they_staff() throws Exception {
+        // arrange
+        Integer githubId = userService.getCurrentUser().getUser().getGithubId();
+        List<Staff> staff = List.of(
+                Staff.builder().courseId(2L).githubId(githubId).build(),
+                Staff.builder().courseId(1L).githubId(githubId).build());
+        when(courseStaffRepository.findByGithubId(githubId)).thenReturn(staff);
+        CourseFilter filter = CourseFilter.builder().ids(List.of(1L, 2L)).build();
+        when(courseRepository.findPage(filter, null, 11)).thenReturn(List.of(course1));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/courses/all/paged?size=10"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(courseRepository, times(1)).findPage(filter, null, 11);
+        String expectedJson = mapper.writeValueAsString(CoursePage.builder().courses(List.of(course1)).build());
+        assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void paged_courses_for_a_user_who_is_not_staff_anywhere_are_empty() throws Exception {
+        // act
+        MvcResult response = mockMvc.perform(get("/api/courses/all/paged"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(courseRepository, never()).findPage(any(), any(), any(Integer.class));
+        String expectedJson = mapper.writeValueAsString(CoursePage.builder().courses(List.of()).build());
+        assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void page_size_must_be_between_1_and_500() throws Exception {
+        mockMvc.perform(get("/api/courses/all/paged?size=0"))
+                .andExpect(status().isBadRequest());
+        MvcResult response = mockMvc.perform(get("/api/courses/all/paged?size=501"))
+                .andExpect(status().isBadRequest()).andReturn();
+
+        Map<String, Object> json = responseToJson(response);
+        assertEquals("size must be between 1 and 500", json.get("message"));
+    }
+
+    // Tests for GET /api/courses/search
+
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void admin_searches_every_course() throws Exception {
+        // arrange
+        when(courseSearchIndex.search("cs1 ucsb", null, 20)).thenReturn(List.of(course1, course2));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/courses/search").param("q", "cs1 ucsb"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(courseSearchIndex, times(1)).search("cs1 ucsb", null, 20);
+        assertEquals(mapper.writeValueAsString(List.of(course1, course2)), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void user_searches_only_courses_they_staff() throws Exception {
+        // arrange
+        Integer githubId = userService.getCurrentUser().getUser().getGithubId();
+        List<Staff> staff = List.of(
+                Staff.builder().courseId(2L).githubId(githubId).build(),
+                Staff.builder().courseId(1L).githubId(githubId).build());
+        when(courseStaffRepository.findByGithubId(githubId)).thenReturn(staff);
+        when(courseSearchIndex.search(eq("cs"), eq(new long[] { 1L, 2L }), eq(5))).thenReturn(List.of(course1));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/courses/search?q=cs&limit=5"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(courseSearchIndex, times(1)).search(eq("cs"), eq(new long[] { 1L, 2L }), eq(5));
+        assertEquals(mapper.writeValueAsString(List.of(course1)), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void user_who_is_not_staff_anywhere_finds_nothing() throws Exception {
+        // act
+        MvcResult response = mockMvc.perform(get("/api/courses/search?q=cs"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(courseSearchIndex, never()).search(any(), any(), any(Integer.class));
+        assertEquals("[]", response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void search_needs_a_query_and_a_limit_between_1_and_100() throws Exception {
+        MvcResult response = mockMvc.perform(get("/api/courses/search?q= "))
+                .andExpect(status().isBadRequest()).andReturn();
+        assertEquals("q must not be blank", responseToJson(response).get("message"));
+
+        mockMvc.perform(get("/api/courses/search?q=cs&limit=0"))
+                .andExpect(status().isBadRequest());
+        response = mockMvc.perform(get("/api/courses/search?q=cs&limit=101"))
+                .andExpect(status().isBadRequest()).andReturn();
+        assertEquals("limit must be between 1 and 100", responseToJson(response).get("message"));
+
+        verify(courseSearchIndex, never()).search(any(), any(), any(Integer.class));
+    }
+
+    @Test
+    public void logged_out_users_cannot_search() throws Exception {
+        mockMvc.perform(get("/api/courses/search?q=cs"))
+                .andExpect(status().is(403));
+    }
+
+    // Tests for GET /api/courses/summary
+
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void admin_gets_counts_for_every_course() throws Exception {
+        // arrange
+        Course course3 = Course.builder().id(3L).name("CS130A").school("UCSB").term("F23").build();
+        when(courseRepository.findAll()).thenReturn(List.of(course1, course3));
+        when(studentRepository.countPerCourse()).thenReturn(List.of(new CourseRowCount(1L, 120, 97)));
+        when(courseStaffRepository.countPerCourse()).thenReturn(List.of(
+                new CourseRowCount(1L, 6, 6), new CourseRowCount(3L, 2, 2)));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/courses/summary"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(studentRepository, never()).findAll();
+        verify(courseStaffRepository, never()).findAll();
+        String expectedJson = mapper.writeValueAsString(List.of(
+                CourseSummary.builder().courseId(1L).name("CS156").term("F23").school("UCSB")
+                        .students(120).linkedGithubAccounts(97).staff(6).build(),
+                CourseSummary.builder().courseId(3L).name("CS130A").term("F23").school("UCSB")
+                        .students(0).linkedGithubAccounts(0).staff(2).build()));
+        assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void user_gets_counts_only_for_courses_they_staff() throws Exception {
+        // arrange
+        Integer githubId = userService.getCurrentUser().getUser().getGithubId();
+        when(courseStaffRepository.findByGithubId(githubId))
+                .thenReturn(List.of(Staff.builder().courseId(1L).githubId(githubId).build()));
+        when(courseRepository.findByIdIn(List.of(1L))).thenReturn(List.of(course1));
+        when(studentRepository.countPerCourse(List.of(1L))).thenReturn(List.of(new CourseRowCount(1L, 3, 1)));
+        when(courseStaffRepository.countPerCourse(List.of(1L))).thenReturn(List.of(new CourseRowCount(1L, 1, 1)));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/courses/summary"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(studentRepository, never()).countPerCourse();
+        String expectedJson = mapper.writeValueAsString(List.of(
+                CourseSummary.builder().courseId(1L).name("CS156").term("F23").school("UCSB")
+                        .students(3).linkedGithubAccounts(1).staff(1).build()));
+        assertEquals(expectedJson, response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void user_who_is_not_staff_anywhere_gets_no_summaries() throws Exception {
+        // act
+        MvcResult response = mockMvc.perform(get("/api/courses/summary"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(studentRepository, never()).countPerCourse(any());
+        assertEquals("[]", response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void staff_check_is_served_from_the_index_after_the_first_request() throws Exception {
+        // arrange
+        Integer githubId = userService.getCurrentUser().getUser().getGithubId();
+        Staff courseStaff = Staff.builder().courseId(course1.getId()).githubId(githubId).build();
+        when(courseRepository.findById(eq(course1.getId()))).thenReturn(Optional.of(course1));
+        when(courseStaffRepository.findByGithubId(githubId)).thenReturn(List.of(courseStaff));
+
+        // act
+        mockMvc.perform(get("/api/courses/get?id=1")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/courses/get?id=1")).andExpect(status().isOk());
+
+        // assert
+        verify(courseStaffRepository, times(1)).findByGithubId(githubId);
+    }
+
          // Tests for GET /api/courses/get?id=...
          @Test
          public void logged_out_users_cannot_get_by_id() throws Exception {
@@ -208,8 +520,8 @@ public class CoursesControllerTests extends ControllerTestCase {
                                 .build();
 
                 when(courseRepository.findById(eq(course1.getId()))).thenReturn(Optional.of(course1));
-                when(courseStaffRepository.findByCourseIdAndGithubId(eq(course1.getId()),
-                                eq(courseStaff1.getGithubId()))).thenReturn(Optional.of(courseStaff1));
+                when(courseStaffRepository.findByGithubId(eq(courseStaff1.getGithubId())))
+                                .thenReturn(List.of(courseStaff1));
 
                 // act
                 MvcResult response = mockMvc.perform(get("/api/courses/get?id=1"))
@@ -218,8 +530,8 @@ public class CoursesControllerTests extends ControllerTestCase {
 
                 // assert
                 verify(courseRepository, times(1)).findById(eq(1L));
-                verify(courseStaffRepository, times(1)).findByCourseIdAndGithubId(eq(course1.getId()),
-                                eq(courseStaff1.getGithubId()));
+                verify(courseStaffRepository, times(1)).findByGithubId(eq(courseStaff1.getGithubId()));
+                verify(courseStaffRepository, never()).findByCourseIdAndGithubId(any(), any());
                 String expectedJson = mapper.writeValueAsString(course1);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -393,6 +705,103 @@ public class CoursesControllerTests extends ControllerTestCase {
         assertEquals(expectedJson, responseString);
     }
 
+    // Tests for POST /api/courses/import and /api/courses/import/csv
+
+    CourseImportRow importRow = CourseImportRow.builder()
+            .name("CS156")
+            .school("UCSB")
+            .term("F23")
+            .startDate(LocalDateTime.parse("2023-09-01T00:00:00"))
+            .endDate(LocalDateTime.parse("2023-12-31T00:00:00"))
+            .githubOrg("ucsb-cs156-f23")
+            .build();
+
+    CourseImportResult importResult = CourseImportResult.builder()
+            .inserted(1)
+            .invalid(0)
+            .insertMillis(3)
+            .results(List.of(CourseImportRowResult.builder().row(1).status("INSERTED").courseId(17L).build()))
+            .build();
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void regular_users_cannot_import_courses() throws Exception {
+        mockMvc.perform(post("/api/courses/import")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+                .andExpect(status().isForbidden());
+    }
+
+    @WithMockUser(roles = { "INSTRUCTOR", "USER" })
+    @Test
+    public void instructor_can_import_courses_from_json() throws Exception {
+        // arrange
+        Integer githubId = userService.getCurrentUser().getUser().getGithubId();
+        when(courseImportService.importCourses(List.of(importRow), githubId)).thenReturn(importResult);
+
+        // act
+        MvcResult response = mockMvc.perform(post("/api/courses/import")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(List.of(importRow)))
+                .with(csrf()))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(courseImportService, times(1)).importCourses(List.of(importRow), githubId);
+        assertEquals(mapper.writeValueAsString(importResult), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_import_courses_from_csv() throws Exception {
+        // arrange
+        Integer githubId = userService.getCurrentUser().getUser().getGithubId();
+        String csv = "name,school,term,startDate,endDate,githubOrg\n"
+                + "CS156,UCSB,F23,2023-09-01T00:00:00,2023-12-31T00:00:00,ucsb-cs156-f23\n";
+        when(courseImportService.parseCsv(any())).thenReturn(List.of(importRow));
+        when(courseImportService.importCourses(List.of(importRow), githubId)).thenReturn(importResult);
+        MockMultipartFile file = new MockMultipartFile("file", "courses.csv", "text/csv", csv.getBytes());
+
+        // act
+        MvcResult response = mockMvc.perform(multipart("/api/courses/import/csv").file(file).with(csrf()))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(courseImportService, times(1)).importCourses(List.of(importRow), githubId);
+        Map<String, Object> json = responseToJson(response);
+        assertEquals(1, json.get("inserted"));
+        assertEquals(3, json.get("insertMillis"));
+        assertTrue(json.containsKey("parseMillis"));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void adding_an_existing_staff_member_again_returns_the_existing_row() throws Exception {
+        // arrange
+        User user = User.builder().githubId(12345).githubLogin("scottpchow23").build();
+        Staff existing = Staff.builder()
+                .id(456L)
+                .courseId(course1.getId())
+                .githubId(user.getGithubId())
+                .build();
+
+        when(courseRepository.findById(eq(course1.getId()))).thenReturn(Optional.of(course1));
+        when(userRepository.findByGithubLogin(eq("scottpchow23"))).thenReturn(Optional.of(user));
+        when(courseStaffRepository.findByCourseIdAndGithubId(course1.getId(), user.getGithubId()))
+                .thenReturn(Optional.of(existing));
+
+        // act
+        MvcResult response = mockMvc.perform(
+                post("/api/courses/addStaff?courseId=1&githubLogin=scottpchow23")
+                        .with(csrf()))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(courseStaffRepository, never()).save(any());
+        assertEquals(mapper.writeValueAsString(existing), response.getResponse().getContentAsString());
+    }
+
     @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
         public void an_admin_user_cannot_add_staff_to_a_non_existing_course() throws Exception {
@@ -437,31 +846,86 @@ public class CoursesControllerTests extends ControllerTestCase {
 
     @WithMockUser(roles = { "ADMIN", "USER" })
     @Test
-    public void an_admin_user_can_get_staff_for_a_course() throws Exception {
+    public void an_admin_user_can_add_many_staff_at_once() throws Exception {
+        // arrange
+        when(courseRepository.findById(eq(1L))).thenReturn(Optional.of(course1));
+        StaffBatchResult result = StaffBatchResult.builder()
+                .courseId(1L)
+                .added(1)
+                .notFound(1)
+                .results(List.of(
+                        StaffBatchLoginResult.builder().githubLogin("pconrad").status("ADDED").githubId(67890).build(),
+                        StaffBatchLoginResult.builder().githubLogin("sadGaucho").status("NOT_FOUND").build()))
+                .build();
+        when(staffAssignmentService.addStaff(course1, List.of("pconrad", "sadGaucho"))).thenReturn(result);
+
+        // act
+        MvcResult response = mockMvc.perform(
+                post("/api/courses/addStaff/batch?courseId=1")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"pconrad\", \"sadGaucho\"]"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(staffAssignmentService, times(1)).addStaff(course1, List.of("pconrad", "sadGaucho"));
+        assertEquals(mapper.writeValueAsString(result), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void many_staff_cannot_be_added_to_a_non_existing_course() throws Exception {
         // arrange
+        when(courseRepository.findById(eq(42L))).thenReturn(Optional.empty());
 
-        User user1 = User.builder().githubId(12345).githubLogin("scottpchow23").build();
-        User user2 = User.builder().githubId(67890).githubLogin("pconrad").build();
+        // act
+        MvcResult response = mockMvc.perform(
+                post("/api/courses/addStaff/batch?courseId=42")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"pconrad\"]"))
+                .andExpect(status().isNotFound()).andReturn();
+
+        // assert
+        verify(staffAssignmentService, never()).addStaff(any(), any());
+        assertEquals("Course with id 42 not found", responseToJson(response).get("message"));
+    }
+
+    @WithMockUser(roles = { "INSTRUCTOR", "USER" })
+    @Test
+    public void instructors_cannot_add_many_staff_at_once() throws Exception {
+        mockMvc.perform(
+                post("/api/courses/addStaff/batch?courseId=1")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"pconrad\"]"))
+                .andExpect(status().isForbidden());
+    }
 
-        Staff courseStaff1 = Staff.builder()
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void an_admin_user_can_get_staff_for_a_course() throws Exception {
+        // arrange
+
+        StaffSummary courseStaff1 = StaffSummary.builder()
                 .id(111L)
                 .courseId(course1.getId())
-                .githubId(user1.getGithubId())
-                .user(user1)
+                .githubId(12345)
+                .githubLogin("scottpchow23")
+                .fullName("Scott Chow")
                 .build();
 
-        Staff courseStaff2 = Staff.builder()
+        StaffSummary courseStaff2 = StaffSummary.builder()
                 .id(222L)
-                .courseId(course2.getId())
-                .githubId(user2.getGithubId())
-                .user(user2)
+                .courseId(course1.getId())
+                .githubId(67890)
+                .githubLogin("pconrad")
                 .build();
 
-        ArrayList<Staff> expectedCourseStaff = new ArrayList<>();
-        expectedCourseStaff.addAll(Arrays.asList(courseStaff1, courseStaff2));
+        List<StaffSummary> expectedCourseStaff = List.of(courseStaff1, courseStaff2);
 
         when(courseRepository.findById(eq(course1.getId()))).thenReturn(Optional.of(course1));
-        when(courseStaffRepository.findByCourseId(eq(course1.getId()))).thenReturn(expectedCourseStaff);
+        when(courseStaffRepository.findSummariesByCourseId(eq(course1.getId()))).thenReturn(expectedCourseStaff);
 
         // act
 
@@ -472,7 +936,8 @@ public class CoursesControllerTests extends ControllerTestCase {
 
         // assert
 
-        verify(courseStaffRepository, times(1)).findByCourseId(eq(course1.getId()));
+        verify(courseStaffRepository, times(1)).findSummariesByCourseId(eq(course1.getId()));
+        verify(courseStaffRepository, never()).findByCourseId(any());
         String expectedJson = mapper.writeValueAsString(expectedCourseStaff);
         String responseString = response.getResponse().getContentAsString();
         assertEquals(expectedJson, responseString);
@@ -620,9 +1085,8 @@ public class CoursesControllerTests extends ControllerTestCase {
         User user = userService.getCurrentUser().getUser();
         // mock user is staff
         Staff courseStaff = Staff.builder().courseId(courseBefore.getId()).githubId(user.getGithubId()).build();
-        when(courseStaffRepository.findByCourseIdAndGithubId(courseBefore.getId(), user.getGithubId()))
-                .thenReturn(Optional
-                        .of(courseStaff));
+        when(courseStaffRepository.findByGithubId(user.getGithubId()))
+                .thenReturn(List.of(courseStaff));
 
         // act
         // get urlTemplate from courseAfter using string interpolation
@@ -780,6 +1244,9 @@ public class CoursesControllerTests extends ControllerTestCase {
                 .build();
 
         when(courseRepository.findById(eq(courseBefore.getId()))).thenReturn(Optional.of(courseBefore));
+        CourseDeleteResult deleteResult = CourseDeleteResult.builder()
+                .course(courseBefore).staffDeleted(2).studentsDeleted(40).build();
+        when(courseDeletionService.deleteCourse(courseBefore)).thenReturn(deleteResult);
 
         // act
         MvcResult response = mockMvc.perform(
@@ -788,8 +1255,8 @@ public class CoursesControllerTests extends ControllerTestCase {
                 .andExpect(status().isOk()).andReturn();
 
         // assert
-        verify(courseRepository, times(1)).delete(courseBefore);
-        String expectedJson = mapper.writeValueAsString(courseBefore);
+        verify(courseDeletionService, times(1)).deleteCourse(courseBefore);
+        String expectedJson = mapper.writeValueAsString(deleteResult);
         String responseString = response.getResponse().getContentAsString();
         assertEquals(expectedJson, responseString);
     }
@@ -819,9 +1286,11 @@ public class CoursesControllerTests extends ControllerTestCase {
         User user = userService.getCurrentUser().getUser();
         // mock user is staff
         Staff courseStaff = Staff.builder().courseId(courseBefore.getId()).githubId(user.getGithubId()).build();
-        when(courseStaffRepository.findByCourseIdAndGithubId(courseBefore.getId(), user.getGithubId()))
-                .thenReturn(Optional
-                        .of(courseStaff));
+        when(courseStaffRepository.findByGithubId(user.getGithubId()))
+                .thenReturn(List.of(courseStaff));
+        CourseDeleteResult deleteResult = CourseDeleteResult.builder()
+                .course(courseBefore).staffDeleted(1).studentsDeleted(0).build();
+        when(courseDeletionService.deleteCourse(courseBefore)).thenReturn(deleteResult);
         // act
         MvcResult response = mockMvc.perform(
                 delete("/api/courses/delete?id=1")
@@ -829,8 +1298,8 @@ public class CoursesControllerTests extends ControllerTestCase {
                 .andExpect(status().isOk()).andReturn();
 
         // assert
-        verify(courseRepository, times(1)).delete(courseBefore);
-        String expectedJson = mapper.writeValueAsString(courseBefore);
+        verify(courseDeletionService, times(1)).deleteCourse(courseBefore);
+        String expectedJson = mapper.writeValueAsString(deleteResult);
         String responseString = response.getResponse().getContentAsString();
         assertEquals(expectedJson, responseString);
     }
@@ -867,7 +1336,7 @@ public class CoursesControllerTests extends ControllerTestCase {
                 .andExpect(status().isForbidden()).andReturn();
 
         // assert
-        verify(courseRepository, times(0)).delete(courseBefore);
+        verify(courseDeletionService, never()).deleteCourse(any());
 
         // verify message is correct
         Map<String, String> responseMap = mapper.readValue(response.getResponse().getContentAsString(),
@@ -903,7 +1372,7 @@ public class CoursesControllerTests extends ControllerTestCase {
                 .andExpect(status().isForbidden()).andReturn();
 
         // assert
-        verify(courseRepository, times(0)).delete(courseBefore);
+        verify(courseDeletionService, never()).deleteCourse(any());
 
         // verify message is correct
         Map<String, String> responseMap = mapper.readValue(response.getResponse().getContentAsString(),
@@ -913,4 +1382,167 @@ public class CoursesControllerTests extends ControllerTestCase {
                 "AccessDeniedException");
         assertEquals(expectedMap, responseMap);
     }
+
+    // Tests for ETags and conditional requests
+
+    Course versioned1 = Course.builder().id(1L).name("CS156").version(2L).build();
+    Course versioned2 = Course.builder().id(2L).name("CS148").version(3L).build();
+
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void admin_gets_a_weak_etag_on_all_courses() throws Exception {
+        // arrange
+        when(courseRepository.findAll()).thenReturn(List.of(versioned1, versioned2));
+
+        // act & assert
+        mockMvc.perform(get("/api/courses/all"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"2-5-2\""));
+    }
+
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void all_courses_is_not_modified_when_the_etag_matches() throws Exception {
+        // arrange
+        when(courseRepository.findAll()).thenReturn(List.of(versioned1, versioned2));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/courses/all").header("If-None-Match", "W/\"2-5-2\""))
+                .andExpect(status().isNotModified()).andReturn();
+
+        // assert
+        assertEquals("", response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void all_courses_is_resent_once_any_course_changes() throws Exception {
+        // arrange
+        when(courseRepository.findAll()).thenReturn(List.of(versioned1, versioned2));
+        mockMvc.perform(get("/api/courses/all")).andExpect(status().isOk());
+
+        eventPublisher.publishEvent(new CourseSavedEvent(Course.builder().id(1L).name("CS156").version(3L).build()));
+
+        // act & assert
+        mockMvc.perform(get("/api/courses/all").header("If-None-Match", "W/\"2-5-2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"2-6-2\""));
+        verify(courseRepository, times(1)).findAll();
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void staff_etag_on_all_courses_depends_on_which_courses_they_staff() throws Exception {
+        // arrange
+        Integer githubId = userService.getCurrentUser().getUser().getGithubId();
+        when(courseStaffRepository.findByGithubId(githubId)).thenReturn(List.of(
+                Staff.builder().courseId(1L).githubId(githubId).build(),
+                Staff.builder().courseId(2L).githubId(githubId).build()));
+        when(courseRepository.findByIdIn(List.of(1L, 2L))).thenReturn(List.of(versioned1, versioned2));
+        String etag = "W/\"%s-2-5-2\"".formatted(Integer.toHexString(Arrays.hashCode(new long[] { 1L, 2L })));
+
+        // act & assert
+        mockMvc.perform(get("/api/courses/all").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void get_by_id_has_a_strong_etag_from_id_and_version() throws Exception {
+        // arrange
+        Course course = Course.builder().id(1L).name("CS156").version(3L).build();
+        when(courseRepository.findById(eq(1L))).thenReturn(Optional.of(course));
+
+        // act & assert
+        mockMvc.perform(get("/api/courses/get?id=1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-3\""));
+    }
+
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void get_by_id_is_not_modified_when_the_etag_matches() throws Exception {
+        // arrange
+        Course course = Course.builder().id(1L).name("CS156").version(3L).build();
+        when(courseRepository.findById(eq(1L))).thenReturn(Optional.of(course));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/courses/get?id=1").header("If-None-Match", "\"1-3\""))
+                .andExpect(status().isNotModified()).andReturn();
+
+        // assert
+        assertEquals("", response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void get_by_id_checks_authorization_before_answering_not_modified() throws Exception {
+        // arrange
+        Course course = Course.builder().id(1L).name("CS156").version(3L).build();
+        when(courseRepository.findById(eq(1L))).thenReturn(Optional.of(course));
+
+        // act & assert
+        mockMvc.perform(get("/api/courses/get?id=1").header("If-None-Match", "\"1-3\""))
+                .andExpect(status().isForbidden());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void update_with_a_matching_if_match_succeeds_and_returns_the_new_etag() throws Exception {
+        // arrange
+        Course courseBefore = Course.builder().id(1L).name("CS16").version(3L).build();
+        Course courseAfter = Course.builder().id(1L).name("CS16").school("UCSB").term("F23")
+                .startDate(LocalDateTime.parse("2023-09-01T00:00:00"))
+                .endDate(LocalDateTime.parse("2023-12-31T00:00:00"))
+                .githubOrg("ucsb-cs16-f23")
+                .version(4L)
+                .build();
+        when(courseRepository.findById(eq(1L))).thenReturn(Optional.of(courseBefore));
+        when(courseRepository.save(any())).thenReturn(courseAfter);
+
+        // act & assert
+        mockMvc.perform(
+                put("/api/courses/update?id=1&name=CS16&school=UCSB&term=F23&startDate=2023-09-01T00:00:00&endDate=2023-12-31T00:00:00&githubOrg=ucsb-cs16-f23")
+                        .header("If-Match", "\"1-3\"")
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-4\""));
+        verify(courseRepository, times(1)).save(courseBefore);
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void update_with_a_stale_if_match_fails_without_saving() throws Exception {
+        // arrange
+        Course courseBefore = Course.builder().id(1L).name("CS16").version(4L).build();
+        when(courseRepository.findById(eq(1L))).thenReturn(Optional.of(courseBefore));
+
+        // act & assert
+        mockMvc.perform(
+                put("/api/courses/update?id=1&name=CS32&school=UCSB&term=F23&startDate=2023-09-01T00:00:00&endDate=2023-12-31T00:00:00&githubOrg=ucsb-cs32-f23")
+                        .header("If-Match", "\"1-3\"")
+                        .with(csrf()))
+                .andExpect(status().isPreconditionFailed());
+        verify(courseRepository, never()).save(any());
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void update_that_loses_a_race_with_another_update_gets_412() throws Exception {
+        // arrange
+        Course courseBefore = Course.builder().id(1L).name("CS16").version(3L).build();
+        when(courseRepository.findById(eq(1L))).thenReturn(Optional.of(courseBefore));
+        when(courseRepository.save(any())).thenThrow(new ObjectOptimisticLockingFailureException(Course.class, 1L));
+
+        // act
+        MvcResult response = mockMvc.perform(
+                put("/api/courses/update?id=1&name=CS32&school=UCSB&term=F23&startDate=2023-09-01T00:00:00&endDate=2023-12-31T00:00:00&githubOrg=ucsb-cs32-f23")
+                        .with(csrf()))
+                .andExpect(status().isPreconditionFailed()).andReturn();
+
+        // assert
+        Map<String, Object> json = responseToJson(response);
+        assertEquals("ObjectOptimisticLockingFailureException", json.get("type"));
+        assertEquals("This was changed by someone else; reload it and try again", json.get("message"));
+    }
 }
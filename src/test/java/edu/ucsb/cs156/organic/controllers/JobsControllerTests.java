@@ -42,8 +42,10 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 
 import edu.ucsb.cs156.organic.entities.User;
 import edu.ucsb.cs156.organic.entities.jobs.Job;
+import edu.ucsb.cs156.organic.errors.JobAlreadyRunningException;
 import edu.ucsb.cs156.organic.repositories.UserRepository;
 import edu.ucsb.cs156.organic.repositories.jobs.JobsRepository;
+import edu.ucsb.cs156.organic.services.GithubUserSyncService;
 import edu.ucsb.cs156.organic.services.jobs.JobService;
 import lombok.extern.slf4j.Slf4j;
 
@@ -65,6 +67,9 @@ public class JobsControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        GithubUserSyncService githubUserSyncService;
+
         @Autowired
         JobService jobService;
 
@@ -291,4 +296,41 @@ public class JobsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
         }
 
-}
\ No newline at end of file
+        @WithMockUser(roles = { "ADMIN" })
+        @Test
+        public void admin_can_launch_github_user_sync_job() throws Exception {
+                // arrange
+                Job job = Job.builder().id(7L).status("running").build();
+                when(githubUserSyncService.launchSyncJob()).thenReturn(job);
+
+                // act
+                MvcResult response = mockMvc
+                                .perform(post("/api/jobs/launch/githubUserSync").with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(githubUserSyncService, times(1)).launchSyncJob();
+                assertEquals(mapper.writeValueAsString(job), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "ADMIN" })
+        @Test
+        public void github_user_sync_job_is_not_launched_twice() throws Exception {
+                when(githubUserSyncService.launchSyncJob())
+                                .thenThrow(new JobAlreadyRunningException("a github user sync job is already running"));
+
+                MvcResult response = mockMvc.perform(post("/api/jobs/launch/githubUserSync").with(csrf()))
+                                .andExpect(status().isConflict()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("JobAlreadyRunningException", json.get("type"));
+                assertEquals("a github user sync job is already running", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void non_admin_cannot_launch_github_user_sync_job() throws Exception {
+                mockMvc.perform(post("/api/jobs/launch/githubUserSync").with(csrf()))
+                                .andExpect(status().isForbidden());
+        }
+}
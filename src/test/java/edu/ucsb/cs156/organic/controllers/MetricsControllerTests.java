@@ -0,0 +1,149 @@
+package edu.ucsb.cs156.organic.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
+
+import edu.ucsb.cs156.organic.models.BufferStats;
+import edu.ucsb.cs156.organic.models.CacheStats;
+import edu.ucsb.cs156.organic.models.CourseCatalogStats;
+import edu.ucsb.cs156.organic.models.GithubApiStats;
+import edu.ucsb.cs156.organic.models.WriteStats;
+import edu.ucsb.cs156.organic.repositories.UserRepository;
+import edu.ucsb.cs156.organic.services.CourseCatalogCache;
+import edu.ucsb.cs156.organic.services.CurrentUserCache;
+import edu.ucsb.cs156.organic.services.GithubApiGovernor;
+import edu.ucsb.cs156.organic.services.LastOnlineBuffer;
+import edu.ucsb.cs156.organic.services.UserChangeTracker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = MetricsController.class)
+@AutoConfigureDataJpa
+public class MetricsControllerTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  CurrentUserCache currentUserCache;
+
+  @MockBean
+  UserChangeTracker userChangeTracker;
+
+  @MockBean
+  LastOnlineBuffer lastOnlineBuffer;
+
+  @MockBean
+  GithubApiGovernor githubApiGovernor;
+
+  @MockBean
+  CourseCatalogCache courseCatalogCache;
+
+  @Test
+  public void logged_out_users_cannot_get_metrics() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics/currentUserCache"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void regular_users_cannot_get_metrics() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics/currentUserCache"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void admin_can_get_current_user_cache_stats() throws Exception {
+    // arrange
+    CacheStats stats = CacheStats.builder().size(3).hits(10).misses(4).refreshes(2).build();
+    when(currentUserCache.getStats()).thenReturn(stats);
+    String expectedJson = mapper.writeValueAsString(stats);
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/admin/metrics/currentUserCache"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void admin_can_get_user_write_stats() throws Exception {
+    // arrange
+    WriteStats stats = WriteStats.builder().writes(5).skippedWrites(42).build();
+    when(userChangeTracker.getStats()).thenReturn(stats);
+    String expectedJson = mapper.writeValueAsString(stats);
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/admin/metrics/userWrites"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void admin_can_get_last_online_buffer_stats() throws Exception {
+    // arrange
+    BufferStats stats = BufferStats.builder().size(2).recorded(40).flushes(3).rowsFlushed(9)
+        .lastFlushMillis(4).maxFlushMillis(12).build();
+    when(lastOnlineBuffer.getStats()).thenReturn(stats);
+    String expectedJson = mapper.writeValueAsString(stats);
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/admin/metrics/lastOnlineBuffer"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void admin_can_get_github_api_stats() throws Exception {
+    // arrange
+    GithubApiStats stats = GithubApiStats.builder().breakerState("OPEN").consecutiveFailures(5).breakerOpens(1)
+        .calls(120).failures(7).rejectedCalls(30).trackedTokens(12).lowestRemaining(80)
+        .lastLatencyMillis(250).maxLatencyMillis(10000).averageLatencyMillis(180).build();
+    when(githubApiGovernor.getStats()).thenReturn(stats);
+    String expectedJson = mapper.writeValueAsString(stats);
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/admin/metrics/githubApi"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void admin_can_get_course_catalog_stats() throws Exception {
+    // arrange
+    CourseCatalogStats stats = CourseCatalogStats.builder().size(40).complete(true).hits(90).misses(10)
+        .hitRatio(0.9).rebuilds(1).lastRebuildMillis(12).build();
+    when(courseCatalogCache.getStats()).thenReturn(stats);
+    String expectedJson = mapper.writeValueAsString(stats);
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/admin/metrics/courseCatalog"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(expectedJson, response.getResponse().getContentAsString());
+  }
+}
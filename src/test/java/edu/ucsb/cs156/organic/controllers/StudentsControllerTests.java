@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -46,15 +47,19 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
 import edu.ucsb.cs156.organic.entities.Course;
+import edu.ucsb.cs156.organic.entities.RosterUpload;
 import edu.ucsb.cs156.organic.entities.Staff;
 import edu.ucsb.cs156.organic.entities.Student;
 import edu.ucsb.cs156.organic.entities.User;
 import edu.ucsb.cs156.organic.entities.jobs.Job;
+import edu.ucsb.cs156.organic.models.RosterStudent;
 import edu.ucsb.cs156.organic.repositories.CourseRepository;
+import edu.ucsb.cs156.organic.repositories.RosterUploadRepository;
 import edu.ucsb.cs156.organic.repositories.StaffRepository;
 import edu.ucsb.cs156.organic.repositories.StudentRepository;
 import edu.ucsb.cs156.organic.repositories.UserRepository;
 import edu.ucsb.cs156.organic.repositories.jobs.JobsRepository;
+import edu.ucsb.cs156.organic.services.RosterImportService;
 import edu.ucsb.cs156.organic.services.jobs.JobService;
 import lombok.extern.slf4j.Slf4j;
 
@@ -65,7 +70,7 @@ import java.util.Map;
 
 @Slf4j
 @WebMvcTest(controllers = StudentsController.class)
-@Import(JobService.class)
+@Import({ JobService.class, RosterImportService.class })
 @AutoConfigureDataJpa
 public class StudentsControllerTests extends ControllerTestCase {
 
@@ -81,6 +86,12 @@ public class StudentsControllerTests extends ControllerTestCase {
         @MockBean
         StaffRepository staffRepository;
 
+        @MockBean
+        JobsRepository jobsRepository;
+
+        @MockBean
+        RosterUploadRepository rosterUploadRepository;
+
         @Autowired
         ObjectMapper objectMapper;
 
@@ -217,33 +228,20 @@ public class StudentsControllerTests extends ControllerTestCase {
 
                 // arrange
 
-                 Student student2After = Student.builder()
-                        .id(2L)
-                        .courseId(course1.getId())
-                        .fname("LAUREN")
-                        .lname("DEL PLAYA")
-                        .email("ldelplaya@umail.ucsb.edu")
-                        .studentId("A987654")
-                        .courseId(course1.getId())
-                        .build();
-
-                  Student student3Before = Student.builder()
-                        .courseId(course1.getId())
-                        .fname("SABADO")
-                        .lname("TARDE")
-                        .email("sabadotarde@umail.ucsb.edu")
-                        .studentId("1234567")
+                Student student1After = Student.builder()
                         .courseId(course1.getId())
+                        .fname("CHRIS FAKE")
+                        .lname("GAUCHO")
+                        .email("cgaucho@umail.ucsb.edu")
+                        .studentId("A123456")
                         .build();
 
-                  Student student3After = Student.builder()
-                        .id(2L)
+                Student student3 = Student.builder()
                         .courseId(course1.getId())
                         .fname("SABADO")
                         .lname("TARDE")
                         .email("sabadotarde@umail.ucsb.edu")
                         .studentId("1234567")
-                        .courseId(course1.getId())
                         .build();
 
                 MockMultipartFile file = new MockMultipartFile(
@@ -253,15 +251,10 @@ public class StudentsControllerTests extends ControllerTestCase {
                                 sampleCSVContents.getBytes());
 
                 when(courseRepository.findById(eq(course1.getId()))).thenReturn(Optional.of(course1));
-                when(studentRepository.findByCourseIdAndStudentId(eq(course1.getId()), eq("A123456")))
-                                .thenReturn(Optional.of(student1));
-                when(studentRepository.findByCourseIdAndStudentId(eq(course1.getId()), eq("A987654")))
-                                .thenReturn(Optional.of(student2));
-                when(studentRepository.findByCourseIdAndStudentId(eq(course1.getId()), eq("1234567")))
-                                .thenReturn(Optional.empty());
-
-                when(studentRepository.save(eq(student2After))).thenReturn(student2After);
-                when(studentRepository.save(eq(student3Before))).thenReturn(student3After);
+                // student2 is already on the roster exactly as in the file
+                when(studentRepository.findRosterByCourseId(eq(course1.getId()))).thenReturn(List.of(
+                                new RosterStudent(1L, "A123456", "Chris", "Gaucho", "cgaucho@ucsb.edu"),
+                                new RosterStudent(2L, "A987654", "LAUREN", "DEL PLAYA", "ldelplaya@umail.ucsb.edu")));
 
                 // act
 
@@ -272,19 +265,119 @@ public class StudentsControllerTests extends ControllerTestCase {
                 // assert
 
                 verify(courseRepository, atLeastOnce()).findById(eq(course1.getId()));
-                String responseString = response.getResponse().getContentAsString();
-                Map<String,String> expectedMap = Map.of(
+                Map<String, Object> responseMap = mapper.readValue(response.getResponse().getContentAsString(),
+                                new TypeReference<Map<String, Object>>() {
+                                });
+                assertTrue(responseMap.containsKey("importMillis"));
+                responseMap.remove("importMillis");
+                Map<String, Object> expectedMap = Map.of(
                         "filename", "egrades.csv",
-                        "message", "Inserted 1 new students, Updated 2 students"
+                        "message", "Inserted 1 new students, Updated 1 students, 1 unchanged",
+                        "inserted", 1,
+                        "updated", 1,
+                        "unchanged", 1,
+                        "alreadyImported", false
                       );
-                String expectedJson = mapper.writeValueAsString(expectedMap);
-                assertEquals(expectedJson, responseString);
-                verify(studentRepository, atLeastOnce()).findByCourseIdAndStudentId(eq(course1.getId()), eq("A123456"));
-                verify(studentRepository, atLeastOnce()).findByCourseIdAndStudentId(eq(course1.getId()), eq("A987654"));
-                verify(studentRepository, atLeastOnce()).findByCourseIdAndStudentId(eq(course1.getId()), eq("1234567"));
+                assertEquals(expectedMap, responseMap);
+                verify(studentRepository, times(1)).findRosterByCourseId(eq(course1.getId()));
+                verify(studentRepository, times(1)).upsertAll(eq(List.of(student1After, student3)));
+        }
+
+        @WithMockUser(roles = { "ADMIN" })
+        @Test
+        public void uploading_the_same_roster_again_imports_nothing() throws Exception {
+
+                // arrange
+
+                MockMultipartFile file = new MockMultipartFile(
+                                "file",
+                                "egrades.csv",
+                                MediaType.TEXT_PLAIN_VALUE,
+                                sampleCSVContents.getBytes());
+
+                String sha256 = RosterImportService.sha256(file.getInputStream());
+                when(courseRepository.findById(eq(course1.getId()))).thenReturn(Optional.of(course1));
+                when(rosterUploadRepository.findByCourseId(eq(course1.getId()))).thenReturn(Optional.of(
+                                RosterUpload.builder().courseId(course1.getId()).sha256(sha256).inserted(3).build()));
+
+                // act
+
+                MvcResult response = mockMvc
+                                .perform(multipart("/api/students/upload/egrades?courseId=1").file(file).with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                Map<String, Object> responseMap = responseToJson(response);
+                assertEquals("Already imported, nothing changed (Inserted 3 new students, Updated 0 students, 0 unchanged)",
+                                responseMap.get("message"));
+                assertEquals(true, responseMap.get("alreadyImported"));
+                verify(studentRepository, never()).findRosterByCourseId(any());
+                verify(studentRepository, never()).upsertAll(any());
+                verify(rosterUploadRepository, never()).upsert(any());
+        }
+
+        @WithMockUser(roles = { "ADMIN" })
+        @Test
+        public void admin_can_upload_students_as_a_background_job() throws Exception {
+
+                // arrange
+
+                MockMultipartFile file = new MockMultipartFile(
+                                "file",
+                                "egrades.csv",
+                                MediaType.TEXT_PLAIN_VALUE,
+                                sampleCSVContents.getBytes());
+
+                when(courseRepository.findById(eq(course1.getId()))).thenReturn(Optional.of(course1));
+
+                // act
+
+                MvcResult response = mockMvc
+                                .perform(multipart("/api/students/upload/egrades?courseId=1&async=true").file(file)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                // a three line roster may well be imported before the response is written
+                Map<String, Object> json = responseToJson(response);
+                assertTrue(json.containsKey("status"), json.toString());
+
+                await().atMost(10, SECONDS)
+                                .untilAsserted(() -> {
+                                        ArgumentCaptor<Job> jobCaptor = ArgumentCaptor.forClass(Job.class);
+                                        verify(jobsRepository, atLeast(1)).save(jobCaptor.capture());
+                                        Job job = jobCaptor.getValue();
+                                        assertEquals("complete", job.getStatus());
+                                        assertTrue(job.getLog().startsWith("""
+                                                        Importing egrades roster egrades.csv into course 1
+                                                        Roster import complete: 3 rows, 3 inserted, 0 updated, 0 unchanged in """),
+                                                        job.getLog());
+                                });
+                verify(studentRepository, times(1)).upsertAll(any());
+        }
+
+        @WithMockUser(roles = { "ADMIN" })
+        @Test
+        public void admin_cannot_upload_students_as_a_job_for_a_non_existing_course() throws Exception {
+
+                MockMultipartFile file = new MockMultipartFile(
+                                "file",
+                                "egrades.csv",
+                                MediaType.TEXT_PLAIN_VALUE,
+                                sampleCSVContents.getBytes());
+
+                when(courseRepository.findById(eq(1L))).thenReturn(Optional.empty());
+
+                MvcResult response = mockMvc
+                                .perform(multipart("/api/students/upload/egrades?courseId=1&async=true").file(file)
+                                                .with(csrf()))
+                                .andExpect(status().isNotFound()).andReturn();
 
-                verify(studentRepository, atLeastOnce()).save(eq(student2After));
-                verify(studentRepository, atLeastOnce()).save(eq(student3Before));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("Course with id 1 not found", json.get("message"));
+                verify(jobsRepository, never()).save(any());
         }
 
 }
@@ -1,6 +1,7 @@
 package edu.ucsb.cs156.organic.controllers;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -15,11 +16,16 @@ import edu.ucsb.cs156.organic.entities.UserEmail;
 import edu.ucsb.cs156.organic.models.CurrentUser;
 import edu.ucsb.cs156.organic.repositories.UserEmailRepository;
 import edu.ucsb.cs156.organic.repositories.UserRepository;
+import edu.ucsb.cs156.organic.services.CourseCatalogCache;
+import edu.ucsb.cs156.organic.services.CurrentUserRequestMemo;
+import edu.ucsb.cs156.organic.services.LastOnlineBuffer;
 import edu.ucsb.cs156.organic.testconfig.TestConfig;
 import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
 
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -43,11 +49,20 @@ import java.util.List;
 @AutoConfigureDataJpa
 public class UserInfoControllerTests extends ControllerTestCase {
   @Captor
-  ArgumentCaptor<User> userCaptor;
+  ArgumentCaptor<Timestamp> timestampCaptor;
 
   @MockBean
   UserRepository userRepository;
 
+  @MockBean
+  LastOnlineBuffer lastOnlineBuffer;
+
+  @MockBean
+  CourseCatalogCache courseCatalogCache;
+
+  @Autowired
+  CurrentUserRequestMemo currentUserRequestMemo;
+
   @Test
   public void currentUser__last_online__logged_out() throws Exception {
     mockMvc.perform(post("/api/currentUser/last-online"))
@@ -74,6 +89,19 @@ public class UserInfoControllerTests extends ControllerTestCase {
     assertEquals(expectedJson, responseString);
   }
 
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void currentUser__is_resolved_once_per_request() throws Exception {
+    long currentUsersBefore = currentUserRequestMemo.getResolutions("currentUser");
+    long rolesBefore = currentUserRequestMemo.getResolutions("roles");
+
+    mockMvc.perform(get("/api/currentUser"))
+        .andExpect(status().isOk());
+
+    assertEquals(1, currentUserRequestMemo.getResolutions("currentUser") - currentUsersBefore);
+    assertEquals(1, currentUserRequestMemo.getResolutions("roles") - rolesBefore);
+  }
+
   @WithMockUser(roles = { "USER" })
   @Test
   public void currentUser__update_last_online() throws Exception {
@@ -85,13 +113,15 @@ public class UserInfoControllerTests extends ControllerTestCase {
 
     assertFalse(response.getResponse().getContentAsString().isEmpty());
 
-    verify(userRepository).save(userCaptor.capture());
-    User savedUser = userCaptor.getValue();
+    verify(lastOnlineBuffer).record(eq(currentUser.getUser().getGithubId()), timestampCaptor.capture());
+    verify(userRepository, never()).save(any());
+    Timestamp recorded = timestampCaptor.getValue();
 
-    assertTrue(savedUser.getLastOnline().getTime() > beforeUpdate.getTime(),
+    assertTrue(recorded.getTime() > beforeUpdate.getTime(),
     String.format(
-        "Expected savedUser.getLastOnline() to be after beforeUpdate, but was %s, beforeUpdate was %s",
-        savedUser.getLastOnline(), beforeUpdate));
+        "Expected recorded last online to be after beforeUpdate, but was %s, beforeUpdate was %s",
+        recorded, beforeUpdate));
+    assertEquals(mapper.writeValueAsString(recorded), response.getResponse().getContentAsString());
 }
 
   @WithMockUser(roles = { "USER" })
@@ -144,7 +174,7 @@ public class UserInfoControllerTests extends ControllerTestCase {
      ArrayList<Course> expectedCourses = new ArrayList<>();
      expectedCourses.addAll(Arrays.asList(course1, course2));
 
-    when(userRepository.findCoursesStaffedByUser(eq(user.getGithubId()))).thenReturn(expectedCourses);
+    when(courseCatalogCache.staffedCourses(eq(user.getGithubId()))).thenReturn(expectedCourses);
 
     // Act
     MvcResult response = mockMvc.perform(get("/api/currentUser/staffedCourses").with(csrf()))
@@ -10,6 +10,8 @@ import org.springframework.test.web.servlet.MvcResult;
 import edu.ucsb.cs156.organic.entities.User;
 import edu.ucsb.cs156.organic.repositories.UserEmailRepository;
 import edu.ucsb.cs156.organic.repositories.UserRepository;
+import edu.ucsb.cs156.organic.services.CurrentUserCache;
+import edu.ucsb.cs156.organic.services.UserRoleCache;
 import edu.ucsb.cs156.organic.testconfig.TestConfig;
 
 import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
@@ -39,6 +41,12 @@ public class UsersControllerTests extends ControllerTestCase {
   @MockBean
   UserEmailRepository userEmailRepository;
 
+  @MockBean
+  CurrentUserCache currentUserCache;
+
+  @MockBean
+  UserRoleCache userRoleCache;
+
   @WithMockUser(roles = { "ADMIN" })
   @Test
   public void users__admin_logged_in() throws Exception {
@@ -96,6 +104,8 @@ public class UsersControllerTests extends ControllerTestCase {
     // assert
     verify(userRepository, times(1)).findByGithubId(1);
     verify(userRepository, times(1)).save(u1Toggled);
+    verify(currentUserCache, times(1)).invalidateUser(1);
+    verify(userRoleCache, times(1)).invalidate(1);
     Map<String, Object> json = responseToJson(response);
     assertEquals("User with githubId 1 has toggled instructor status to true", json.get("message"));
   }
@@ -129,6 +139,8 @@ public class UsersControllerTests extends ControllerTestCase {
           // assert
           verify(userRepository, times(1)).findByGithubId(15);
           verify(userRepository, times(1)).save(userAfter);
+          verify(currentUserCache, times(1)).invalidateUser(15);
+          verify(userRoleCache, times(1)).invalidate(15);
 
           Map<String, Object> json = responseToJson(response);
           assertEquals("User with githubId 15 has toggled admin status to true", json.get("message"));
@@ -163,6 +175,8 @@ public class UsersControllerTests extends ControllerTestCase {
     // assert
     verify(userRepository, times(1)).findByGithubId(1);
     verify(userRepository, times(1)).save(u1Toggled);
+    verify(currentUserCache, times(1)).invalidateUser(1);
+    verify(userRoleCache, times(1)).invalidate(1);
     Map<String, Object> json = responseToJson(response);
     assertEquals("User with githubId 1 has toggled instructor status to false", json.get("message"));
   }
@@ -196,6 +210,8 @@ public class UsersControllerTests extends ControllerTestCase {
           // assert
           verify(userRepository, times(1)).findByGithubId(15);
           verify(userRepository, times(1)).save(userAfter);
+          verify(currentUserCache, times(1)).invalidateUser(15);
+          verify(userRoleCache, times(1)).invalidate(15);
 
           Map<String, Object> json = responseToJson(response);
           assertEquals("User with githubId 15 has toggled admin status to false", json.get("message"));
@@ -19,6 +19,7 @@ import edu.ucsb.cs156.organic.entities.User;
 import edu.ucsb.cs156.organic.interceptors.RoleUserInterceptor;
 import edu.ucsb.cs156.organic.controllers.ControllerTestCase;
 import edu.ucsb.cs156.organic.repositories.UserRepository;
+import edu.ucsb.cs156.organic.services.UserRoleCache;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -40,6 +41,7 @@ import static org.mockito.Mockito.times;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -51,8 +53,13 @@ public class RoleUserInterceptorTests extends ControllerTestCase{
     @Autowired
     private RequestMappingHandlerMapping mapping;
 
+    @Autowired
+    UserRoleCache userRoleCache;
+
     @BeforeEach
     public void setupSecurityContext(){
+        userRoleCache.invalidateAll();
+
         Map<String, Object> attributes = new HashMap<>();
         attributes.put("id", 1);
         attributes.put("email", "gauchoMock@ucsb.edu");
@@ -194,4 +201,60 @@ public class RoleUserInterceptorTests extends ControllerTestCase{
         assertTrue(hasAdminRole, "ROLE_ADMIN should exist in authorities");
         assertFalse(hasInstructorRole, "ROLE_INSTRUCTOR should be removed from authorities");
     }
+
+    private void runInterceptor() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/currentUser");
+        HandlerExecutionChain chain = mapping.getHandler(request);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assert chain != null;
+        Optional<HandlerInterceptor> roleRuleInterceptor = chain.getInterceptorList()
+                        .stream()
+                        .filter(RoleUserInterceptor.class::isInstance)
+                        .findAny();
+
+        assertTrue(roleRuleInterceptor.isPresent());
+        roleRuleInterceptor.get().preHandle(request, response, chain.getHandler());
+    }
+
+    @Test
+    public void interceptor_keeps_authentication_when_roles_unchanged_and_uses_cache() throws Exception {
+        // Set up
+        User mockUser = User.builder()
+            .githubId(1)
+            .githubLogin("gaucho123")
+            .admin(true)
+            .instructor(true)
+            .build();
+        when(userRepository.findByGithubId(1)).thenReturn(Optional.of(mockUser));
+        Authentication before = SecurityContextHolder.getContext().getAuthentication();
+
+        // Act
+        runInterceptor();
+        runInterceptor();
+
+        // Assert
+        assertSame(before, SecurityContextHolder.getContext().getAuthentication());
+        verify(userRepository, times(1)).findByGithubId(1);
+    }
+
+    @Test
+    public void interceptor_reloads_roles_after_invalidate() throws Exception {
+        // Set up
+        User admin = User.builder().githubId(1).admin(true).instructor(true).build();
+        User notAdmin = User.builder().githubId(1).admin(false).instructor(true).build();
+        when(userRepository.findByGithubId(1)).thenReturn(Optional.of(admin));
+
+        // Act
+        runInterceptor();
+        when(userRepository.findByGithubId(1)).thenReturn(Optional.of(notAdmin));
+        userRoleCache.invalidate(1);
+        runInterceptor();
+
+        // Assert
+        Collection<? extends GrantedAuthority> updatedAuthorities = SecurityContextHolder.getContext().getAuthentication().getAuthorities();
+        verify(userRepository, times(2)).findByGithubId(1);
+        boolean hasAdminRole = updatedAuthorities.stream().anyMatch(authority -> authority.getAuthority().equals("ROLE_ADMIN"));
+        assertFalse(hasAdminRole, "ROLE_ADMIN should be removed from authorities");
+    }
 }
@@ -0,0 +1,145 @@
+package edu.ucsb.cs156.organic.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.organic.entities.User;
+import edu.ucsb.cs156.organic.entities.jobs.Job;
+import edu.ucsb.cs156.organic.models.UserSyncResult;
+import edu.ucsb.cs156.organic.repositories.UserRepository;
+import edu.ucsb.cs156.organic.repositories.jobs.JobsRepository;
+import edu.ucsb.cs156.organic.services.GithubUserSyncService;
+import edu.ucsb.cs156.organic.services.jobs.JobContext;
+
+@ExtendWith(SpringExtension.class)
+public class GithubUserSyncJobTests {
+
+    @MockBean
+    UserRepository userRepository;
+
+    @MockBean
+    GithubUserSyncService githubUserSyncService;
+
+    @MockBean
+    JobsRepository jobsRepository;
+
+
+    Timestamp activeSince = new Timestamp(0);
+
+    User user1 = User.builder().githubId(1).build();
+    User user2 = User.builder().githubId(2).build();
+    User user3 = User.builder().githubId(3).build();
+
+    @Test
+    public void syncs_every_active_user_in_batches_and_logs_progress() throws Exception {
+        // arrange
+        // each batch starts after the last githubId of the one before
+        PageRequest batch = PageRequest.of(0, 2, Sort.by("githubId"));
+        when(userRepository.findByLastOnlineAfterAndGithubIdGreaterThan(eq(activeSince), eq(0), eq(batch)))
+                .thenReturn(List.of(user1, user2));
+        when(userRepository.findByLastOnlineAfterAndGithubIdGreaterThan(eq(activeSince), eq(2), eq(batch)))
+                .thenReturn(List.of(user3));
+        when(githubUserSyncService.syncUser(user1))
+                .thenReturn(UserSyncResult.builder().synced(true).rowsWritten(3).build());
+        when(githubUserSyncService.syncUser(user2)).thenReturn(UserSyncResult.failed());
+        when(githubUserSyncService.syncUser(user3))
+                .thenReturn(UserSyncResult.builder().synced(true).rowsWritten(1).build());
+
+        Job job = Job.builder().build();
+        JobContext ctx = new JobContext(jobsRepository, job);
+
+        GithubUserSyncJob syncJob = GithubUserSyncJob.builder()
+                .userRepository(userRepository)
+                .githubUserSyncService(githubUserSyncService)
+                .activeSince(activeSince)
+                .batchSize(2)
+                .delayMs(0)
+                .build();
+
+        // act
+        syncJob.accept(ctx);
+
+        // assert
+        String expected = """
+                Syncing users active since 1970-01-01 00:00:00.0 from github
+                Batch 1: synced 1 of 2 users
+                Batch 2: synced 1 of 1 users
+                Github sync complete: 2 synced, 1 failed, 4 rows written""".replace("1970-01-01 00:00:00.0", activeSince.toString());
+        assertEquals(expected, job.getLog());
+        verify(githubUserSyncService, times(3)).syncUser(any());
+    }
+
+    @Test
+    public void no_active_users_means_no_batches() throws Exception {
+        // arrange
+        PageRequest batch = PageRequest.of(0, 10, Sort.by("githubId"));
+        when(userRepository.findByLastOnlineAfterAndGithubIdGreaterThan(eq(activeSince), eq(0), eq(batch)))
+                .thenReturn(List.of());
+
+        Job job = Job.builder().build();
+        JobContext ctx = new JobContext(jobsRepository, job);
+
+        GithubUserSyncJob syncJob = GithubUserSyncJob.builder()
+                .userRepository(userRepository)
+                .githubUserSyncService(githubUserSyncService)
+                .activeSince(activeSince)
+                .batchSize(10)
+                .delayMs(0)
+                .build();
+
+        // act
+        syncJob.accept(ctx);
+
+        // assert
+        String expected = "Syncing users active since %s from github\nGithub sync complete: 0 synced, 0 failed, 0 rows written"
+                .formatted(activeSince);
+        assertEquals(expected, job.getLog());
+    }
+
+    @Test
+    public void users_deferred_by_the_github_governor_are_reported_separately() throws Exception {
+        // arrange
+        PageRequest batch = PageRequest.of(0, 10, Sort.by("githubId"));
+        when(userRepository.findByLastOnlineAfterAndGithubIdGreaterThan(eq(activeSince), eq(0), eq(batch)))
+                .thenReturn(List.of(user1, user2));
+        when(githubUserSyncService.syncUser(user1))
+                .thenReturn(UserSyncResult.builder().synced(true).rowsWritten(1).build());
+        when(githubUserSyncService.syncUser(user2)).thenReturn(UserSyncResult.deferred());
+
+        Job job = Job.builder().build();
+        JobContext ctx = new JobContext(jobsRepository, job);
+
+        GithubUserSyncJob syncJob = GithubUserSyncJob.builder()
+                .userRepository(userRepository)
+                .githubUserSyncService(githubUserSyncService)
+                .activeSince(activeSince)
+                .batchSize(10)
+                .delayMs(0)
+                .build();
+
+        // act
+        syncJob.accept(ctx);
+
+        // assert
+        String expected = """
+                Syncing users active since %s from github
+                Batch 1: synced 1 of 2 users
+                Github sync complete: 1 synced, 0 failed, 1 rows written, 1 deferred until github is available"""
+                .formatted(activeSince);
+        assertEquals(expected, job.getLog());
+    }
+}
@@ -0,0 +1,120 @@
+package edu.ucsb.cs156.organic.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import edu.ucsb.cs156.organic.entities.jobs.Job;
+import edu.ucsb.cs156.organic.models.RosterImportResult;
+import edu.ucsb.cs156.organic.repositories.jobs.JobsRepository;
+import edu.ucsb.cs156.organic.services.RosterImportService;
+import edu.ucsb.cs156.organic.services.jobs.JobContext;
+
+@ExtendWith(SpringExtension.class)
+public class RosterImportJobTests {
+
+    @MockBean
+    RosterImportService rosterImportService;
+
+    @MockBean
+    JobsRepository jobsRepository;
+
+    Course course = Course.builder().id(7L).name("CS156").build();
+
+    Path upload;
+    Job job;
+    JobContext ctx;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        upload = Files.createTempFile("egrades-", ".csv");
+        job = Job.builder().build();
+        ctx = new JobContext(jobsRepository, job);
+    }
+
+    private RosterImportJob importJob() {
+        return RosterImportJob.builder()
+                .rosterImportService(rosterImportService)
+                .course(course)
+                .filename("egrades.csv")
+                .sha256("abc123")
+                .upload(upload)
+                .progressEveryRows(1000)
+                .build();
+    }
+
+    private static RosterImportResult counts(int inserted, int updated, int unchanged) {
+        return RosterImportResult.builder().inserted(inserted).updated(updated).unchanged(unchanged).build();
+    }
+
+    @Test
+    public void progress_is_logged_every_progressEveryRows_rows_and_the_upload_deleted() throws Exception {
+        // arrange: chunks of 400 rows
+        when(rosterImportService.importUpload(eq(course), eq("egrades.csv"), eq("abc123"), any(Reader.class), any()))
+                .thenAnswer(invocation -> {
+                    Consumer<RosterImportResult> progress = invocation.getArgument(4);
+                    progress.accept(counts(400, 0, 0));
+                    progress.accept(counts(700, 100, 0));
+                    progress.accept(counts(1000, 100, 100));
+                    progress.accept(counts(1300, 100, 200));
+                    progress.accept(counts(1500, 200, 300));
+                    progress.accept(counts(1600, 200, 300));
+                    return RosterImportResult.builder().inserted(1600).updated(200).unchanged(300).chunks(6)
+                            .importMillis(42).build();
+                });
+
+        // act
+        importJob().accept(ctx);
+
+        // assert
+        String expected = """
+                Importing egrades roster egrades.csv into course 7
+                Processed 1200 rows: 1000 inserted, 100 updated
+                Processed 2000 rows: 1500 inserted, 200 updated
+                Roster import complete: 2100 rows, 1600 inserted, 200 updated, 300 unchanged in 42 ms""";
+        assertEquals(expected, job.getLog());
+        assertFalse(Files.exists(upload));
+    }
+
+    @Test
+    public void the_upload_is_deleted_when_the_import_fails() throws Exception {
+        when(rosterImportService.importUpload(eq(course), eq("egrades.csv"), eq("abc123"), any(Reader.class), any()))
+                .thenThrow(new IOException("bad roster"));
+
+        assertThrows(IOException.class, () -> importJob().accept(ctx));
+
+        assertEquals("Importing egrades roster egrades.csv into course 7", job.getLog());
+        assertFalse(Files.exists(upload));
+    }
+
+    @Test
+    public void a_roster_already_imported_is_logged_as_such() throws Exception {
+        when(rosterImportService.importUpload(eq(course), eq("egrades.csv"), eq("abc123"), any(Reader.class), any()))
+                .thenReturn(RosterImportResult.builder().inserted(30).updated(2).unchanged(1).alreadyImported(true)
+                        .build());
+
+        importJob().accept(ctx);
+
+        String expected = """
+                Importing egrades roster egrades.csv into course 7
+                This is the roster last imported into the course, so nothing was imported: it had 30 inserted, 2 updated, 1 unchanged""";
+        assertEquals(expected, job.getLog());
+        assertFalse(Files.exists(upload));
+    }
+}
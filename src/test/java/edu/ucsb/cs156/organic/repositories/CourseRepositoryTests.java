@@ -0,0 +1,120 @@
+package edu.ucsb.cs156.organic.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import edu.ucsb.cs156.organic.entities.Staff;
+import edu.ucsb.cs156.organic.models.CourseFilter;
+
+@DataJpaTest
+public class CourseRepositoryTests {
+
+  @Autowired
+  CourseRepository courseRepository;
+
+  @Autowired
+  StaffRepository staffRepository;
+
+  @Autowired
+  TestEntityManager entityManager;
+
+  Course f23a;
+  Course f23b;
+  Course w24;
+  Course ucla;
+
+  private Course save(String name, String school, String term, String start, String end) {
+    return courseRepository.save(Course.builder()
+        .name(name)
+        .school(school)
+        .term(term)
+        .startDate(LocalDateTime.parse(start))
+        .endDate(LocalDateTime.parse(end))
+        .build());
+  }
+
+  @BeforeEach
+  public void setup() {
+    f23a = save("CS156", "UCSB", "F23", "2023-09-25T00:00:00", "2023-12-15T00:00:00");
+    w24 = save("CS148", "UCSB", "W24", "2024-01-08T00:00:00", "2024-03-22T00:00:00");
+    ucla = save("CS35L", "UCLA", "F23", "2023-09-28T00:00:00", "2023-12-08T00:00:00");
+    f23b = save("CS130A", "UCSB", "F23", "2023-09-25T00:00:00", "2023-12-15T00:00:00");
+  }
+
+  private List<Long> ids(List<Course> courses) {
+    return courses.stream().map(Course::getId).toList();
+  }
+
+  @Test
+  public void pages_are_seeked_by_id() {
+    CourseFilter all = CourseFilter.builder().build();
+
+    List<Course> first = courseRepository.findPage(all, null, 2);
+    List<Course> second = courseRepository.findPage(all, first.get(1).getId(), 2);
+    List<Course> third = courseRepository.findPage(all, second.get(1).getId(), 2);
+
+    assertEquals(List.of(f23a.getId(), w24.getId()), ids(first));
+    assertEquals(List.of(ucla.getId(), f23b.getId()), ids(second));
+    assertEquals(List.of(), third);
+  }
+
+  @Test
+  public void school_and_term_filters_are_applied() {
+    CourseFilter filter = CourseFilter.builder().school("UCSB").term("F23").build();
+
+    assertEquals(List.of(f23a.getId(), f23b.getId()), ids(courseRepository.findPage(filter, null, 10)));
+    assertEquals(List.of(f23b.getId()), ids(courseRepository.findPage(filter, f23a.getId(), 10)));
+  }
+
+  @Test
+  public void date_range_matches_courses_running_during_it() {
+    CourseFilter winter = CourseFilter.builder()
+        .from(LocalDateTime.parse("2024-01-01T00:00:00"))
+        .to(LocalDateTime.parse("2024-02-01T00:00:00"))
+        .build();
+    CourseFilter lateFall = CourseFilter.builder()
+        .from(LocalDateTime.parse("2023-12-10T00:00:00"))
+        .to(LocalDateTime.parse("2023-12-31T00:00:00"))
+        .build();
+
+    assertEquals(List.of(w24.getId()), ids(courseRepository.findPage(winter, null, 10)));
+    assertEquals(List.of(f23a.getId(), f23b.getId()), ids(courseRepository.findPage(lateFall, null, 10)));
+  }
+
+  @Test
+  public void ids_restrict_the_page() {
+    CourseFilter filter = CourseFilter.builder().ids(List.of(ucla.getId(), f23a.getId())).build();
+
+    assertEquals(List.of(f23a.getId(), ucla.getId()), ids(courseRepository.findPage(filter, null, 10)));
+  }
+
+  @Test
+  public void the_same_user_cannot_be_staff_twice_for_a_course() {
+    staffRepository.save(Staff.builder().courseId(w24.getId()).githubId(1).build());
+
+    assertThrows(DataIntegrityViolationException.class,
+        () -> staffRepository.save(Staff.builder().courseId(w24.getId()).githubId(1).build()));
+  }
+
+  @Test
+  public void version_is_bumped_on_every_update() {
+    assertEquals(0, f23a.getVersion());
+
+    f23a.setName("CS156 (renamed)");
+    courseRepository.save(f23a);
+    entityManager.flush();
+
+    assertEquals(1, f23a.getVersion());
+  }
+}
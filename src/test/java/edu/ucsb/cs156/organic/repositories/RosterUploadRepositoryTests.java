@@ -0,0 +1,64 @@
+package edu.ucsb.cs156.organic.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Timestamp;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import edu.ucsb.cs156.organic.entities.RosterUpload;
+
+@DataJpaTest
+public class RosterUploadRepositoryTests {
+
+  @Autowired
+  RosterUploadRepository rosterUploadRepository;
+
+  @Autowired
+  CourseRepository courseRepository;
+
+  @Autowired
+  TestEntityManager entityManager;
+
+  Course cs156;
+  Course cs148;
+
+  @BeforeEach
+  public void setup() {
+    cs156 = courseRepository.save(Course.builder().name("CS156").school("UCSB").term("F23").build());
+    cs148 = courseRepository.save(Course.builder().name("CS148").school("UCSB").term("S24").build());
+    entityManager.flush();
+  }
+
+  private RosterUpload upload(Course course, String sha256, int inserted) {
+    return RosterUpload.builder()
+        .courseId(course.getId())
+        .sha256(sha256)
+        .filename(sha256 + ".csv")
+        .inserted(inserted)
+        .uploadedAt(new Timestamp(1000L * inserted))
+        .build();
+  }
+
+  @Test
+  public void upsert_inserts_the_first_upload_and_replaces_it_after() {
+    rosterUploadRepository.upsert(upload(cs156, "abc123", 3));
+    rosterUploadRepository.upsert(upload(cs148, "fed987", 1));
+    // e.g. a second first upload that was imported at the same time
+    rosterUploadRepository.upsert(upload(cs156, "def456", 5));
+    entityManager.clear();
+
+    assertEquals(2, rosterUploadRepository.count());
+    RosterUpload last = rosterUploadRepository.findByCourseId(cs156.getId()).get();
+    assertEquals("def456", last.getSha256());
+    assertEquals("def456.csv", last.getFilename());
+    assertEquals(5, last.getInserted());
+    assertEquals(new Timestamp(5000), last.getUploadedAt());
+    assertEquals("fed987", rosterUploadRepository.findByCourseId(cs148.getId()).get().getSha256());
+  }
+}
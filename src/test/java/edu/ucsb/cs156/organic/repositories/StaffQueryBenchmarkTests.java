@@ -0,0 +1,165 @@
+package edu.ucsb.cs156.organic.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads 100k staff rows into the schema built by the Liquibase changelog,
+ * then logs the query plan and per-query time of the statement that
+ * StaffRepository.findByGithubId sends (the lookup StaffAuthorizationIndex
+ * fills itself with), first without and then with the STAFF(GITHUB_ID,
+ * COURSE_ID) index from changeset 0009.  The statement is the one Hibernate
+ * actually generates, captured as it is sent.
+ *
+ * Not part of the normal build; run with
+ *
+ *   mvn test -Dtest=StaffQueryBenchmarkTests -Dbenchmark=true
+ *
+ * against the in-memory H2 test database, or add
+ * -Dspring.test.database.replace=none
+ * -Dspring.datasource.url=jdbc:postgresql://localhost:5432/organic
+ * -Dspring.datasource.username=... -Dspring.datasource.password=... to run
+ * it against a local postgres.  The courses and staff it adds are deleted
+ * again at the end.
+ */
+@Slf4j
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+    + "edu.ucsb.cs156.organic.repositories.StaffQueryBenchmarkTests$CapturedStatements")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+// the index is dropped and created again, which needs its own statements
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class StaffQueryBenchmarkTests {
+
+  static final int COURSES = 10_000;
+  static final int STAFF = 100_000;
+  static final int USERS = 20_000;
+  static final int RUNS = 200;
+  // well clear of the github ids used by other tests
+  static final int FIRST_GITHUB_ID = 1_000_000;
+
+  static final String INDEX = "STAFF_GITHUB_ID_COURSE_ID_INDEX";
+
+  public static class CapturedStatements implements StatementInspector {
+    static final List<String> sql = new ArrayList<>();
+
+    @Override
+    public String inspect(String statement) {
+      synchronized (sql) {
+        sql.add(statement);
+      }
+      return statement;
+    }
+  }
+
+  @Autowired
+  StaffRepository staffRepository;
+
+  @Autowired
+  CourseRepository courseRepository;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Test
+  public void findByGithubId_uses_the_github_id_index() {
+    List<Long> courseIds = load();
+    try {
+      int githubId = FIRST_GITHUB_ID + USERS / 2;
+      String sql = findByGithubIdSql(githubId);
+
+      jdbcTemplate.execute("DROP INDEX " + INDEX);
+      String before;
+      try {
+        jdbcTemplate.execute("ANALYZE");
+        before = explain(sql);
+        log.info("findByGithubId, no staff github_id index:\n{}\n{} us/query", before, time());
+      } finally {
+        jdbcTemplate.execute("CREATE INDEX " + INDEX + " ON STAFF (GITHUB_ID, COURSE_ID)");
+        jdbcTemplate.execute("ANALYZE");
+      }
+      String after = explain(sql);
+      log.info("findByGithubId, with {}:\n{}\n{} us/query", INDEX, after, time());
+
+      assertEquals(STAFF / USERS, count(githubId));
+      assertTrue(after.toUpperCase().contains(INDEX), after);
+    } finally {
+      jdbcTemplate.update("DELETE FROM STAFF WHERE GITHUB_ID >= ?", FIRST_GITHUB_ID);
+      jdbcTemplate.batchUpdate("DELETE FROM COURSES WHERE ID = ?",
+          courseIds.stream().map(id -> new Object[] { id }).toList());
+    }
+  }
+
+  /**
+   * @return the ids of the COURSES courses made for the benchmark, every
+   *         one of USERS github ids being staff for STAFF / USERS of them
+   */
+  private List<Long> load() {
+    List<Course> courses = new ArrayList<>(COURSES);
+    for (int i = 0; i < COURSES; i++) {
+      courses.add(Course.builder().name("benchmark " + i).school("UCSB").term("F23").build());
+    }
+    List<Long> courseIds = StreamSupport.stream(courseRepository.saveAll(courses).spliterator(), false)
+        .map(Course::getId).toList();
+
+    List<Object[]> staff = new ArrayList<>(STAFF);
+    for (int i = 0; i < STAFF; i++) {
+      int user = i % USERS;
+      int nth = i / USERS;
+      staff.add(new Object[] { courseIds.get((user * 13 + nth * 2003) % COURSES), FIRST_GITHUB_ID + user });
+    }
+    jdbcTemplate.batchUpdate("INSERT INTO STAFF (COURSE_ID, GITHUB_ID) VALUES (?, ?)", staff);
+    jdbcTemplate.execute("ANALYZE");
+    return courseIds;
+  }
+
+  private int count(int githubId) {
+    return (int) StreamSupport.stream(staffRepository.findByGithubId(githubId).spliterator(), false).count();
+  }
+
+  /**
+   * @return the statement findByGithubId sends for the staff rows, with
+   *         the github id filled in
+   */
+  private String findByGithubIdSql(int githubId) {
+    synchronized (CapturedStatements.sql) {
+      CapturedStatements.sql.clear();
+    }
+    count(githubId);
+    synchronized (CapturedStatements.sql) {
+      String sql = CapturedStatements.sql.stream()
+          .filter(statement -> statement.toLowerCase().contains("from staff"))
+          .findFirst()
+          .orElseThrow();
+      log.info("findByGithubId sends: {}", sql);
+      return sql.replace("?", Integer.toString(githubId));
+    }
+  }
+
+  private String explain(String sql) {
+    return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+  }
+
+  private long time() {
+    long start = System.nanoTime();
+    for (int run = 0; run < RUNS; run++) {
+      count(FIRST_GITHUB_ID + run * 97 % USERS);
+    }
+    return (System.nanoTime() - start) / 1000 / RUNS;
+  }
+}
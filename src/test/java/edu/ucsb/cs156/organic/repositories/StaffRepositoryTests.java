@@ -0,0 +1,107 @@
+package edu.ucsb.cs156.organic.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import edu.ucsb.cs156.organic.entities.Staff;
+import edu.ucsb.cs156.organic.entities.User;
+import edu.ucsb.cs156.organic.entities.UserEmail;
+import edu.ucsb.cs156.organic.models.CourseRowCount;
+import edu.ucsb.cs156.organic.models.StaffSummary;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class StaffRepositoryTests {
+
+  static final int STAFF = 5;
+
+  @Autowired
+  StaffRepository staffRepository;
+
+  @Autowired
+  CourseRepository courseRepository;
+
+  @Autowired
+  TestEntityManager entityManager;
+
+  Statistics statistics;
+  Course course;
+
+  @BeforeEach
+  public void setup() {
+    course = courseRepository.save(Course.builder().name("CS156").school("UCSB").term("F23").build());
+    for (int i = 1; i <= STAFF; i++) {
+      User user = entityManager.persist(User.builder()
+          .githubId(i)
+          .githubLogin("login" + i)
+          .fullName("Name " + i)
+          .pictureUrl("https://example.org/" + i + ".png")
+          .build());
+      entityManager.persist(UserEmail.builder().email("a" + i + "@ucsb.edu").user(user).build());
+      entityManager.persist(UserEmail.builder().email("b" + i + "@ucsb.edu").user(user).build());
+      staffRepository.save(Staff.builder().courseId(course.getId()).githubId(i).build());
+    }
+    // a staff member without a users row yet
+    staffRepository.save(Staff.builder().courseId(course.getId()).githubId(99).build());
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics = entityManager.getEntityManager().getEntityManagerFactory()
+        .unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  public void staff_summaries_take_one_statement() {
+    List<StaffSummary> summaries = new ArrayList<>();
+    staffRepository.findSummariesByCourseId(course.getId()).forEach(summaries::add);
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(STAFF + 1, summaries.size());
+    StaffSummary first = summaries.get(0);
+    assertEquals(course.getId(), first.getCourseId());
+    assertEquals(1, first.getGithubId());
+    assertEquals("login1", first.getGithubLogin());
+    assertEquals("Name 1", first.getFullName());
+    assertEquals("https://example.org/1.png", first.getPictureUrl());
+    assertNull(summaries.get(STAFF).getGithubLogin());
+  }
+
+  @Test
+  public void staff_are_counted_per_course_in_one_statement() {
+    Course other = courseRepository.save(Course.builder().name("CS148").school("UCSB").term("S24").build());
+    staffRepository.save(Staff.builder().courseId(other.getId()).githubId(1).build());
+    Course empty = courseRepository.save(Course.builder().name("CS8").school("UCSB").term("S24").build());
+    entityManager.flush();
+    statistics.clear();
+
+    List<CourseRowCount> counts = staffRepository.countPerCourse(List.of(course.getId(), empty.getId()));
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(List.of(new CourseRowCount(course.getId(), STAFF + 1, STAFF + 1)), counts);
+    assertEquals(2, staffRepository.countPerCourse().size());
+  }
+
+  @Test
+  public void loading_staff_entities_takes_a_statement_per_user() {
+    // what GET /api/courses/getStaff used to do
+    List<Staff> staff = new ArrayList<>();
+    staffRepository.findByCourseId(course.getId()).forEach(staff::add);
+
+    assertEquals(STAFF + 1, staff.size());
+    assertTrue(statistics.getPrepareStatementCount() > STAFF,
+        "expected one statement per user, got " + statistics.getPrepareStatementCount());
+  }
+}
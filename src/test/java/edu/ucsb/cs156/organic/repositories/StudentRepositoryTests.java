@@ -0,0 +1,134 @@
+package edu.ucsb.cs156.organic.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Comparator;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import edu.ucsb.cs156.organic.entities.Student;
+import edu.ucsb.cs156.organic.entities.User;
+import edu.ucsb.cs156.organic.models.CourseRowCount;
+import edu.ucsb.cs156.organic.models.RosterStudent;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class StudentRepositoryTests {
+
+  @Autowired
+  StudentRepository studentRepository;
+
+  @Autowired
+  CourseRepository courseRepository;
+
+  @Autowired
+  TestEntityManager entityManager;
+
+  Statistics statistics;
+  Course cs156;
+  Course cs148;
+  Course cs8;
+
+  @BeforeEach
+  public void setup() {
+    cs156 = courseRepository.save(Course.builder().name("CS156").school("UCSB").term("F23").build());
+    cs148 = courseRepository.save(Course.builder().name("CS148").school("UCSB").term("S24").build());
+    cs8 = courseRepository.save(Course.builder().name("CS8").school("UCSB").term("S24").build());
+    for (int i = 1; i <= 40; i++) {
+      if (i % 3 == 0) {
+        entityManager.persist(User.builder().githubId(i).githubLogin("login" + i).build());
+      }
+      studentRepository.save(Student.builder()
+          .courseId(i % 4 == 0 ? cs148.getId() : cs156.getId())
+          .studentId("A" + i)
+          // every third student has linked their github account
+          .githubId(i % 3 == 0 ? i : null)
+          .build());
+    }
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics = entityManager.getEntityManager().getEntityManagerFactory()
+        .unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  private List<CourseRowCount> sorted(List<CourseRowCount> counts) {
+    return counts.stream().sorted(Comparator.comparing(CourseRowCount::getCourseId)).toList();
+  }
+
+  @Test
+  public void students_and_linked_accounts_are_counted_per_course_in_one_statement() {
+    List<CourseRowCount> counts = studentRepository.countPerCourse();
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(List.of(
+        new CourseRowCount(cs156.getId(), 30, 10),
+        new CourseRowCount(cs148.getId(), 10, 3)), sorted(counts));
+  }
+
+  @Test
+  public void counts_can_be_restricted_to_some_courses() {
+    List<CourseRowCount> counts = studentRepository.countPerCourse(List.of(cs148.getId(), cs8.getId()));
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(List.of(new CourseRowCount(cs148.getId(), 10, 3)), counts);
+  }
+
+  @Test
+  public void the_roster_of_a_course_is_loaded_without_users() {
+    List<RosterStudent> roster = studentRepository.findRosterByCourseId(cs148.getId());
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(10, roster.size());
+    assertEquals(List.of("A12", "A4"), studentRepository
+        .findRosterByCourseIdAndStudentIdIn(cs148.getId(), List.of("A4", "A12", "A13")).stream()
+        .map(RosterStudent::getStudentId).sorted().toList());
+  }
+
+  @Test
+  public void students_are_inserted_or_updated_by_perm_number() {
+    Student ana = Student.builder().courseId(cs8.getId()).studentId("B1").fname("Ana").lname("Lee")
+        .email("ana@ucsb.edu").build();
+    Student bo = Student.builder().courseId(cs8.getId()).studentId("B2").fname("Bo").lname("Kim")
+        .email("bo@ucsb.edu").build();
+    assertEquals(2, studentRepository.upsertAll(List.of(ana, bo)));
+    long anaId = studentRepository.findRosterByCourseIdAndStudentIdIn(cs8.getId(), List.of("B1")).get(0).getId();
+
+    ana.setEmail("ana.lee@ucsb.edu");
+    Student cy = Student.builder().courseId(cs8.getId()).studentId("B3").fname("Cy").lname("Ng")
+        .email("cy@ucsb.edu").build();
+    assertEquals(2, studentRepository.upsertAll(List.of(ana, cy)));
+
+    List<RosterStudent> roster = studentRepository.findRosterByCourseId(cs8.getId()).stream()
+        .sorted(Comparator.comparing(RosterStudent::getStudentId)).toList();
+    assertEquals(List.of("B1", "B2", "B3"), roster.stream().map(RosterStudent::getStudentId).toList());
+    assertEquals(new RosterStudent(anaId, "B1", "Ana", "Lee", "ana.lee@ucsb.edu"), roster.get(0));
+    assertEquals(0, studentRepository.upsertAll(List.of()));
+  }
+
+  @Test
+  public void upserts_leave_github_ids_alone() {
+    Student linked = Student.builder().courseId(cs156.getId()).studentId("A3").fname("New").build();
+    studentRepository.upsertAll(List.of(linked));
+
+    Student student = studentRepository.findByCourseIdAndStudentId(cs156.getId(), "A3").get();
+    assertEquals("New", student.getFname());
+    assertEquals(3, student.getGithubId());
+  }
+
+  @Test
+  public void a_perm_number_can_only_be_in_a_course_once() {
+    assertThrows(DataIntegrityViolationException.class, () -> studentRepository.save(
+        Student.builder().courseId(cs156.getId()).studentId("A1").build()));
+  }
+}
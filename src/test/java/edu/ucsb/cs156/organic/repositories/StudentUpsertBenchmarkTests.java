@@ -0,0 +1,121 @@
+package edu.ucsb.cs156.organic.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import edu.ucsb.cs156.organic.entities.Student;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes rosters of 10k, 100k and 1M students twice (all inserts, then all
+ * updates) with the per-row upsert egrades uploads used to do (find the
+ * student by perm number, then save it) and with upsertAll in chunks of
+ * 500, and logs how long each took.
+ *
+ * The per-row path is only run up to 100k rows by default, since at 1M it
+ * takes far longer than the rest of the benchmark together.
+ *
+ * Not part of the normal build; run with
+ *
+ *   mvn test -Dtest=StudentUpsertBenchmarkTests -Dbenchmark=true
+ *
+ * and add e.g. -Dbenchmark.rows=10000,100000 or
+ * -Dbenchmark.perRowMaxRows=1000000 to change the sizes.  Each run uses
+ * courses of its own in the test database.
+ */
+@Slf4j
+@DataJpaTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+// every repository call in its own transaction, as in the controller
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class StudentUpsertBenchmarkTests {
+
+  static final int CHUNK = 500;
+
+  @Autowired
+  StudentRepository studentRepository;
+
+  @Autowired
+  CourseRepository courseRepository;
+
+  @Test
+  public void compare_per_row_upserts_to_upsertAll() {
+    int[] sizes = Arrays.stream(System.getProperty("benchmark.rows", "10000,100000,1000000").split(","))
+        .mapToInt(Integer::parseInt).toArray();
+    int perRowMaxRows = Integer.getInteger("benchmark.perRowMaxRows", 100_000);
+
+    for (int rows : sizes) {
+      if (rows <= perRowMaxRows) {
+        long courseId = course("per row " + rows);
+        log.info("{} rows, per row:   insert {} ms, update {} ms", rows,
+            time(courseId, rows, "", this::perRow), time(courseId, rows, "new.", this::perRow));
+        assertEquals(rows, studentRepository.findRosterByCourseId(courseId).size());
+      }
+
+      long courseId = course("upsertAll " + rows);
+      log.info("{} rows, upsertAll: insert {} ms, update {} ms", rows,
+          time(courseId, rows, "", this::chunked), time(courseId, rows, "new.", this::chunked));
+      assertEquals(rows, studentRepository.findRosterByCourseId(courseId).size());
+    }
+  }
+
+  private long course(String name) {
+    return courseRepository.save(Course.builder().name(name).school("UCSB").term("F23").build()).getId();
+  }
+
+  /**
+   * Write a roster of the given size, CHUNK students at a time (as
+   * RosterImportService reads them), and return how long it took.
+   */
+  private long time(long courseId, int rows, String emailPrefix, Consumer<List<Student>> write) {
+    long start = System.nanoTime();
+    List<Student> chunk = new ArrayList<>(CHUNK);
+    for (int i = 0; i < rows; i++) {
+      chunk.add(Student.builder()
+          .courseId(courseId)
+          .studentId("A%07d".formatted(i))
+          .fname("FIRST" + i)
+          .lname("LAST" + i)
+          .email(emailPrefix + "student%d@umail.ucsb.edu".formatted(i))
+          .build());
+      if (chunk.size() == CHUNK || i == rows - 1) {
+        write.accept(chunk);
+        chunk = new ArrayList<>(CHUNK);
+      }
+    }
+    return (System.nanoTime() - start) / 1_000_000;
+  }
+
+  private void perRow(List<Student> students) {
+    for (Student student : students) {
+      Optional<Student> existing = studentRepository.findByCourseIdAndStudentId(student.getCourseId(),
+          student.getStudentId());
+      if (existing.isPresent()) {
+        Student current = existing.get();
+        current.setFname(student.getFname());
+        current.setLname(student.getLname());
+        current.setEmail(student.getEmail());
+        studentRepository.save(current);
+      } else {
+        studentRepository.save(student);
+      }
+    }
+  }
+
+  private void chunked(List<Student> students) {
+    studentRepository.upsertAll(students);
+  }
+}
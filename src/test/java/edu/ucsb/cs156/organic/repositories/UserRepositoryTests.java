@@ -0,0 +1,91 @@
+package edu.ucsb.cs156.organic.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import edu.ucsb.cs156.organic.entities.User;
+
+@DataJpaTest
+public class UserRepositoryTests {
+
+  @Autowired
+  UserRepository userRepository;
+
+  @Autowired
+  TestEntityManager entityManager;
+
+  @Test
+  public void updateLastOnline_updates_every_user_in_one_batch() {
+    Timestamp old = new Timestamp(1000);
+    userRepository.save(User.builder().githubId(1).githubLogin("a").lastOnline(old).build());
+    userRepository.save(User.builder().githubId(2).githubLogin("b").lastOnline(old).build());
+    userRepository.save(User.builder().githubId(3).githubLogin("c").lastOnline(old).build());
+    entityManager.flush();
+    entityManager.clear();
+
+    Timestamp t1 = new Timestamp(5000);
+    Timestamp t2 = new Timestamp(6000);
+    int rows = userRepository.updateLastOnline(Map.of(1, t1, 2, t2, 99, t2));
+
+    assertEquals(2, rows);
+    assertEquals(t1, userRepository.findById(1).get().getLastOnline());
+    assertEquals(t2, userRepository.findById(2).get().getLastOnline());
+    assertEquals(old, userRepository.findById(3).get().getLastOnline());
+    assertEquals(0, userRepository.updateLastOnline(Map.of()));
+  }
+
+  @Test
+  public void saving_a_user_does_not_overwrite_last_online() {
+    userRepository.save(User.builder().githubId(1).githubLogin("a").lastOnline(new Timestamp(1000)).build());
+    entityManager.flush();
+    entityManager.clear();
+    User stale = userRepository.findById(1).get();
+    entityManager.clear();
+
+    userRepository.updateLastOnline(Map.of(1, new Timestamp(9000)));
+    stale.setAccessToken("new-token");
+    userRepository.save(stale);
+    entityManager.flush();
+    entityManager.clear();
+
+    User reloaded = userRepository.findById(1).get();
+    assertEquals("new-token", reloaded.getAccessToken());
+    assertEquals(new Timestamp(9000), reloaded.getLastOnline());
+  }
+
+  @Test
+  public void active_users_are_paged_by_github_id() {
+    Timestamp old = new Timestamp(1000);
+    Timestamp recent = new Timestamp(5000);
+    for (int githubId : new int[] { 5, 2, 9, 7, 3 }) {
+      userRepository.save(User.builder().githubId(githubId).githubLogin("u" + githubId)
+          .lastOnline(githubId == 7 ? old : recent).build());
+    }
+    entityManager.flush();
+    entityManager.clear();
+
+    Timestamp since = new Timestamp(2000);
+    PageRequest batch = PageRequest.of(0, 2, Sort.by("githubId"));
+    assertEquals(List.of(2, 3), githubIds(userRepository.findByLastOnlineAfterAndGithubIdGreaterThan(since, 0, batch)));
+    assertEquals(List.of(5, 9), githubIds(userRepository.findByLastOnlineAfterAndGithubIdGreaterThan(since, 3, batch)));
+    assertEquals(List.of(), githubIds(userRepository.findByLastOnlineAfterAndGithubIdGreaterThan(since, 9, batch)));
+    assertTrue(userRepository.existsByLastOnlineAfter(since));
+    assertFalse(userRepository.existsByLastOnlineAfter(new Timestamp(6000)));
+  }
+
+  private List<Integer> githubIds(List<User> users) {
+    return users.stream().map(User::getGithubId).toList();
+  }
+}
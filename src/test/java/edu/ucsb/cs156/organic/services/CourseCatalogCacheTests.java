@@ -0,0 +1,222 @@
+package edu.ucsb.cs156.organic.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import edu.ucsb.cs156.organic.events.CourseDeletedEvent;
+import edu.ucsb.cs156.organic.events.CourseSavedEvent;
+import edu.ucsb.cs156.organic.models.CourseCatalogStats;
+import edu.ucsb.cs156.organic.repositories.CourseRepository;
+
+@ExtendWith(SpringExtension.class)
+@Import(CourseCatalogCache.class)
+@TestPropertySource(properties = {
+    "app.courseCatalog.ttlSeconds=300",
+    "app.courseCatalog.maxEntries=3"
+})
+// hit and miss counts start at zero in each test
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class CourseCatalogCacheTests {
+
+  @MockBean
+  CourseRepository courseRepository;
+
+  @MockBean
+  StaffAuthorizationIndex staffAuthorizationIndex;
+
+  @MockBean
+  Clock clock;
+
+  @Autowired
+  CourseCatalogCache cache;
+
+  private Course course(long id, String name) {
+    return Course.builder().id(id).name(name).build();
+  }
+
+  private List<Long> ids(List<Course> courses) {
+    return courses.stream().map(Course::getId).toList();
+  }
+
+  @Test
+  public void courses_are_loaded_by_id_once() {
+    when(courseRepository.findById(1L)).thenReturn(Optional.of(course(1, "CS156")));
+
+    assertEquals("CS156", cache.get(1).get().getName());
+    assertEquals("CS156", cache.get(1).get().getName());
+
+    verify(courseRepository, times(1)).findById(1L);
+    CourseCatalogStats stats = cache.getStats();
+    assertEquals(1, stats.getHits());
+    assertEquals(1, stats.getMisses());
+    assertEquals(0.5, stats.getHitRatio());
+  }
+
+  @Test
+  public void missing_courses_are_looked_up_even_once_the_catalog_is_complete() {
+    when(courseRepository.findById(9L)).thenReturn(Optional.empty());
+    assertTrue(cache.get(9).isEmpty());
+    assertTrue(cache.get(9).isEmpty());
+    verify(courseRepository, times(2)).findById(9L);
+
+    when(courseRepository.findAll()).thenReturn(List.of(course(1, "CS156")));
+    cache.all();
+    // e.g. added by a migration, which publishes no event
+    when(courseRepository.findById(9L)).thenReturn(Optional.of(course(9, "CS9")));
+    assertEquals("CS9", cache.get(9).get().getName());
+    assertEquals("CS9", cache.get(9).get().getName());
+    verify(courseRepository, times(3)).findById(9L);
+  }
+
+  @Test
+  public void callers_get_copies_of_the_cached_courses() {
+    when(courseRepository.findAll()).thenReturn(List.of(course(1, "CS156")));
+    cache.all().get(0).setName("changed by all()");
+    cache.get(1).get().setName("changed by get()");
+    cache.courses(new long[] { 1 }).get(0).setName("changed by courses()");
+    Course saved = course(2, "CS16");
+    cache.onCourseSaved(new CourseSavedEvent(saved));
+    saved.setName("changed after it was saved");
+
+    assertEquals("CS156", cache.get(1).get().getName());
+    assertEquals("CS16", cache.get(2).get().getName());
+  }
+
+  @Test
+  public void whole_catalog_is_loaded_again_once_it_is_ttlSeconds_old() {
+    when(courseRepository.findAll()).thenReturn(List.of(course(1, "CS156")));
+    when(clock.millis()).thenReturn(1_000_000L);
+    cache.all();
+
+    when(clock.millis()).thenReturn(1_299_999L);
+    cache.all();
+    verify(courseRepository, times(1)).findAll();
+
+    when(clock.millis()).thenReturn(1_300_000L);
+    assertFalse(cache.getStats().isComplete());
+    cache.all();
+    verify(courseRepository, times(2)).findAll();
+  }
+
+  @Test
+  public void catalogs_larger_than_maxEntries_are_not_cached() {
+    when(courseRepository.findAll())
+        .thenReturn(List.of(course(1, "CS156"), course(2, "CS16"), course(3, "CS130A"), course(4, "CS148")));
+
+    assertEquals(List.of(1L, 2L, 3L, 4L), ids(cache.all()));
+    assertEquals(List.of(1L, 2L, 3L, 4L), ids(cache.all()));
+
+    verify(courseRepository, times(2)).findAll();
+    assertEquals(0, cache.getStats().getSize());
+  }
+
+  @Test
+  public void a_course_saved_with_the_cache_full_makes_the_catalog_incomplete() {
+    when(courseRepository.findAll()).thenReturn(List.of(course(1, "CS156"), course(2, "CS16"), course(3, "CS130A")));
+    cache.all();
+
+    cache.onCourseSaved(new CourseSavedEvent(course(4, "CS148")));
+
+    CourseCatalogStats stats = cache.getStats();
+    assertEquals(3, stats.getSize());
+    assertFalse(stats.isComplete());
+    when(courseRepository.findAll())
+        .thenReturn(List.of(course(1, "CS156"), course(2, "CS16"), course(3, "CS130A"), course(4, "CS148")));
+    assertEquals(List.of(1L, 2L, 3L, 4L), ids(cache.all()));
+  }
+
+  @Test
+  public void whole_catalog_is_loaded_once_and_sorted_by_id() {
+    when(courseRepository.findAll()).thenReturn(List.of(course(3, "CS130A"), course(1, "CS156")));
+
+    assertEquals(List.of(1L, 3L), ids(cache.all()));
+    assertEquals(List.of(1L, 3L), ids(cache.all()));
+    assertEquals("CS130A", cache.get(3).get().getName());
+
+    verify(courseRepository, times(1)).findAll();
+    verify(courseRepository, never()).findById(any(Long.class));
+    CourseCatalogStats stats = cache.getStats();
+    assertEquals(2, stats.getSize());
+    assertTrue(stats.isComplete());
+    assertEquals(1, stats.getRebuilds());
+  }
+
+  @Test
+  public void only_uncached_courses_are_loaded_for_a_list_of_ids() {
+    when(courseRepository.findById(1L)).thenReturn(Optional.of(course(1, "CS156")));
+    cache.get(1);
+    when(courseRepository.findByIdIn(List.of(2L, 4L))).thenReturn(List.of(course(4, "CS148"), course(2, "CS16")));
+
+    assertEquals(List.of(1L, 2L, 4L), ids(cache.courses(new long[] { 1, 2, 4 })));
+    assertEquals(List.of(1L, 2L, 4L), ids(cache.courses(new long[] { 1, 2, 4 })));
+
+    verify(courseRepository, times(1)).findByIdIn(any());
+  }
+
+  @Test
+  public void staffed_courses_come_from_the_staff_index() {
+    when(staffAuthorizationIndex.courseIds(7)).thenReturn(new long[] { 2 });
+    when(courseRepository.findByIdIn(List.of(2L))).thenReturn(List.of(course(2, "CS16")));
+
+    assertEquals(List.of(2L), ids(cache.staffedCourses(7)));
+  }
+
+  @Test
+  public void saved_and_deleted_courses_are_applied() {
+    when(courseRepository.findAll()).thenReturn(List.of(course(1, "CS156"), course(2, "CS16")));
+    cache.all();
+
+    cache.onCourseSaved(new CourseSavedEvent(course(1, "CS156 (renamed)")));
+    cache.onCourseSaved(new CourseSavedEvent(course(5, "CS5")));
+    cache.onCourseDeleted(new CourseDeletedEvent(2));
+
+    assertEquals(List.of(1L, 5L), ids(cache.all()));
+    assertEquals("CS156 (renamed)", cache.get(1).get().getName());
+    verify(courseRepository, times(1)).findAll();
+  }
+
+  @Test
+  public void load_racing_with_a_change_is_not_cached() {
+    when(courseRepository.findAll()).thenAnswer(invocation -> {
+      cache.onCourseDeleted(new CourseDeletedEvent(2));
+      return List.of(course(1, "CS156"), course(2, "CS16"));
+    });
+
+    cache.all();
+    cache.all();
+
+    verify(courseRepository, times(2)).findAll();
+  }
+
+  @Test
+  public void clear_forces_reload() {
+    when(courseRepository.findAll()).thenReturn(List.of(course(1, "CS156")));
+    cache.all();
+
+    cache.clear();
+    cache.all();
+
+    verify(courseRepository, times(2)).findAll();
+  }
+}
@@ -0,0 +1,102 @@
+package edu.ucsb.cs156.organic.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import edu.ucsb.cs156.organic.entities.RosterUpload;
+import edu.ucsb.cs156.organic.entities.Staff;
+import edu.ucsb.cs156.organic.models.CourseDeleteResult;
+import edu.ucsb.cs156.organic.repositories.CourseRepository;
+import edu.ucsb.cs156.organic.repositories.RosterUploadRepository;
+import edu.ucsb.cs156.organic.repositories.StaffRepository;
+import edu.ucsb.cs156.organic.repositories.StudentRepository;
+
+@DataJpaTest
+@Import({ CourseDeletionService.class, StaffAuthorizationIndex.class })
+public class CourseDeletionServiceTests {
+
+  static final int STUDENTS = 3000;
+
+  @Autowired
+  CourseDeletionService courseDeletionService;
+
+  @Autowired
+  CourseRepository courseRepository;
+
+  @Autowired
+  StaffRepository staffRepository;
+
+  @Autowired
+  StudentRepository studentRepository;
+
+  @Autowired
+  RosterUploadRepository rosterUploadRepository;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  Course doomed;
+  Course kept;
+
+  @BeforeEach
+  public void setup() {
+    doomed = courseRepository.save(Course.builder().name("CS156").school("UCSB").term("F23").build());
+    kept = courseRepository.save(Course.builder().name("CS148").school("UCSB").term("F23").build());
+    staffRepository.save(Staff.builder().courseId(doomed.getId()).githubId(1).build());
+    staffRepository.save(Staff.builder().courseId(doomed.getId()).githubId(2).build());
+    staffRepository.save(Staff.builder().courseId(kept.getId()).githubId(1).build());
+
+    List<Object[]> students = new ArrayList<>();
+    for (int i = 0; i < STUDENTS; i++) {
+      students.add(new Object[] { doomed.getId(), "A" + i });
+    }
+    students.add(new Object[] { kept.getId(), "A0" });
+    jdbcTemplate.batchUpdate("INSERT INTO students (course_id, student_id) VALUES (?, ?)", students);
+    rosterUploadRepository.save(RosterUpload.builder().courseId(doomed.getId()).sha256("abc123").build());
+  }
+
+  private long count(Iterable<?> rows) {
+    return StreamSupport.stream(rows.spliterator(), false).count();
+  }
+
+  @Test
+  public void course_is_deleted_with_its_staff_and_students() {
+    CourseDeleteResult result = courseDeletionService.deleteCourse(doomed);
+
+    assertEquals(doomed, result.getCourse());
+    assertEquals(2, result.getStaffDeleted());
+    assertEquals(STUDENTS, result.getStudentsDeleted());
+    assertTrue(courseRepository.findById(doomed.getId()).isEmpty());
+    assertEquals(0, count(staffRepository.findByCourseId(doomed.getId())));
+    assertEquals(0, count(studentRepository.findByCourseId(doomed.getId())));
+    assertTrue(rosterUploadRepository.findByCourseId(doomed.getId()).isEmpty());
+  }
+
+  @Test
+  public void other_courses_are_left_alone() {
+    courseDeletionService.deleteCourse(doomed);
+
+    assertTrue(courseRepository.findById(kept.getId()).isPresent());
+    assertEquals(1, count(staffRepository.findByCourseId(kept.getId())));
+    assertEquals(1, count(studentRepository.findByCourseId(kept.getId())));
+  }
+
+  @Test
+  public void course_with_staff_cannot_be_deleted_on_its_own() {
+    assertThrows(DataIntegrityViolationException.class, () -> courseRepository.deleteCourseById(doomed.getId()));
+  }
+}
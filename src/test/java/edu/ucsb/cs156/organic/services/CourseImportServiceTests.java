@@ -0,0 +1,194 @@
+package edu.ucsb.cs156.organic.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import edu.ucsb.cs156.organic.entities.Staff;
+import edu.ucsb.cs156.organic.models.CourseImportResult;
+import edu.ucsb.cs156.organic.models.CourseImportRow;
+import edu.ucsb.cs156.organic.repositories.CourseRepository;
+import edu.ucsb.cs156.organic.repositories.StaffRepository;
+
+@DataJpaTest
+@Import({ CourseImportService.class, StaffAuthorizationIndex.class })
+public class CourseImportServiceTests {
+
+  @Autowired
+  CourseImportService courseImportService;
+
+  @Autowired
+  CourseRepository courseRepository;
+
+  @Autowired
+  StaffRepository staffRepository;
+
+  @Autowired
+  StaffAuthorizationIndex staffAuthorizationIndex;
+
+  private CourseImportRow row(String name) {
+    return CourseImportRow.builder()
+        .name(name)
+        .school("UCSB")
+        .term("F23")
+        .startDate(LocalDateTime.parse("2023-09-25T00:00:00"))
+        .endDate(LocalDateTime.parse("2023-12-15T00:00:00"))
+        .githubOrg("ucsb-" + name.toLowerCase())
+        .build();
+  }
+
+  @Test
+  public void valid_rows_become_courses_with_the_creator_as_staff() {
+    // more rows than one JDBC batch
+    List<CourseImportRow> rows = new ArrayList<>();
+    for (int i = 0; i < 120; i++) {
+      rows.add(row("CS" + i));
+    }
+
+    CourseImportResult result = courseImportService.importCourses(rows, 42);
+
+    assertEquals(120, result.getInserted());
+    assertEquals(0, result.getInvalid());
+    Long firstId = result.getResults().get(0).getCourseId();
+    Course first = courseRepository.findById(firstId).get();
+    assertEquals("CS0", first.getName());
+    assertEquals(LocalDateTime.parse("2023-09-25T00:00:00"), first.getStartDate());
+    Long lastId = result.getResults().get(119).getCourseId();
+    assertEquals("CS119", courseRepository.findById(lastId).get().getName());
+
+    List<Staff> staff = new ArrayList<>();
+    staffRepository.findByGithubId(42).forEach(staff::add);
+    assertEquals(120, staff.size());
+    assertTrue(staffAuthorizationIndex.isStaff(42, lastId));
+  }
+
+  @Test
+  public void invalid_rows_are_reported_and_skipped() {
+    CourseImportRow backwards = row("CS8");
+    backwards.setEndDate(LocalDateTime.parse("2023-01-01T00:00:00"));
+    CourseImportRow noSchool = row("CS9");
+    noSchool.setSchool(" ");
+    CourseImportRow noTerm = row("CS10");
+    noTerm.setTerm(null);
+    CourseImportRow noDates = row("CS24");
+    noDates.setStartDate(null);
+    noDates.setEndDate(null);
+
+    CourseImportResult result = courseImportService.importCourses(
+        List.of(row("CS16"), CourseImportRow.builder().school("UCSB").term("F23").build(), backwards, noSchool,
+            noTerm, noDates),
+        42);
+
+    assertEquals(2, result.getInserted());
+    assertEquals(4, result.getInvalid());
+    assertEquals("INSERTED", result.getResults().get(0).getStatus());
+    assertEquals("name is required", result.getResults().get(1).getMessage());
+    assertNull(result.getResults().get(1).getCourseId());
+    assertEquals("endDate is before startDate", result.getResults().get(2).getMessage());
+    assertEquals("school is required", result.getResults().get(3).getMessage());
+    assertEquals("term is required", result.getResults().get(4).getMessage());
+    assertEquals("INSERTED", result.getResults().get(5).getStatus());
+    assertEquals(6, result.getResults().get(5).getRow());
+  }
+
+  @Test
+  public void too_many_rows_are_rejected() {
+    // app.courseImport.maxRows is 5000 by default
+    List<CourseImportRow> rows = Collections.nCopies(5001, row("CS1"));
+
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> courseImportService.importCourses(rows, 42));
+    assertEquals("at most 5000 courses can be imported at once", e.getMessage());
+    assertEquals(0, courseRepository.count());
+  }
+
+  @Test
+  public void csv_columns_are_matched_by_header_name() throws Exception {
+    String csv = """
+        githubOrg,Name,school,term,startDate,endDate
+        ucsb-cs156,CS156,UCSB,F23,2023-09-25T00:00:00,2023-12-15T00:00:00
+        ,"CS 8, intro",UCSB,F23,,
+        """;
+
+    List<CourseImportRow> rows = courseImportService.parseCsv(new StringReader(csv));
+
+    assertEquals(List.of(row("CS156"),
+        CourseImportRow.builder().name("CS 8, intro").school("UCSB").term("F23").build()), rows);
+  }
+
+  @Test
+  public void csv_with_a_short_line_leaves_the_missing_fields_null() throws Exception {
+    String csv = "name,school,term,startDate,endDate,githubOrg\nCS156,UCSB\n";
+
+    List<CourseImportRow> rows = courseImportService.parseCsv(new StringReader(csv));
+
+    assertEquals(List.of(CourseImportRow.builder().name("CS156").school("UCSB").build()), rows);
+  }
+
+  @Test
+  public void empty_csv_has_no_rows() throws Exception {
+    assertEquals(List.of(), courseImportService.parseCsv(new StringReader("")));
+  }
+
+  @Test
+  public void csv_without_a_required_column_is_rejected() {
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> courseImportService.parseCsv(new StringReader("name,school,term,startDate,endDate\n")));
+    assertEquals("CSV header is missing column githubOrg", e.getMessage());
+  }
+
+  @Test
+  public void csv_line_with_a_bad_date_is_an_invalid_row() throws Exception {
+    String csv = """
+        name,school,term,startDate,endDate,githubOrg
+        CS156,UCSB,F23,tomorrow,someday,
+        CS8,UCSB,F23,2023-09-25T00:00:00,,
+        """;
+
+    List<CourseImportRow> rows = courseImportService.parseCsv(new StringReader(csv));
+    CourseImportResult result = courseImportService.importCourses(rows, 42);
+
+    assertEquals(1, result.getInserted());
+    assertEquals(1, result.getInvalid());
+    assertEquals("INVALID", result.getResults().get(0).getStatus());
+    assertEquals("startDate tomorrow is not in iso format, e.g. 2023-10-01T00:00:00; "
+        + "endDate someday is not in iso format, e.g. 2023-10-01T00:00:00", result.getResults().get(0).getMessage());
+    assertEquals("INSERTED", result.getResults().get(1).getStatus());
+  }
+
+  @Test
+  public void csv_stops_being_read_after_more_than_maxRows_lines() {
+    String lines = "name,school,term,startDate,endDate,githubOrg\n" + "CS1,UCSB,F23,,,\n".repeat(5001);
+    // reading past the end of course 5001 fails the test, as the rest of a
+    // huge upload would not be read
+    Reader csv = new StringReader(lines) {
+      @Override
+      public int read(char[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read == -1) {
+          throw new AssertionError("read past maxRows + 1 lines");
+        }
+        return read;
+      }
+    };
+
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> courseImportService.parseCsv(csv));
+    assertEquals("at most 5000 courses can be imported at once", e.getMessage());
+  }
+}
@@ -0,0 +1,126 @@
+package edu.ucsb.cs156.organic.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Logs p50 and p99 latencies of CourseSearchIndex.search at 50k courses,
+ * for prefix, substring and multi-term queries, next to a linear scan of
+ * the same courses (what filtering /api/courses/all amounts to), and checks
+ * that both find the same courses.
+ *
+ * Not part of the normal build; run with
+ *
+ *   mvn test -Dtest=CourseSearchBenchmarkTests -Dbenchmark=true
+ */
+@Slf4j
+@ExtendWith(SpringExtension.class)
+@Import(CourseSearchIndex.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class CourseSearchBenchmarkTests {
+
+  static final int COURSES = 50_000;
+  static final int RUNS = 2_000;
+  static final int SCAN_RUNS = 50;
+  static final int LIMIT = 20;
+
+  static final String[] SCHOOLS = { "UCSB", "UCLA", "UC Berkeley", "UC Davis", "Cal Poly", "SDSU", "Stanford" };
+  static final String[] TERMS = { "W", "S", "M", "F" };
+  static final String[] DEPARTMENTS = { "CS", "CMPSC", "ECE", "MATH", "PSTAT", "ENGR", "INFO" };
+
+  static final String[] QUERIES = { "cs", "ucsb", "cs15", "berkeley", "s156", "f23 ucla", "math f2 ucs" };
+
+  @MockBean
+  CourseCatalogCache courseCatalogCache;
+
+  @Autowired
+  CourseSearchIndex index;
+
+  @Test
+  public void compare_index_to_linear_scan() {
+    List<Course> courses = courses();
+    when(courseCatalogCache.all()).thenReturn(courses);
+
+    long start = System.nanoTime();
+    index.rebuild();
+    log.info("indexed {} courses in {} ms", COURSES, (System.nanoTime() - start) / 1_000_000);
+
+    for (String query : QUERIES) {
+      List<Course> found = index.search(query, null, LIMIT);
+      assertEquals(ids(scan(courses, query)), ids(found), query);
+      log.info("{}: index {}, scan {}", "%-10s".formatted("\"" + query + "\""),
+          time(q -> index.search(q, null, LIMIT), query, RUNS),
+          time(q -> scan(courses, q), query, SCAN_RUNS));
+    }
+  }
+
+  private List<Course> courses() {
+    Random random = new Random(156);
+    List<Course> courses = new ArrayList<>(COURSES);
+    for (long id = 1; id <= COURSES; id++) {
+      String school = SCHOOLS[random.nextInt(SCHOOLS.length)];
+      String term = TERMS[random.nextInt(TERMS.length)] + (18 + random.nextInt(8));
+      String name = DEPARTMENTS[random.nextInt(DEPARTMENTS.length)] + (1 + random.nextInt(199));
+      String githubOrg = (school + "-" + name + "-" + term).toLowerCase(Locale.ROOT).replace(' ', '-');
+      courses.add(Course.builder().id(id).name(name).term(term).school(school).githubOrg(githubOrg).build());
+    }
+    return courses;
+  }
+
+  /**
+   * The same matching and ordering as the index, one course at a time.
+   */
+  private List<Course> scan(List<Course> courses, String query) {
+    String[] terms = query.toLowerCase(Locale.ROOT).trim().split("\\s+");
+    List<Course> prefixMatches = new ArrayList<>();
+    List<Course> otherMatches = new ArrayList<>();
+    for (Course course : courses) {
+      List<String> fields = Arrays.asList(course.getName(), course.getTerm(), course.getSchool(),
+          course.getGithubOrg()).stream().map(field -> field.toLowerCase(Locale.ROOT)).toList();
+      boolean all = Arrays.stream(terms).allMatch(term -> fields.stream().anyMatch(field -> term.length() < 3
+          ? Arrays.stream(field.split("[^\\p{L}\\p{N}]+")).anyMatch(word -> word.startsWith(term))
+          : field.contains(term)));
+      if (all) {
+        (fields.stream().anyMatch(field -> field.startsWith(terms[0])) ? prefixMatches : otherMatches).add(course);
+      }
+    }
+    prefixMatches.addAll(otherMatches);
+    return prefixMatches.size() > LIMIT ? prefixMatches.subList(0, LIMIT) : prefixMatches;
+  }
+
+  private String time(Function<String, List<Course>> search, String query, int runs) {
+    for (int i = 0; i < runs / 10; i++) {
+      search.apply(query);
+    }
+    long[] micros = new long[runs];
+    for (int i = 0; i < runs; i++) {
+      long start = System.nanoTime();
+      search.apply(query);
+      micros[i] = (System.nanoTime() - start) / 1000;
+    }
+    Arrays.sort(micros);
+    return "p50 %d us, p99 %d us".formatted(micros[runs / 2], micros[runs * 99 / 100]);
+  }
+
+  private List<Long> ids(List<Course> courses) {
+    return courses.stream().map(Course::getId).toList();
+  }
+}
@@ -0,0 +1,132 @@
+package edu.ucsb.cs156.organic.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import edu.ucsb.cs156.organic.events.CourseDeletedEvent;
+import edu.ucsb.cs156.organic.events.CourseSavedEvent;
+
+@ExtendWith(SpringExtension.class)
+@Import(CourseSearchIndex.class)
+public class CourseSearchIndexTests {
+
+  @MockBean
+  CourseCatalogCache courseCatalogCache;
+
+  @Autowired
+  CourseSearchIndex index;
+
+  @BeforeEach
+  public void setup() {
+    when(courseCatalogCache.all()).thenReturn(List.of(
+        course(1, "CS156", "F23", "UCSB", "ucsb-cs156-f23"),
+        course(2, "CS148", "S24", "UCSB", "ucsb-cs148-s24"),
+        course(3, "CMPSC 8", "F23", "UCSB", "ucsb-cmpsc8-f23"),
+        course(4, "CS 61B", "F23", "Berkeley", "cal-cs61b")));
+    index.rebuild();
+  }
+
+  private Course course(long id, String name, String term, String school, String githubOrg) {
+    return Course.builder().id(id).name(name).term(term).school(school).githubOrg(githubOrg).build();
+  }
+
+  private List<Long> search(String query) {
+    return ids(index.search(query, null, 20));
+  }
+
+  private List<Long> ids(List<Course> courses) {
+    return courses.stream().map(Course::getId).toList();
+  }
+
+  @Test
+  public void every_course_is_indexed_at_startup() {
+    index.onApplicationReady();
+    assertEquals(4, index.size());
+  }
+
+  @Test
+  public void substrings_of_any_field_match_regardless_of_case() {
+    assertEquals(List.of(1L), search("s156"));
+    assertEquals(List.of(4L), search("berk"));
+    assertEquals(List.of(4L), search("61b"));
+    assertEquals(List.of(2L), search("CS148-S24"));
+  }
+
+  @Test
+  public void short_terms_only_match_the_start_of_a_word() {
+    assertEquals(List.of(3L), search("8"));
+    assertEquals(List.of(1L, 2L, 4L), search("cs"));
+    assertEquals(List.of(4L), search("b"));
+    assertEquals(List.of(), search("1"));
+  }
+
+  @Test
+  public void courses_starting_with_the_first_term_come_first() {
+    index.onCourseSaved(new CourseSavedEvent(course(5, "PSC 1", "W25", "UCSB", "ucsb-psc1-w25")));
+
+    // only inside the name and github org of course 3
+    assertEquals(List.of(5L, 3L), search("psc"));
+    assertEquals(List.of(1L, 3L, 4L), search("f23"));
+  }
+
+  @Test
+  public void every_term_must_match() {
+    assertEquals(List.of(1L, 3L), search("f23 ucsb"));
+    assertEquals(List.of(1L), search("  cs  f23   ucsb "));
+    assertEquals(List.of(), search("cs148 f23"));
+  }
+
+  @Test
+  public void trigrams_from_different_fields_do_not_make_a_match() {
+    // "s24" and "24u" are both indexed for course 2, but not "s24u"
+    assertEquals(List.of(), search("s24u"));
+  }
+
+  @Test
+  public void blank_queries_match_nothing() {
+    assertEquals(List.of(), search("   "));
+  }
+
+  @Test
+  public void results_are_limited_and_restricted_to_visible_courses() {
+    assertEquals(List.of(1L, 2L), ids(index.search("cs", null, 2)));
+    assertEquals(List.of(2L, 4L), ids(index.search("cs", new long[] { 2, 3, 4 }, 20)));
+  }
+
+  @Test
+  public void saved_courses_are_indexed_under_their_new_values_only() {
+    index.onCourseSaved(new CourseSavedEvent(course(2, "CS148", "W25", "UCSB", "ucsb-cs148-w25")));
+    index.onCourseSaved(new CourseSavedEvent(course(5, "CS32", "W25", "UCSB", "ucsb-cs32-w25")));
+
+    assertEquals(List.of(), search("s24"));
+    assertEquals(List.of(2L, 5L), search("w25"));
+    assertEquals(5, index.size());
+  }
+
+  @Test
+  public void deleted_courses_are_no_longer_found() {
+    index.onCourseDeleted(new CourseDeletedEvent(1));
+    index.onCourseDeleted(new CourseDeletedEvent(99));
+
+    assertEquals(List.of(), search("cs156"));
+    assertEquals(List.of(3L, 4L), search("f23"));
+    assertEquals(3, index.size());
+  }
+
+  @Test
+  public void null_fields_are_skipped() {
+    index.onCourseSaved(new CourseSavedEvent(course(6, "Intro", null, " ", null)));
+    assertEquals(List.of(6L), search("intro"));
+  }
+}
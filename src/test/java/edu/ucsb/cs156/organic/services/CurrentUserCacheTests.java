@@ -0,0 +1,171 @@
+package edu.ucsb.cs156.organic.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.security.task.DelegatingSecurityContextAsyncTaskExecutor;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.organic.entities.User;
+import edu.ucsb.cs156.organic.models.CacheStats;
+
+@ExtendWith(SpringExtension.class)
+@Import(CurrentUserCache.class)
+@TestPropertySource(properties = {
+    "app.currentUserCache.ttlSeconds=300",
+    "app.currentUserCache.refreshAfterSeconds=60",
+    "app.currentUserCache.maxEntries=2" })
+// every test starts with an empty cache and zeroed stats
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class CurrentUserCacheTests {
+
+  @TestConfiguration
+  static class Config {
+    // run "background" refreshes on the calling thread so the test is deterministic
+    @Bean
+    public DelegatingSecurityContextAsyncTaskExecutor taskExecutor() {
+      return new DelegatingSecurityContextAsyncTaskExecutor(new ConcurrentTaskExecutor(Runnable::run));
+    }
+  }
+
+  @MockBean
+  Clock clock;
+
+  @Autowired
+  CurrentUserCache cache;
+
+  User user1 = User.builder().githubId(1).githubLogin("cgaucho").build();
+  User user1Reloaded = User.builder().githubId(1).githubLogin("cgaucho-renamed").build();
+
+  @BeforeEach
+  public void setup() {
+    setTime(0);
+  }
+
+  private void setTime(long seconds) {
+    when(clock.millis()).thenReturn(seconds * 1000);
+  }
+
+  @Test
+  public void first_get_is_a_miss_and_second_is_a_hit() {
+    AtomicInteger loads = new AtomicInteger();
+    String key = CurrentUserCache.key("session1", 1);
+
+    User first = cache.get(key, () -> { loads.incrementAndGet(); return user1; });
+    User second = cache.get(key, () -> { loads.incrementAndGet(); return user1Reloaded; });
+
+    assertSame(user1, first);
+    assertSame(user1, second);
+    assertEquals(1, loads.get());
+    assertEquals(CacheStats.builder().size(1).hits(1).misses(1).refreshes(0).build(), cache.getStats());
+  }
+
+  @Test
+  public void stale_entry_is_returned_immediately_and_refreshed_in_background() {
+    String key = CurrentUserCache.key("session1", 1);
+    cache.get(key, () -> user1);
+
+    setTime(61);
+    User stale = cache.get(key, () -> user1Reloaded);
+    User fresh = cache.get(key, () -> user1);
+
+    assertSame(user1, stale);
+    assertSame(user1Reloaded, fresh);
+    assertEquals(1, cache.getStats().getRefreshes());
+  }
+
+  @Test
+  public void failed_refresh_keeps_the_stale_entry() {
+    String key = CurrentUserCache.key("session1", 1);
+    cache.get(key, () -> user1);
+
+    setTime(61);
+    cache.get(key, () -> { throw new IllegalStateException("github is down"); });
+    User afterFailure = cache.get(key, () -> user1Reloaded);
+
+    assertSame(user1, afterFailure);
+  }
+
+  @Test
+  public void expired_entry_is_reloaded_synchronously() {
+    String key = CurrentUserCache.key("session1", 1);
+    cache.get(key, () -> user1);
+
+    setTime(300);
+    User reloaded = cache.get(key, () -> user1Reloaded);
+
+    assertSame(user1Reloaded, reloaded);
+    assertEquals(2, cache.getStats().getMisses());
+  }
+
+  @Test
+  public void null_users_are_not_cached() {
+    String key = CurrentUserCache.key("session1", 1);
+
+    assertNull(cache.get(key, () -> null));
+    assertSame(user1, cache.get(key, () -> user1));
+    assertEquals(2, cache.getStats().getMisses());
+  }
+
+  @Test
+  public void invalidateUser_drops_entries_for_every_session_of_that_user() {
+    cache.get(CurrentUserCache.key("session1", 1), () -> user1);
+    cache.get(CurrentUserCache.key("session2", 1), () -> user1);
+
+    cache.invalidateUser(1);
+
+    assertEquals(0, cache.getStats().getSize());
+  }
+
+  @Test
+  public void invalidateAll_empties_the_cache() {
+    cache.get(CurrentUserCache.key("session1", 1), () -> user1);
+
+    cache.invalidateAll();
+
+    assertEquals(0, cache.getStats().getSize());
+  }
+
+  @Test
+  public void cache_does_not_grow_past_maxEntries() {
+    cache.get(CurrentUserCache.key("session1", 1), () -> user1);
+    cache.get(CurrentUserCache.key("session2", 1), () -> user1);
+    cache.get(CurrentUserCache.key("session3", 1), () -> user1);
+
+    assertEquals(2, cache.getStats().getSize());
+
+    // once the old entries expire there is room again
+    setTime(300);
+    cache.get(CurrentUserCache.key("session3", 1), () -> user1);
+    assertEquals(1, cache.getStats().getSize());
+  }
+
+  @Test
+  public void evictExpired_removes_only_expired_entries() {
+    cache.get(CurrentUserCache.key("session1", 1), () -> user1);
+    setTime(100);
+    cache.get(CurrentUserCache.key("session2", 1), () -> user1);
+
+    setTime(300);
+    cache.evictExpired();
+
+    assertEquals(1, cache.getStats().getSize());
+  }
+}
@@ -0,0 +1,81 @@
+package edu.ucsb.cs156.organic.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+public class CurrentUserRequestMemoTests {
+
+  CurrentUserRequestMemo memo = new CurrentUserRequestMemo();
+  AtomicInteger calls = new AtomicInteger();
+
+  @BeforeEach
+  public void setup() {
+    SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("cgaucho", null));
+  }
+
+  @AfterEach
+  public void cleanup() {
+    RequestContextHolder.resetRequestAttributes();
+    SecurityContextHolder.clearContext();
+  }
+
+  private void startRequest() {
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+  }
+
+  @Test
+  public void value_is_computed_once_per_request() {
+    startRequest();
+
+    assertEquals(1, memo.get("x", calls::incrementAndGet));
+    assertEquals(1, memo.get("x", calls::incrementAndGet));
+    assertEquals(1, memo.getResolutions("x"));
+
+    startRequest();
+    assertEquals(2, memo.get("x", calls::incrementAndGet));
+    assertEquals(2, memo.getResolutions("x"));
+  }
+
+  @Test
+  public void null_values_are_memoised_too() {
+    startRequest();
+
+    assertNull(memo.get("x", () -> {
+      calls.incrementAndGet();
+      return null;
+    }));
+    assertNull(memo.get("x", () -> {
+      calls.incrementAndGet();
+      return null;
+    }));
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  public void new_authentication_in_the_same_request_recomputes() {
+    startRequest();
+    memo.get("x", calls::incrementAndGet);
+
+    SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("cgaucho", null, "ROLE_ADMIN"));
+
+    assertEquals(2, memo.get("x", calls::incrementAndGet));
+  }
+
+  @Test
+  public void nothing_is_memoised_outside_a_request() {
+    assertEquals(1, memo.get("x", calls::incrementAndGet));
+    assertEquals(2, memo.get("x", calls::incrementAndGet));
+    assertEquals(0, memo.getResolutions("y"));
+  }
+}
@@ -0,0 +1,119 @@
+package edu.ucsb.cs156.organic.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.task.DelegatingSecurityContextAsyncTaskExecutor;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import edu.ucsb.cs156.organic.entities.User;
+import edu.ucsb.cs156.organic.models.CurrentUser;
+import edu.ucsb.cs156.organic.repositories.UserRepository;
+
+@ExtendWith(SpringExtension.class)
+@Import({ CurrentUserServiceImpl.class, CurrentUserCache.class, CurrentUserRequestMemo.class,
+    UserChangeTracker.class })
+@TestPropertySource(properties = "app.admin.githubLogins=someone-else")
+public class CurrentUserServiceImplTests {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  GrantedAuthoritiesService grantedAuthoritiesService;
+
+  @MockBean
+  OAuth2AuthorizedClientService clientService;
+
+  @MockBean
+  DelegatingSecurityContextAsyncTaskExecutor taskExecutor;
+
+  @Autowired
+  CurrentUserServiceImpl currentUserService;
+
+  @Autowired
+  CurrentUserCache currentUserCache;
+
+  User user = User.builder().githubId(123).githubLogin("cgaucho").admin(false).build();
+
+  @BeforeEach
+  public void login() {
+    List<GrantedAuthority> roles = List.of(new SimpleGrantedAuthority("ROLE_USER"),
+        new SimpleGrantedAuthority("ROLE_ADMIN"));
+    DefaultOAuth2User principal = new DefaultOAuth2User(roles, Map.of("id", 123, "login", "cgaucho"), "login");
+    SecurityContextHolder.getContext()
+        .setAuthentication(new OAuth2AuthenticationToken(principal, roles, "github"));
+    doReturn(roles).when(grantedAuthoritiesService).getGrantedAuthorities();
+    when(userRepository.findById(123)).thenReturn(Optional.of(user));
+  }
+
+  @AfterEach
+  public void logout() {
+    RequestContextHolder.resetRequestAttributes();
+    SecurityContextHolder.clearContext();
+    currentUserCache.invalidateAll();
+  }
+
+  private MockHttpServletRequest request(MockHttpSession session) {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setSession(session);
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    return request;
+  }
+
+  @Test
+  public void admins_get_a_flagged_copy_and_the_cached_user_is_left_alone() {
+    MockHttpSession session = new MockHttpSession();
+    request(session);
+
+    CurrentUser cu = currentUserService.getCurrentUser();
+
+    assertTrue(cu.getUser().isAdmin());
+    assertEquals(123, cu.getUser().getGithubId());
+    assertFalse(user.isAdmin());
+    assertEquals(1, currentUserCache.getStats().getSize());
+
+    // a later request in the same session is served the unflagged user
+    // from the cache
+    request(session);
+    assertSame(user, currentUserService.getUser());
+    assertEquals(1, currentUserCache.getStats().getHits());
+  }
+
+  @Test
+  public void requests_without_a_session_are_not_given_one_and_are_not_cached() {
+    MockHttpServletRequest request = request(null);
+
+    assertSame(user, currentUserService.getUser());
+
+    assertNull(request.getSession(false));
+    assertEquals(0, currentUserCache.getStats().getSize());
+  }
+}
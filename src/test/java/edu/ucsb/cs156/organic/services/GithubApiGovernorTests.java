@@ -0,0 +1,290 @@
+package edu.ucsb.cs156.organic.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.organic.errors.GithubApiUnavailableException;
+import edu.ucsb.cs156.organic.models.GithubApiStats;
+import edu.ucsb.cs156.organic.testconfig.FakeGitHubServer;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+@ExtendWith(SpringExtension.class)
+@Import({ GithubApiGovernor.class, GithubClientFactory.class })
+@TestPropertySource(properties = {
+    "app.github.rateLimitReserve=10",
+    "app.github.breaker.failureThreshold=3",
+    "app.github.breaker.openSeconds=60",
+    "app.github.maxClients=2" })
+// the breaker and the quotas start out closed and empty in each test
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class GithubApiGovernorTests {
+
+  @TempDir
+  static Path cacheDir;
+
+  static FakeGitHubServer fakeGitHub;
+
+  @DynamicPropertySource
+  static void github(DynamicPropertyRegistry registry) {
+    registry.add("app.github.apiUrl", fakeGitHub::getUrl);
+    registry.add("app.github.cacheDir", cacheDir::toString);
+  }
+
+  @MockBean
+  Clock clock;
+
+  @Autowired
+  GithubApiGovernor governor;
+
+  @Autowired
+  GithubClientFactory factory;
+
+  OkHttpClient client;
+
+  String tokenKey = GithubApiGovernor.tokenKey("token-1");
+
+  @BeforeAll
+  public static void startGithub() throws IOException {
+    fakeGitHub = new FakeGitHubServer();
+  }
+
+  @AfterAll
+  public static void stopGithub() {
+    fakeGitHub.close();
+  }
+
+  @BeforeEach
+  public void setup() throws Exception {
+    fakeGitHub.respond("/user", """
+        {"login": "cgaucho", "id": 1}""");
+    fakeGitHub.failWith(0);
+    fakeGitHub.setRateLimitRemaining(4999);
+    fakeGitHub.reset();
+    setTime(0);
+
+    client = new OkHttpClient.Builder().addInterceptor(governor.interceptor(tokenKey)).build();
+  }
+
+  private void setTime(long seconds) {
+    when(clock.millis()).thenReturn(seconds * 1000);
+  }
+
+  private int call() throws IOException {
+    try (Response response = client.newCall(new Request.Builder().url(fakeGitHub.getUrl() + "/user").build())
+        .execute()) {
+      return response.code();
+    }
+  }
+
+  @Test
+  public void calls_are_counted_and_quota_is_tracked() throws Exception {
+    assertEquals(200, call());
+
+    GithubApiStats stats = governor.getStats();
+    assertEquals(1, stats.getCalls());
+    assertEquals(1, stats.getTrackedTokens());
+    assertEquals(4999, stats.getLowestRemaining());
+    assertEquals("CLOSED", stats.getBreakerState());
+  }
+
+  @Test
+  public void calls_are_rejected_once_quota_reaches_the_reserve_until_it_resets() throws Exception {
+    fakeGitHub.setRateLimitRemaining(10);
+    call();
+
+    GithubApiUnavailableException e = assertThrows(GithubApiUnavailableException.class, this::call);
+    assertTrue(e.getMessage().contains("10 calls left"));
+    assertEquals(1, fakeGitHub.getFullResponses());
+    assertEquals(1, governor.getStats().getRejectedCalls());
+
+    // the fake server resets its limit an hour from now
+    setTime(System.currentTimeMillis() / 1000 + 3601);
+    fakeGitHub.setRateLimitRemaining(4999);
+    assertEquals(200, call());
+  }
+
+  @Test
+  public void quota_of_other_tokens_is_not_affected() throws Exception {
+    fakeGitHub.setRateLimitRemaining(0);
+    call();
+
+    OkHttpClient other = new OkHttpClient.Builder()
+        .addInterceptor(governor.interceptor(GithubApiGovernor.tokenKey("token-2"))).build();
+    try (Response response = other.newCall(new Request.Builder().url(fakeGitHub.getUrl() + "/user").build())
+        .execute()) {
+      assertEquals(200, response.code());
+    }
+  }
+
+  @Test
+  public void forgotten_tokens_are_no_longer_tracked() throws Exception {
+    fakeGitHub.setRateLimitRemaining(0);
+    call();
+
+    governor.forget(tokenKey);
+
+    assertEquals(0, governor.getStats().getTrackedTokens());
+    assertEquals(-1, governor.getStats().getLowestRemaining());
+    assertEquals(200, call());
+  }
+
+  @Test
+  public void breaker_opens_after_consecutive_server_errors_and_fails_fast() throws Exception {
+    fakeGitHub.failWith(502);
+    call();
+    call();
+    assertEquals(GithubApiGovernor.BreakerState.CLOSED, governor.getBreakerState());
+    call();
+    assertEquals(GithubApiGovernor.BreakerState.OPEN, governor.getBreakerState());
+
+    fakeGitHub.reset();
+    assertThrows(GithubApiUnavailableException.class, this::call);
+    assertEquals(0, fakeGitHub.getFullResponses());
+
+    GithubApiStats stats = governor.getStats();
+    assertEquals(3, stats.getFailures());
+    assertEquals(1, stats.getBreakerOpens());
+    assertEquals(1, stats.getRejectedCalls());
+  }
+
+  @Test
+  public void a_success_resets_the_failure_count() throws Exception {
+    fakeGitHub.failWith(502);
+    call();
+    call();
+    fakeGitHub.failWith(0);
+    call();
+    fakeGitHub.failWith(502);
+    call();
+    call();
+
+    assertEquals(GithubApiGovernor.BreakerState.CLOSED, governor.getBreakerState());
+    assertEquals(2, governor.getStats().getConsecutiveFailures());
+  }
+
+  @Test
+  public void breaker_lets_one_trial_call_through_after_openSeconds() throws Exception {
+    fakeGitHub.failWith(502);
+    call();
+    call();
+    call();
+
+    // trial call fails: open again
+    setTime(60);
+    assertEquals(502, call());
+    assertEquals(GithubApiGovernor.BreakerState.OPEN, governor.getBreakerState());
+    assertThrows(GithubApiUnavailableException.class, this::call);
+
+    // trial call succeeds: closed
+    setTime(120);
+    fakeGitHub.failWith(0);
+    assertEquals(200, call());
+    assertEquals(GithubApiGovernor.BreakerState.CLOSED, governor.getBreakerState());
+    assertEquals(2, governor.getStats().getBreakerOpens());
+  }
+
+  @Test
+  public void only_one_trial_call_is_let_through_while_half_open() throws Exception {
+    fakeGitHub.failWith(502);
+    call();
+    call();
+    call();
+    setTime(60);
+
+    OkHttpClient nested = client.newBuilder().addNetworkInterceptor(chain -> {
+      // a second call made while the trial is in flight is refused
+      assertThrows(GithubApiUnavailableException.class, this::call);
+      return chain.proceed(chain.request());
+    }).build();
+    fakeGitHub.failWith(0);
+    try (Response response = nested.newCall(new Request.Builder().url(fakeGitHub.getUrl() + "/user").build())
+        .execute()) {
+      assertEquals(200, response.code());
+    }
+    assertEquals(GithubApiGovernor.BreakerState.CLOSED, governor.getBreakerState());
+  }
+
+  @Test
+  public void connection_failures_count_towards_the_breaker() throws Exception {
+    // a server that has gone away
+    FakeGitHubServer stopped = new FakeGitHubServer();
+    String url = stopped.getUrl();
+    stopped.close();
+
+    for (int i = 0; i < 3; i++) {
+      assertThrows(IOException.class,
+          () -> client.newCall(new Request.Builder().url(url + "/user").build()).execute());
+    }
+
+    assertEquals(GithubApiGovernor.BreakerState.OPEN, governor.getBreakerState());
+    assertEquals(3, governor.getStats().getFailures());
+  }
+
+  @Test
+  public void unparseable_rate_limit_headers_are_ignored() throws Exception {
+    OkHttpClient badHeaders = new OkHttpClient.Builder()
+        .addInterceptor(governor.interceptor(tokenKey))
+        .addNetworkInterceptor(chain -> chain.proceed(chain.request()).newBuilder()
+            .header("X-RateLimit-Remaining", "lots")
+            .build())
+        .build();
+    try (Response response = badHeaders.newCall(new Request.Builder().url(fakeGitHub.getUrl() + "/user").build())
+        .execute()) {
+      assertEquals(200, response.code());
+    }
+    assertEquals(0, governor.getStats().getTrackedTokens());
+  }
+
+  @Test
+  public void responses_without_rate_limit_headers_are_not_tracked() throws Exception {
+    OkHttpClient noHeaders = new OkHttpClient.Builder()
+        .addInterceptor(governor.interceptor(tokenKey))
+        .addNetworkInterceptor(chain -> chain.proceed(chain.request()).newBuilder()
+            .removeHeader("X-RateLimit-Reset")
+            .build())
+        .build();
+    try (Response response = noHeaders.newCall(new Request.Builder().url(fakeGitHub.getUrl() + "/user").build())
+        .execute()) {
+      assertEquals(200, response.code());
+    }
+    assertEquals(0, governor.getStats().getTrackedTokens());
+    assertEquals(1, governor.getStats().getCalls());
+  }
+
+  @Test
+  public void github_clients_from_the_factory_fail_fast_while_the_breaker_is_open() throws Exception {
+    fakeGitHub.failWith(502);
+    call();
+    call();
+    call();
+    fakeGitHub.failWith(0);
+    fakeGitHub.reset();
+
+    assertThrows(IOException.class, () -> factory.getClient("token-1").getMyself());
+    assertEquals(0, fakeGitHub.getFullResponses());
+  }
+}
@@ -0,0 +1,156 @@
+package edu.ucsb.cs156.organic.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.kohsuke.github.GitHub;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.organic.testconfig.FakeGitHubServer;
+
+@ExtendWith(SpringExtension.class)
+@Import({ GithubClientFactory.class, GithubApiGovernor.class })
+@TestPropertySource(properties = {
+    "app.github.cacheBytesPerToken=65536",
+    "app.github.maxClients=2" })
+// a factory of its own for each test, closed (and its caches deleted) after
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class GithubClientFactoryTests {
+
+  @TempDir
+  static Path cacheDir;
+
+  static FakeGitHubServer fakeGitHub;
+
+  @DynamicPropertySource
+  static void github(DynamicPropertyRegistry registry) {
+    registry.add("app.github.apiUrl", fakeGitHub::getUrl);
+    registry.add("app.github.cacheDir", cacheDir::toString);
+  }
+
+  @Autowired
+  GithubClientFactory factory;
+
+  @BeforeAll
+  public static void startGithub() throws IOException {
+    fakeGitHub = new FakeGitHubServer();
+  }
+
+  @AfterAll
+  public static void stopGithub() {
+    fakeGitHub.close();
+  }
+
+  @BeforeEach
+  public void setup() {
+    fakeGitHub.respond("/user", """
+        {"login": "cgaucho", "id": 1, "avatar_url": "https://example.org/cgaucho.png"}""");
+    fakeGitHub.reset();
+  }
+
+  /**
+   * The per-token cache directories, leaving out anything else a test put
+   * in cacheDir.
+   */
+  private File[] caches() {
+    return cacheDir.toFile().listFiles(file -> file.isDirectory() && file.getName().matches("[0-9a-f]{64}"));
+  }
+
+  @Test
+  public void repeated_requests_are_revalidated_with_if_none_match() throws Exception {
+    GitHub github = factory.getClient("token-1");
+
+    assertEquals("cgaucho", github.getMyself().getLogin());
+    assertEquals("cgaucho", factory.getClient("token-1").getMyself().getLogin());
+
+    assertEquals(1, fakeGitHub.getFullResponses());
+    assertEquals(1, fakeGitHub.getNotModifiedResponses());
+  }
+
+  @Test
+  public void changed_resources_are_fetched_in_full() throws Exception {
+    factory.getClient("token-1").getMyself();
+    fakeGitHub.respond("/user", """
+        {"login": "cgaucho-renamed", "id": 1}""");
+
+    assertEquals("cgaucho-renamed", factory.getClient("token-1").getMyself().getLogin());
+    assertEquals(2, fakeGitHub.getFullResponses());
+    assertEquals(0, fakeGitHub.getNotModifiedResponses());
+  }
+
+  @Test
+  public void tokens_do_not_share_cached_responses() throws Exception {
+    factory.getClient("token-1").getMyself();
+    factory.getClient("token-2").getMyself();
+
+    assertEquals(2, factory.size());
+    assertEquals(2, fakeGitHub.getFullResponses());
+    assertEquals(0, fakeGitHub.getNotModifiedResponses());
+  }
+
+  @Test
+  public void least_recently_used_client_and_its_cache_are_evicted() throws Exception {
+    factory.getClient("token-1").getMyself();
+    factory.getClient("token-2").getMyself();
+    factory.getClient("token-1");
+    assertEquals(2, caches().length);
+
+    factory.getClient("token-3").getMyself();
+
+    assertEquals(2, factory.size());
+    File[] after = caches();
+    long nonEmpty = Arrays.stream(after).filter(dir -> dir.list().length > 0).count();
+    assertEquals(2, nonEmpty);
+    assertTrue(Arrays.stream(after).noneMatch(dir -> dir.getName().contains("token")));
+
+    // token-2 was evicted, so it starts over with a full response
+    fakeGitHub.reset();
+    factory.getClient("token-2").getMyself();
+    assertEquals(1, fakeGitHub.getFullResponses());
+    assertFalse(factory.size() > 2);
+  }
+
+  @Test
+  public void caches_are_deleted_when_the_factory_is_closed() throws Exception {
+    factory.getClient("token-1").getMyself();
+    factory.getClient("token-2").getMyself();
+    assertEquals(2, caches().length);
+
+    factory.close();
+
+    assertEquals(0, caches().length);
+  }
+
+  @Test
+  public void caches_left_by_an_earlier_run_are_deleted_at_startup() throws Exception {
+    Path stale = cacheDir.resolve(GithubApiGovernor.tokenKey("old-token"));
+    Files.createDirectories(stale);
+    Files.writeString(stale.resolve("journal"), "libcore.io.DiskLruCache");
+    Path other = Files.createDirectories(cacheDir.resolve("not-a-cache"));
+
+    factory.deleteStaleCaches();
+
+    assertFalse(Files.exists(stale));
+    assertTrue(Files.exists(other));
+  }
+}
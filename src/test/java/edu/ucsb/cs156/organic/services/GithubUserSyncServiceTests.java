@@ -0,0 +1,273 @@
+package edu.ucsb.cs156.organic.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kohsuke.github.GitHubBuilder;
+import org.kohsuke.github.extras.okhttp3.OkHttpGitHubConnector;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.organic.entities.User;
+import edu.ucsb.cs156.organic.entities.UserEmail;
+import edu.ucsb.cs156.organic.entities.jobs.Job;
+import edu.ucsb.cs156.organic.errors.JobAlreadyRunningException;
+import edu.ucsb.cs156.organic.models.UserSyncResult;
+import edu.ucsb.cs156.organic.repositories.UserEmailRepository;
+import edu.ucsb.cs156.organic.repositories.UserRepository;
+import edu.ucsb.cs156.organic.repositories.jobs.JobsRepository;
+import edu.ucsb.cs156.organic.services.jobs.JobContext;
+import edu.ucsb.cs156.organic.services.jobs.JobContextConsumer;
+import edu.ucsb.cs156.organic.services.jobs.JobService;
+import edu.ucsb.cs156.organic.testconfig.FakeGitHubServer;
+import okhttp3.OkHttpClient;
+
+@ExtendWith(SpringExtension.class)
+@Import({GithubUserSyncService.class, UserChangeTracker.class, GithubApiGovernor.class})
+@TestPropertySource(properties = {
+    "app.github.rateLimitReserve=10",
+    "app.github.breaker.failureThreshold=1" })
+// the governor's breaker and the running sync job are reset for each test
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class GithubUserSyncServiceTests {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  UserEmailRepository userEmailRepository;
+
+  @MockBean
+  JobService jobService;
+
+  @MockBean
+  GithubClientFactory githubClientFactory;
+
+  @MockBean
+  JobsRepository jobsRepository;
+
+  @Autowired
+  GithubApiGovernor governor;
+
+  @Autowired
+  GithubUserSyncService githubUserSyncService;
+
+  // runs the job launched last, as JobService would, which also lets the
+  // next one start
+  private Job finishLaunchedJob(int launches) throws Exception {
+    ArgumentCaptor<JobContextConsumer> captor = ArgumentCaptor.forClass(JobContextConsumer.class);
+    verify(jobService, times(launches)).runAsJob(captor.capture(), eq(0L));
+    Job job = Job.builder().build();
+    captor.getValue().accept(new JobContext(jobsRepository, job));
+    return job;
+  }
+
+  @Test
+  public void launchSyncJob_runs_a_github_user_sync_job() throws Exception {
+    // arrange
+    Job job = Job.builder().status("running").build();
+    when(jobService.runAsJob(any(), eq(0L))).thenReturn(job);
+
+    // act
+    Job result = githubUserSyncService.launchSyncJob();
+
+    // assert
+    assertSame(job, result);
+    assertTrue(githubUserSyncService.isSyncRunning());
+    Job finished = finishLaunchedJob(1);
+    assertTrue(finished.getLog().startsWith("Syncing users active since"));
+    assertFalse(githubUserSyncService.isSyncRunning());
+  }
+
+  @Test
+  public void only_one_sync_job_runs_at_a_time() throws Exception {
+    githubUserSyncService.launchSyncJob();
+
+    assertThrows(JobAlreadyRunningException.class, () -> githubUserSyncService.launchSyncJob());
+    githubUserSyncService.scheduledSync();
+
+    finishLaunchedJob(1);
+    githubUserSyncService.launchSyncJob();
+    finishLaunchedJob(2);
+  }
+
+  @Test
+  public void a_job_that_fails_to_launch_does_not_block_the_next() throws Exception {
+    when(jobService.runAsJob(any(), eq(0L))).thenThrow(new RuntimeException("database down"));
+
+    assertThrows(RuntimeException.class, () -> githubUserSyncService.launchSyncJob());
+    assertFalse(githubUserSyncService.isSyncRunning());
+  }
+
+  @Test
+  public void scheduledSync_launches_the_job_when_users_have_been_online() throws Exception {
+    when(userRepository.existsByLastOnlineAfter(any())).thenReturn(true);
+
+    githubUserSyncService.scheduledSync();
+
+    finishLaunchedJob(1);
+  }
+
+  @Test
+  public void scheduledSync_does_nothing_when_nobody_has_been_online() {
+    when(userRepository.existsByLastOnlineAfter(any())).thenReturn(false);
+
+    githubUserSyncService.scheduledSync();
+
+    verify(jobService, never()).runAsJob(any(), eq(0L));
+  }
+
+  @Test
+  public void syncUser_fails_without_a_token() {
+    User user = User.builder().githubId(1).build();
+
+    assertFalse(githubUserSyncService.syncUser(user).isSynced());
+    verify(userRepository, never()).save(any());
+  }
+
+  @Test
+  public void syncUser_copies_profile_and_emails_from_github() throws Exception {
+    User user = User.builder().githubId(1).githubLogin("old-login").accessToken("token").build();
+    when(userRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    when(userEmailRepository.findByUserGithubId(1)).thenReturn(List.of());
+
+    try (FakeGitHubServer fakeGitHub = new FakeGitHubServer()) {
+      fakeGitHub.respond("/user", "{\"id\":1,\"login\":\"cgaucho\",\"avatar_url\":\"https://example.org/cgaucho.png\"}");
+      fakeGitHub.respond("/user/emails", "[{\"email\":\"cgaucho@ucsb.edu\",\"primary\":true,\"verified\":true}]");
+      when(githubClientFactory.getClient("token")).thenReturn(
+          new GitHubBuilder().withEndpoint(fakeGitHub.getUrl()).withOAuthToken("token").build());
+
+      UserSyncResult result = githubUserSyncService.syncUser(user);
+
+      assertTrue(result.isSynced());
+      assertEquals(2, result.getRowsWritten());
+    }
+    assertEquals("cgaucho", user.getGithubLogin());
+    assertEquals("cgaucho@ucsb.edu", user.getEmail());
+    assertTrue(user.isEmailVerified());
+    verify(userRepository).save(user);
+    verify(userEmailRepository).saveAll(List.of(UserEmail.builder().user(user).email("cgaucho@ucsb.edu").build()));
+  }
+
+  @Test
+  public void syncUser_fails_when_github_client_cannot_be_built() throws Exception {
+    User user = User.builder().githubId(1).accessToken("token").build();
+    when(githubClientFactory.getClient("token")).thenThrow(new IOException("bad endpoint"));
+
+    assertFalse(githubUserSyncService.syncUser(user).isSynced());
+    verify(userRepository, never()).save(any());
+  }
+
+  @Test
+  public void syncUser_is_deferred_when_the_governor_refuses_the_call() throws Exception {
+    User user = User.builder().githubId(1).accessToken("token").build();
+
+    try (FakeGitHubServer fakeGitHub = new FakeGitHubServer()) {
+      fakeGitHub.failWith(502);
+      OkHttpClient okHttpClient = new OkHttpClient.Builder()
+          .addInterceptor(governor.interceptor(GithubApiGovernor.tokenKey("token")))
+          .build();
+      when(githubClientFactory.getClient("token")).thenAnswer(invocation -> new GitHubBuilder()
+          .withEndpoint(fakeGitHub.getUrl())
+          .withOAuthToken("token")
+          .withConnector(new OkHttpGitHubConnector(okHttpClient))
+          .build());
+
+      // the first call fails and opens the breaker; github-api's retry (and
+      // any later call) is refused
+      githubUserSyncService.syncUser(user);
+      UserSyncResult result = githubUserSyncService.syncUser(user);
+
+      assertTrue(result.isDeferred());
+      assertFalse(result.isSynced());
+    }
+    verify(userRepository, never()).save(any());
+  }
+
+  @Test
+  public void syncUser_is_deferred_when_the_governor_refuses_the_emails_call() throws Exception {
+    User user = User.builder().githubId(1).accessToken("token").build();
+
+    try (FakeGitHubServer fakeGitHub = new FakeGitHubServer()) {
+      fakeGitHub.respond("/user", "{\"id\":1,\"login\":\"cgaucho\"}");
+      fakeGitHub.setRateLimitRemaining(10);
+      OkHttpClient okHttpClient = new OkHttpClient.Builder()
+          .addInterceptor(governor.interceptor(GithubApiGovernor.tokenKey("token")))
+          .build();
+      when(githubClientFactory.getClient("token")).thenReturn(new GitHubBuilder()
+          .withEndpoint(fakeGitHub.getUrl())
+          .withOAuthToken("token")
+          .withConnector(new OkHttpGitHubConnector(okHttpClient))
+          .build());
+
+      assertTrue(githubUserSyncService.syncUser(user).isDeferred());
+    }
+    verify(userRepository, never()).save(any());
+  }
+
+  @Test
+  public void syncUser_fails_when_github_returns_an_error_for_emails() throws Exception {
+    User user = User.builder().githubId(1).accessToken("token").build();
+
+    try (FakeGitHubServer fakeGitHub = new FakeGitHubServer()) {
+      fakeGitHub.respond("/user", "{\"id\":1,\"login\":\"cgaucho\"}");
+      when(githubClientFactory.getClient("token")).thenReturn(
+          new GitHubBuilder().withEndpoint(fakeGitHub.getUrl()).withOAuthToken("token").build());
+
+      UserSyncResult result = githubUserSyncService.syncUser(user);
+
+      assertFalse(result.isSynced());
+      assertFalse(result.isDeferred());
+    }
+  }
+
+  @Test
+  public void syncEmails_writes_nothing_when_emails_are_unchanged() {
+    User user = User.builder().githubId(1).build();
+    when(userEmailRepository.findByUserGithubId(1)).thenReturn(List.of(
+        UserEmail.builder().user(user).email("a@ucsb.edu").build(),
+        UserEmail.builder().user(user).email("b@ucsb.edu").build()));
+
+    int rowsWritten = githubUserSyncService.syncEmails(user, List.of("b@ucsb.edu", "a@ucsb.edu"));
+
+    assertEquals(0, rowsWritten);
+    verify(userEmailRepository, never()).saveAll(anyIterable());
+    verify(userEmailRepository, never()).deleteAll(anyIterable());
+  }
+
+  @Test
+  public void syncEmails_inserts_and_deletes_only_the_difference() {
+    User user = User.builder().githubId(1).build();
+    UserEmail kept = UserEmail.builder().user(user).email("kept@ucsb.edu").build();
+    UserEmail removed = UserEmail.builder().user(user).email("removed@ucsb.edu").build();
+    when(userEmailRepository.findByUserGithubId(1)).thenReturn(List.of(kept, removed));
+
+    int rowsWritten = githubUserSyncService.syncEmails(user,
+        List.of("kept@ucsb.edu", "new@ucsb.edu", "new@ucsb.edu"));
+
+    assertEquals(2, rowsWritten);
+    verify(userEmailRepository).deleteAll(List.of(removed));
+    verify(userEmailRepository).saveAll(List.of(UserEmail.builder().user(user).email("new@ucsb.edu").build()));
+  }
+}
@@ -0,0 +1,95 @@
+package edu.ucsb.cs156.organic.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.organic.models.BufferStats;
+import edu.ucsb.cs156.organic.repositories.UserRepository;
+
+@ExtendWith(SpringExtension.class)
+@Import(LastOnlineBuffer.class)
+// nothing pending and zeroed stats at the start of each test
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class LastOnlineBufferTests {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @Autowired
+  LastOnlineBuffer buffer;
+
+  Timestamp t1 = new Timestamp(1000);
+  Timestamp t2 = new Timestamp(2000);
+
+  @Test
+  public void heartbeats_are_coalesced_to_the_latest_per_user() {
+    buffer.record(1, t1);
+    buffer.record(1, t2);
+    buffer.record(1, t1); // out of order heartbeat from another tab
+    buffer.record(2, t1);
+    when(userRepository.updateLastOnline(any())).thenReturn(2);
+
+    buffer.flush();
+
+    verify(userRepository, times(1)).updateLastOnline(Map.of(1, t2, 2, t1));
+    BufferStats stats = buffer.getStats();
+    assertEquals(0, stats.getSize());
+    assertEquals(4, stats.getRecorded());
+    assertEquals(1, stats.getFlushes());
+    assertEquals(2, stats.getRowsFlushed());
+  }
+
+  @Test
+  public void empty_buffer_does_not_touch_the_database() {
+    buffer.flush();
+
+    verify(userRepository, never()).updateLastOnline(any());
+    assertEquals(0, buffer.getStats().getFlushes());
+  }
+
+  @Test
+  public void failed_flush_keeps_heartbeats_for_the_next_flush() {
+    buffer.record(1, t1);
+    when(userRepository.updateLastOnline(any()))
+        .thenThrow(new QueryTimeoutException("timeout"))
+        .thenReturn(1);
+
+    buffer.flush();
+    // a newer heartbeat arrives before the retry
+    buffer.record(1, t2);
+
+    assertEquals(1, buffer.getStats().getSize());
+    assertEquals(1, buffer.getStats().getFailedFlushes());
+
+    buffer.flush();
+
+    verify(userRepository, times(1)).updateLastOnline(Map.of(1, t2));
+    assertEquals(0, buffer.getStats().getSize());
+  }
+
+  @Test
+  public void shutdown_flushes_pending_heartbeats() {
+    buffer.record(3, t1);
+
+    buffer.flushOnShutdown();
+
+    verify(userRepository, times(1)).updateLastOnline(Map.of(3, t1));
+  }
+}
@@ -0,0 +1,480 @@
+package edu.ucsb.cs156.organic.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import edu.ucsb.cs156.organic.entities.RosterUpload;
+import edu.ucsb.cs156.organic.entities.Student;
+import edu.ucsb.cs156.organic.entities.jobs.Job;
+import edu.ucsb.cs156.organic.models.RosterImportResult;
+import edu.ucsb.cs156.organic.models.RosterStudent;
+import edu.ucsb.cs156.organic.repositories.RosterUploadRepository;
+import edu.ucsb.cs156.organic.repositories.StudentRepository;
+import edu.ucsb.cs156.organic.repositories.jobs.JobsRepository;
+import edu.ucsb.cs156.organic.services.jobs.JobContext;
+import edu.ucsb.cs156.organic.services.jobs.JobContextConsumer;
+import edu.ucsb.cs156.organic.services.jobs.JobService;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@ExtendWith(SpringExtension.class)
+@Import(RosterImportService.class)
+@TestPropertySource(properties = {
+    "app.rosterImport.chunkSize=2",
+    "app.rosterImport.progressEveryRows=2"
+})
+public class RosterImportServiceTests {
+
+  static final String HEADER = "Enrl Cd,Perm #,Grade,Final Units,Student Last,Student First Middle,Quarter,"
+      + "Course ID,Section,Meeting Time(s) / Location(s),Email,ClassLevel,Major1,Major2,Date/Time,Pronoun\n\n";
+
+  static final int LARGE_ROSTER = 500_000;
+  static final String SMALL_HEAP = "-Xmx96m";
+
+  @MockBean
+  StudentRepository studentRepository;
+
+  @MockBean
+  RosterUploadRepository rosterUploadRepository;
+
+  @MockBean
+  JobService jobService;
+
+  @MockBean
+  JobsRepository jobsRepository;
+
+  @Autowired
+  RosterImportService rosterImportService;
+
+  Course course = Course.builder().id(1L).name("CS156").school("UCSB").term("F23").build();
+
+  static String row(int i) {
+    return "%05d,A%06d,,4.0,LAST%d,FIRST%d,F23,CMPSC156,%04d,T R   2:00- 3:15 SH 1431     W    5:00- 5:50 PHELP 3525  ,"
+        .formatted(i % 100_000, i, i, i, 100 * (1 + i % 20))
+        + "student%d@umail.ucsb.edu,SR,CMPSC,,9/27/2023 9:39:25 AM,\n".formatted(i);
+  }
+
+  /**
+   * An egrades roster of the given size, made up a line at a time as it is
+   * read, so that the test itself never holds the whole file.
+   */
+  static Reader roster(int rows) {
+    return new Reader() {
+      int next = 0;
+      String line = HEADER;
+      int position = 0;
+
+      @Override
+      public int read(char[] buffer, int offset, int length) {
+        while (position == line.length()) {
+          if (next == rows) {
+            return -1;
+          }
+          line = row(next++);
+          position = 0;
+        }
+        int count = Math.min(length, line.length() - position);
+        line.getChars(position, position + count, buffer, offset);
+        position += count;
+        return count;
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+  }
+
+  /**
+   * The roster of {@link #roster(int)}, as the bytes of an uploaded file.
+   */
+  static InputStream upload(int rows) {
+    return new InputStream() {
+      int next = 0;
+      byte[] line = HEADER.getBytes(StandardCharsets.US_ASCII);
+      int position = 0;
+
+      @Override
+      public int read() {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+      }
+
+      @Override
+      public int read(byte[] buffer, int offset, int length) {
+        while (position == line.length) {
+          if (next == rows) {
+            return -1;
+          }
+          line = row(next++).getBytes(StandardCharsets.US_ASCII);
+          position = 0;
+        }
+        int count = Math.min(length, line.length - position);
+        System.arraycopy(line, position, buffer, offset, count);
+        position += count;
+        return count;
+      }
+    };
+  }
+
+  private Student student(int i) {
+    return Student.builder()
+        .courseId(1L)
+        .studentId("A%06d".formatted(i))
+        .fname("FIRST" + i)
+        .lname("LAST" + i)
+        .email("student%d@umail.ucsb.edu".formatted(i))
+        .build();
+  }
+
+  private RosterStudent rosterStudent(long id, Student student) {
+    return new RosterStudent(id, student.getStudentId(), student.getFname(), student.getLname(), student.getEmail());
+  }
+
+  @Test
+  public void rows_are_classified_against_students_loaded_once() throws Exception {
+    Student changed = student(1);
+    changed.setEmail("old@ucsb.edu");
+    when(studentRepository.findRosterByCourseId(1L))
+        .thenReturn(List.of(rosterStudent(11, changed), rosterStudent(12, student(2))));
+
+    RosterImportResult result = rosterImportService.importEgrades(course, roster(5));
+
+    assertEquals(3, result.getInserted());
+    assertEquals(1, result.getUpdated());
+    assertEquals(1, result.getUnchanged());
+    assertEquals(3, result.getChunks());
+    verify(studentRepository, times(1)).findRosterByCourseId(1L);
+    // nobody is listed twice, so nothing is looked up after the preload
+    verify(studentRepository, never()).findRosterByCourseIdAndStudentIdIn(any(), any());
+    verify(studentRepository, never()).findByCourseIdAndStudentId(any(), any());
+    verify(studentRepository, never()).save(any());
+
+    // chunks of 2: rows 0 and 1, rows 2 and 3, row 4
+    verify(studentRepository, times(1)).upsertAll(List.of(student(0), student(1)));
+    verify(studentRepository, times(1)).upsertAll(List.of(student(3)));
+    verify(studentRepository, times(1)).upsertAll(List.of(student(4)));
+  }
+
+  @Test
+  public void a_student_listed_again_in_a_later_chunk_is_not_inserted_twice() throws Exception {
+    Student first = student(1);
+    Student again = student(1);
+    again.setEmail("new@ucsb.edu");
+    when(studentRepository.findRosterByCourseIdAndStudentIdIn(1L, Set.of(first.getStudentId())))
+        .thenReturn(List.of(rosterStudent(21, first)));
+
+    RosterImportResult result = rosterImportService.importEgrades(course,
+        new StringReader(HEADER + row(1) + row(2) + row(1).replace("student1@umail.ucsb.edu", "new@ucsb.edu")));
+
+    assertEquals(2, result.getInserted());
+    assertEquals(1, result.getUpdated());
+    verify(studentRepository, times(1)).upsertAll(List.of(again));
+  }
+
+  @Test
+  public void a_student_listed_twice_in_a_chunk_is_inserted_once_with_the_last_values() throws Exception {
+    Student last = student(1);
+    last.setEmail("new@ucsb.edu");
+
+    RosterImportResult result = rosterImportService.importEgrades(course, new StringReader(
+        HEADER + row(1) + row(1).replace("student1@umail.ucsb.edu", "new@ucsb.edu")));
+
+    assertEquals(1, result.getInserted());
+    assertEquals(1, result.getUpdated());
+    assertEquals(1, result.getChunks());
+    verify(studentRepository, times(1)).upsertAll(List.of(last));
+    verify(studentRepository, never()).findRosterByCourseIdAndStudentIdIn(any(), any());
+  }
+
+  @Test
+  public void progress_is_reported_after_each_chunk() throws Exception {
+    List<Integer> rows = new ArrayList<>();
+    List<Integer> chunks = new ArrayList<>();
+
+    rosterImportService.importEgrades(course, roster(5), progress -> {
+      rows.add(progress.getRows());
+      chunks.add(progress.getChunks());
+    });
+
+    assertEquals(List.of(2, 4, 5), rows);
+    assertEquals(List.of(1, 2, 3), chunks);
+  }
+
+  @Test
+  public void uploads_are_copied_and_imported_by_a_job() throws Exception {
+    Job launched = Job.builder().status("running").build();
+    when(jobService.runAsJob(any(), eq(0L))).thenReturn(launched);
+
+    Job returned = rosterImportService.launchImportJob(course, "egrades.csv",
+        new ByteArrayInputStream((HEADER + row(1) + row(2) + row(3)).getBytes(StandardCharsets.UTF_8)));
+
+    assertSame(launched, returned);
+    ArgumentCaptor<JobContextConsumer> captor = ArgumentCaptor.forClass(JobContextConsumer.class);
+    verify(jobService).runAsJob(captor.capture(), eq(0L));
+
+    // the request is over by now; the job still has the roster to read
+    Job job = Job.builder().build();
+    captor.getValue().accept(new JobContext(jobsRepository, job));
+    assertTrue(job.getLog().startsWith("""
+        Importing egrades roster egrades.csv into course 1
+        Processed 2 rows: 2 inserted, 0 updated
+        Roster import complete: 3 rows, 3 inserted, 0 updated, 0 unchanged in """), job.getLog());
+    verify(studentRepository, times(1)).upsertAll(List.of(student(1), student(2)));
+    verify(studentRepository, times(1)).upsertAll(List.of(student(3)));
+    verify(rosterUploadRepository, times(1)).upsert(any());
+  }
+
+  private static Set<Path> uploadCopies() throws IOException {
+    try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+      return files.filter(file -> file.getFileName().toString().matches("egrades-.*\\.csv"))
+          .collect(Collectors.toSet());
+    }
+  }
+
+  @Test
+  public void the_copy_is_deleted_when_the_job_cannot_be_started() throws Exception {
+    Set<Path> before = uploadCopies();
+    when(jobService.runAsJob(any(), eq(0L))).thenAnswer(invocation -> {
+      assertEquals(before.size() + 1, uploadCopies().size());
+      throw new IllegalStateException("no database");
+    });
+
+    IllegalStateException e = assertThrows(IllegalStateException.class,
+        () -> rosterImportService.launchImportJob(course, "egrades.csv",
+            new ByteArrayInputStream((HEADER + row(1)).getBytes(StandardCharsets.UTF_8))));
+
+    assertEquals("no database", e.getMessage());
+    assertEquals(before, uploadCopies());
+  }
+
+  @Test
+  public void uploads_are_hashed_with_sha256() throws Exception {
+    assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+        RosterImportService.sha256(new ByteArrayInputStream("abc".getBytes(StandardCharsets.US_ASCII))));
+  }
+
+  @Test
+  public void imported_uploads_are_recorded_as_the_course_s_last() throws Exception {
+    RosterImportResult result = rosterImportService.importUpload(course, "egrades.csv", "abc123", roster(3));
+
+    assertEquals(3, result.getInserted());
+    ArgumentCaptor<RosterUpload> captor = ArgumentCaptor.forClass(RosterUpload.class);
+    verify(rosterUploadRepository).upsert(captor.capture());
+    RosterUpload upload = captor.getValue();
+    assertEquals(1L, upload.getCourseId());
+    assertEquals("abc123", upload.getSha256());
+    assertEquals("egrades.csv", upload.getFilename());
+    assertEquals(3, upload.getInserted());
+    assertNotNull(upload.getUploadedAt());
+  }
+
+  @Test
+  public void uploaded_files_are_hashed_then_imported() throws Exception {
+    byte[] csv = (HEADER + row(1) + row(2)).getBytes(StandardCharsets.UTF_8);
+
+    RosterImportResult result = rosterImportService.importUpload(course, "egrades.csv", new ByteArrayResource(csv));
+
+    assertEquals(2, result.getInserted());
+    ArgumentCaptor<RosterUpload> captor = ArgumentCaptor.forClass(RosterUpload.class);
+    verify(rosterUploadRepository).upsert(captor.capture());
+    assertEquals(RosterImportService.sha256(new ByteArrayInputStream(csv)), captor.getValue().getSha256());
+  }
+
+  @Test
+  public void the_same_file_again_returns_the_last_result_without_reading_it() throws Exception {
+    when(rosterUploadRepository.findByCourseId(1L)).thenReturn(Optional.of(RosterUpload.builder()
+        .courseId(1L).sha256("abc123").inserted(3).updated(1).unchanged(2).build()));
+    boolean[] closed = { false };
+    Reader reader = new StringReader(HEADER + row(1)) {
+      @Override
+      public void close() {
+        closed[0] = true;
+      }
+    };
+
+    RosterImportResult result = rosterImportService.importUpload(course, "egrades.csv", "abc123", reader);
+
+    assertTrue(result.isAlreadyImported());
+    assertEquals(3, result.getInserted());
+    assertEquals(1, result.getUpdated());
+    assertEquals(2, result.getUnchanged());
+    assertTrue(closed[0]);
+    verify(studentRepository, never()).findRosterByCourseId(any());
+    verify(studentRepository, never()).upsertAll(any());
+    verify(rosterUploadRepository, never()).upsert(any());
+  }
+
+  @Test
+  public void a_different_file_is_imported_and_replaces_the_last_upload() throws Exception {
+    RosterUpload previous = RosterUpload.builder().id(5).courseId(1L).sha256("abc123").inserted(3).build();
+    when(rosterUploadRepository.findByCourseId(1L)).thenReturn(Optional.of(previous));
+    when(studentRepository.findRosterByCourseId(1L)).thenReturn(List.of(rosterStudent(11, student(0))));
+
+    RosterImportResult result = rosterImportService.importUpload(course, "egrades2.csv", "def456", roster(2));
+
+    assertFalse(result.isAlreadyImported());
+    assertEquals(1, result.getInserted());
+    assertEquals(1, result.getUnchanged());
+    // only the student not in the course yet is written
+    verify(studentRepository, times(1)).upsertAll(List.of(student(1)));
+    ArgumentCaptor<RosterUpload> captor = ArgumentCaptor.forClass(RosterUpload.class);
+    verify(rosterUploadRepository).upsert(captor.capture());
+    RosterUpload upload = captor.getValue();
+    assertEquals(1L, upload.getCourseId());
+    assertEquals("def456", upload.getSha256());
+    assertEquals("egrades2.csv", upload.getFilename());
+    assertEquals(1, upload.getInserted());
+    assertEquals(1, upload.getUnchanged());
+  }
+
+  @Test
+  public void blank_lines_are_skipped() throws Exception {
+    RosterImportResult result = rosterImportService.importEgrades(course,
+        new StringReader(HEADER + row(1) + "\n" + row(2) + "\n"));
+
+    assertEquals(2, result.getInserted());
+    assertEquals(1, result.getChunks());
+  }
+
+  @Test
+  public void an_empty_roster_imports_nothing() throws Exception {
+    RosterImportResult result = rosterImportService.importEgrades(course, new StringReader(HEADER));
+
+    assertEquals(0, result.getInserted());
+    assertEquals(0, result.getChunks());
+  }
+
+  /**
+   * Not part of the normal build, since it takes a while; run with
+   *
+   *   mvn test -Dtest=RosterImportServiceTests -Dbenchmark=true
+   */
+  @Test
+  @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+  public void a_large_roster_is_imported_in_a_small_heap() throws Exception {
+    // a JVM of its own, since the heap of this one is neither small nor ours;
+    // its output goes to a file so that nothing blocks on a full pipe
+    Path output = Files.createTempFile("large-roster-", ".log");
+    try {
+      Process process = new ProcessBuilder(
+          Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+          SMALL_HEAP,
+          "-cp", System.getProperty("java.class.path"),
+          LargeRosterImport.class.getName())
+          .redirectErrorStream(true)
+          .redirectOutput(output.toFile())
+          .start();
+      boolean finished = process.waitFor(5, TimeUnit.MINUTES);
+      if (!finished) {
+        process.destroyForcibly().waitFor();
+      }
+      String printed = Files.readString(output, StandardCharsets.UTF_8);
+      log.info("{} row roster with {}:\n{}", LARGE_ROSTER, SMALL_HEAP, printed);
+
+      assertTrue(finished, "import did not finish in 5 minutes:\n" + printed);
+      assertEquals(0, process.exitValue(), printed);
+      assertTrue(printed.contains("upload inserted=" + LARGE_ROSTER + " "), printed);
+      assertTrue(printed.contains("job Roster import complete: %d rows, %d inserted".formatted(LARGE_ROSTER,
+          LARGE_ROSTER)), printed);
+    } finally {
+      Files.deleteIfExists(output);
+    }
+  }
+
+  /**
+   * Imports an upload of LARGE_ROSTER students twice, the two ways
+   * StudentsController does: in the request, through importUpload with the
+   * file (hashed, then read), and as a job, through launchImportJob with the
+   * file's stream (hashed while copied, then read by the job).  Chunks are
+   * the default size and the repositories keep nothing.  Prints the counts
+   * of both and the peak heap use.  The child JVM has no test context, so it
+   * makes a small one.
+   */
+  public static class LargeRosterImport {
+    public static void main(String[] args) throws Exception {
+      // stubOnly, since a normal mock would remember every call made to it
+      JobsRepository jobsRepository = mock(JobsRepository.class, withSettings().stubOnly());
+      Job job = Job.builder().build();
+      JobService jobService = mock(JobService.class);
+      when(jobService.runAsJob(any(), eq(0L))).thenAnswer(invocation -> {
+        // run at once, rather than on another thread
+        invocation.<JobContextConsumer>getArgument(0).accept(new JobContext(jobsRepository, job));
+        return job;
+      });
+
+      RosterImportResult result;
+      try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+        // singletons, so that nothing is injected into the mocks
+        context.getBeanFactory().registerSingleton("studentRepository",
+            mock(StudentRepository.class, withSettings().stubOnly()));
+        context.getBeanFactory().registerSingleton("rosterUploadRepository", mock(RosterUploadRepository.class));
+        context.getBeanFactory().registerSingleton("jobService", jobService);
+        context.register(RosterImportService.class);
+        context.refresh();
+
+        RosterImportService service = context.getBean(RosterImportService.class);
+        Course course = Course.builder().id(1L).build();
+        result = service.importUpload(course, "egrades.csv", () -> upload(LARGE_ROSTER));
+        service.launchImportJob(course, "egrades.csv", upload(LARGE_ROSTER));
+      }
+
+      long peakHeap = 0;
+      List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+      for (MemoryPoolMXBean pool : pools) {
+        if (pool.getType() == MemoryType.HEAP) {
+          peakHeap += pool.getPeakUsage().getUsed();
+        }
+      }
+      String jobLog = job.getLog();
+      System.out.printf("upload inserted=%d chunks=%d millis=%d%n", result.getInserted(), result.getChunks(),
+          result.getImportMillis());
+      System.out.printf("job %s%n", jobLog.substring(jobLog.lastIndexOf('\n') + 1));
+      System.out.printf("peakHeapMB=%d%n", peakHeap / (1024 * 1024));
+    }
+  }
+}
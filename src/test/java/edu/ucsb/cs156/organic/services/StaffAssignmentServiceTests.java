@@ -0,0 +1,144 @@
+package edu.ucsb.cs156.organic.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import edu.ucsb.cs156.organic.entities.Course;
+import edu.ucsb.cs156.organic.entities.Staff;
+import edu.ucsb.cs156.organic.entities.User;
+import edu.ucsb.cs156.organic.entities.UserEmail;
+import edu.ucsb.cs156.organic.models.StaffBatchLoginResult;
+import edu.ucsb.cs156.organic.models.StaffBatchResult;
+import edu.ucsb.cs156.organic.repositories.CourseRepository;
+import edu.ucsb.cs156.organic.repositories.StaffRepository;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ StaffAssignmentService.class, StaffAuthorizationIndex.class })
+public class StaffAssignmentServiceTests {
+
+  static final int TEAM = 30;
+
+  @Autowired
+  StaffAssignmentService staffAssignmentService;
+
+  @Autowired
+  CourseRepository courseRepository;
+
+  @Autowired
+  StaffRepository staffRepository;
+
+  @Autowired
+  StaffAuthorizationIndex staffAuthorizationIndex;
+
+  @Autowired
+  TestEntityManager entityManager;
+
+  Statistics statistics;
+  Course course;
+
+  @BeforeEach
+  public void setup() {
+    course = courseRepository.save(Course.builder().name("CS156").school("UCSB").term("F23").build());
+    for (int i = 1; i <= TEAM; i++) {
+      User user = entityManager.persist(User.builder().githubId(i).githubLogin("ta" + i).build());
+      entityManager.persist(UserEmail.builder().email("ta" + i + "@ucsb.edu").user(user).build());
+    }
+    staffRepository.save(Staff.builder().courseId(course.getId()).githubId(1).build());
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics = entityManager.getEntityManager().getEntityManagerFactory()
+        .unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  private List<String> team() {
+    List<String> logins = new ArrayList<>();
+    for (int i = 1; i <= TEAM; i++) {
+      logins.add("ta" + i);
+    }
+    return logins;
+  }
+
+  private long staffCount() {
+    return StreamSupport.stream(staffRepository.findByCourseId(course.getId()).spliterator(), false).count();
+  }
+
+  @Test
+  public void a_team_is_added_with_two_queries_and_one_batch_insert() {
+    List<String> logins = team();
+    logins.add("nobody");
+    logins.add(" ta2 ");
+
+    StaffBatchResult result = staffAssignmentService.addStaff(course, logins);
+
+    // the inserts go through JDBC, so only the two lookups are counted here
+    assertEquals(2, statistics.getPrepareStatementCount());
+    // logins are looked up as (githubLogin, githubId) pairs, not as users
+    assertEquals(0, statistics.getEntityLoadCount());
+    assertEquals(TEAM - 1, result.getAdded());
+    assertEquals(1, result.getAlreadyStaff());
+    assertEquals(1, result.getNotFound());
+    assertEquals(TEAM + 1, result.getResults().size());
+
+    StaffBatchLoginResult first = result.getResults().get(0);
+    assertEquals("ta1", first.getGithubLogin());
+    assertEquals("ALREADY_STAFF", first.getStatus());
+    assertEquals(1, first.getGithubId());
+    assertEquals("ADDED", result.getResults().get(1).getStatus());
+    StaffBatchLoginResult last = result.getResults().get(TEAM);
+    assertEquals("nobody", last.getGithubLogin());
+    assertEquals("NOT_FOUND", last.getStatus());
+    assertNull(last.getGithubId());
+
+    assertEquals(TEAM, staffCount());
+    assertTrue(staffAuthorizationIndex.isStaff(TEAM, course.getId()));
+  }
+
+  @Test
+  public void adding_the_same_team_again_adds_nobody() {
+    staffAssignmentService.addStaff(course, team());
+    StaffBatchResult result = staffAssignmentService.addStaff(course, team());
+
+    assertEquals(0, result.getAdded());
+    assertEquals(TEAM, result.getAlreadyStaff());
+    assertEquals(TEAM, staffCount());
+  }
+
+  @Test
+  public void unknown_logins_only_take_one_query() {
+    StaffBatchResult result = staffAssignmentService.addStaff(course, List.of("nobody", "noone"));
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(2, result.getNotFound());
+    assertEquals(1, staffCount());
+  }
+
+  @Test
+  public void empty_and_oversized_batches_are_rejected() {
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> staffAssignmentService.addStaff(course, List.of(" ", "")));
+    assertEquals("no github logins given", e.getMessage());
+
+    // app.staffBatch.maxLogins is 500 by default
+    e = assertThrows(IllegalArgumentException.class,
+        () -> staffAssignmentService.addStaff(course, Collections.nCopies(501, "ta1")));
+    assertEquals("at most 500 staff can be added at once", e.getMessage());
+  }
+}
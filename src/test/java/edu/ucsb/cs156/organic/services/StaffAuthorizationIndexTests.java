@@ -0,0 +1,158 @@
+package edu.ucsb.cs156.organic.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import edu.ucsb.cs156.organic.entities.Staff;
+import edu.ucsb.cs156.organic.events.CourseDeletedEvent;
+import edu.ucsb.cs156.organic.events.StaffAddedEvent;
+import edu.ucsb.cs156.organic.events.StaffRemovedEvent;
+import edu.ucsb.cs156.organic.repositories.StaffRepository;
+
+@ExtendWith(SpringExtension.class)
+@Import(StaffAuthorizationIndex.class)
+// the index is filled lazily, so each test starts with it empty
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class StaffAuthorizationIndexTests {
+
+  @MockBean
+  StaffRepository staffRepository;
+
+  @Autowired
+  StaffAuthorizationIndex index;
+
+  private Staff staff(int githubId, long courseId) {
+    return Staff.builder().githubId(githubId).courseId(courseId).build();
+  }
+
+  @Test
+  public void course_ids_are_loaded_once_sorted_and_deduplicated() {
+    when(staffRepository.findByGithubId(1)).thenReturn(List.of(staff(1, 7), staff(1, 3), staff(1, 7)));
+
+    assertArrayEquals(new long[] { 3, 7 }, index.courseIds(1));
+    assertTrue(index.isStaff(1, 7));
+    assertFalse(index.isStaff(1, 5));
+
+    verify(staffRepository, times(1)).findByGithubId(1);
+  }
+
+  @Test
+  public void changes_are_applied_to_loaded_users() {
+    when(staffRepository.findByGithubId(1)).thenReturn(List.of(staff(1, 3)));
+    index.courseIds(1);
+
+    index.staffAdded(1, 5);
+    index.staffAdded(1, 1);
+    index.staffAdded(1, 5);
+    assertArrayEquals(new long[] { 1, 3, 5 }, index.courseIds(1));
+
+    index.staffRemoved(1, 3);
+    index.staffRemoved(1, 42);
+    assertArrayEquals(new long[] { 1, 5 }, index.courseIds(1));
+
+    index.courseRemoved(1);
+    index.courseRemoved(5);
+    assertArrayEquals(new long[] {}, index.courseIds(1));
+
+    verify(staffRepository, times(1)).findByGithubId(1);
+  }
+
+  @Test
+  public void changes_for_users_not_yet_loaded_are_left_to_the_lazy_load() {
+    index.staffAdded(2, 9);
+    when(staffRepository.findByGithubId(2)).thenReturn(List.of(staff(2, 9)));
+
+    assertArrayEquals(new long[] { 9 }, index.courseIds(2));
+  }
+
+  @Test
+  public void load_racing_with_a_change_is_not_cached() {
+    when(staffRepository.findByGithubId(1)).thenReturn(List.of(staff(1, 3)));
+    index.courseIds(1);
+    when(staffRepository.findByGithubId(2)).thenAnswer(invocation -> {
+      index.staffAdded(1, 4);
+      return List.of(staff(2, 3));
+    });
+
+    index.courseIds(2);
+    index.courseIds(2);
+
+    verify(staffRepository, times(2)).findByGithubId(2);
+  }
+
+  @Test
+  public void load_racing_with_a_change_to_the_same_user_is_not_cached() {
+    // the load reads course 3, then user 1 is removed from it and added to
+    // course 4 before the load stores its result
+    when(staffRepository.findByGithubId(1)).thenAnswer(invocation -> {
+      index.staffRemoved(1, 3);
+      index.staffAdded(1, 4);
+      return List.of(staff(1, 3));
+    }).thenReturn(List.of(staff(1, 4)));
+
+    assertArrayEquals(new long[] { 3 }, index.courseIds(1));
+    assertArrayEquals(new long[] { 4 }, index.courseIds(1));
+    assertArrayEquals(new long[] { 4 }, index.courseIds(1));
+
+    verify(staffRepository, times(2)).findByGithubId(1);
+  }
+
+  @Test
+  public void changes_inside_a_transaction_wait_for_commit() {
+    when(staffRepository.findByGithubId(1)).thenReturn(List.of(staff(1, 3)));
+    index.courseIds(1);
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      index.staffRemoved(1, 3);
+      assertTrue(index.isStaff(1, 3));
+
+      TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+      assertFalse(index.isStaff(1, 3));
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  public void clear_forces_reload() {
+    when(staffRepository.findByGithubId(1)).thenReturn(List.of(staff(1, 3)));
+    index.courseIds(1);
+
+    index.clear();
+    index.courseIds(1);
+
+    verify(staffRepository, times(2)).findByGithubId(1);
+  }
+
+  @Test
+  public void staff_and_course_events_are_applied() {
+    when(staffRepository.findByGithubId(1)).thenReturn(List.of(staff(1, 3)));
+    index.courseIds(1);
+
+    index.onStaffAdded(new StaffAddedEvent(1, 5));
+    index.onStaffAdded(new StaffAddedEvent(1, 8));
+    assertArrayEquals(new long[] { 3, 5, 8 }, index.courseIds(1));
+
+    index.onStaffRemoved(new StaffRemovedEvent(1, 3));
+    index.onCourseDeleted(new CourseDeletedEvent(8));
+    assertArrayEquals(new long[] { 5 }, index.courseIds(1));
+  }
+}
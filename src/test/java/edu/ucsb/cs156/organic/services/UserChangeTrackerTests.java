@@ -0,0 +1,90 @@
+package edu.ucsb.cs156.organic.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.organic.entities.User;
+import edu.ucsb.cs156.organic.models.WriteStats;
+import edu.ucsb.cs156.organic.repositories.UserRepository;
+
+@ExtendWith(SpringExtension.class)
+@Import(UserChangeTracker.class)
+// write counts start at zero in each test
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class UserChangeTrackerTests {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @Autowired
+  UserChangeTracker tracker;
+
+  User user = User.builder()
+      .githubId(1)
+      .githubLogin("cgaucho")
+      .email("cgaucho@ucsb.edu")
+      .pictureUrl("https://example.org/cgaucho.png")
+      .accessToken("token-1")
+      .emailVerified(true)
+      .build();
+
+  @Test
+  public void unchanged_user_is_not_saved() {
+    UserChangeTracker.Snapshot before = tracker.snapshot(user);
+    // lastOnline is not tracked here
+    user.setLastOnline(null);
+
+    assertSame(user, tracker.saveIfChanged(user, before));
+
+    verify(userRepository, never()).save(any());
+    assertEquals(WriteStats.builder().writes(0).skippedWrites(1).build(), tracker.getStats());
+  }
+
+  @Test
+  public void changed_token_is_saved_once() {
+    User saved = User.builder().githubId(1).build();
+    when(userRepository.save(user)).thenReturn(saved);
+    UserChangeTracker.Snapshot before = tracker.snapshot(user);
+    user.setAccessToken("token-2");
+
+    assertSame(saved, tracker.saveIfChanged(user, before));
+
+    verify(userRepository, times(1)).save(user);
+    assertEquals(WriteStats.builder().writes(1).skippedWrites(0).build(), tracker.getStats());
+  }
+
+  @Test
+  public void each_tracked_field_counts_as_a_change() {
+    UserChangeTracker.Snapshot before = tracker.snapshot(user);
+
+    user.setEmail("other@ucsb.edu");
+    assertTrue(tracker.hasChanged(user, before));
+    user.setEmail("cgaucho@ucsb.edu");
+    user.setPictureUrl(null);
+    assertTrue(tracker.hasChanged(user, before));
+    user.setPictureUrl("https://example.org/cgaucho.png");
+    user.setGithubLogin("cgaucho2");
+    assertTrue(tracker.hasChanged(user, before));
+    user.setGithubLogin("cgaucho");
+    user.setEmailVerified(false);
+    assertTrue(tracker.hasChanged(user, before));
+    user.setEmailVerified(true);
+    assertFalse(tracker.hasChanged(user, before));
+  }
+}
@@ -0,0 +1,96 @@
+package edu.ucsb.cs156.organic.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.organic.entities.User;
+import edu.ucsb.cs156.organic.repositories.UserRepository;
+import edu.ucsb.cs156.organic.services.UserRoleCache.RoleFlags;
+
+@ExtendWith(SpringExtension.class)
+@Import(UserRoleCache.class)
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class UserRoleCacheTests {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @Autowired
+  UserRoleCache cache;
+
+  @Test
+  public void second_get_is_served_from_cache() {
+    when(userRepository.findByGithubId(1))
+        .thenReturn(Optional.of(User.builder().githubId(1).admin(true).build()));
+
+    assertEquals(Optional.of(new RoleFlags(true, false)), cache.get(1));
+    assertEquals(Optional.of(new RoleFlags(true, false)), cache.get(1));
+
+    verify(userRepository, times(1)).findByGithubId(1);
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void unknown_users_are_not_cached() {
+    when(userRepository.findByGithubId(2)).thenReturn(Optional.empty());
+
+    assertTrue(cache.get(2).isEmpty());
+    assertTrue(cache.get(2).isEmpty());
+
+    verify(userRepository, times(2)).findByGithubId(2);
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void invalidate_forces_reload() {
+    when(userRepository.findByGithubId(1))
+        .thenReturn(Optional.of(User.builder().githubId(1).instructor(false).build()))
+        .thenReturn(Optional.of(User.builder().githubId(1).instructor(true).build()));
+
+    cache.get(1);
+    cache.invalidate(1);
+
+    assertEquals(Optional.of(new RoleFlags(false, true)), cache.get(1));
+    verify(userRepository, times(2)).findByGithubId(1);
+  }
+
+  @Test
+  public void load_racing_with_invalidate_is_not_cached() {
+    when(userRepository.findByGithubId(1)).thenAnswer(invocation -> {
+      // an admin toggles the user while we are reading the old row
+      cache.invalidate(1);
+      return Optional.of(User.builder().githubId(1).admin(true).build());
+    });
+
+    assertEquals(Optional.of(new RoleFlags(true, false)), cache.get(1));
+    assertEquals(0, cache.size());
+    assertEquals(1, cache.getVersion());
+  }
+
+  @Test
+  public void invalidateAll_clears_everything() {
+    when(userRepository.findByGithubId(1))
+        .thenReturn(Optional.of(User.builder().githubId(1).build()));
+
+    cache.get(1);
+    cache.invalidateAll();
+
+    assertEquals(0, cache.size());
+    cache.get(1);
+    verify(userRepository, times(2)).findByGithubId(1);
+  }
+}
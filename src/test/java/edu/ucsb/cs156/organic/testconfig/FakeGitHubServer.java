@@ -0,0 +1,110 @@
+package edu.ucsb.cs156.organic.testconfig;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A tiny stand-in for api.github.com for tests.  It serves canned JSON
+ * bodies with an ETag, answers a matching If-None-Match with 304, and
+ * counts how many full and how many not-modified responses it sent.
+ * Tests can also lower the rate limit it reports, or make it fail every
+ * request with a given status.
+ */
+public class FakeGitHubServer implements AutoCloseable {
+
+  private final HttpServer server;
+  private final Map<String, String> bodies = new ConcurrentHashMap<>();
+  private final AtomicInteger fullResponses = new AtomicInteger();
+  private final AtomicInteger notModifiedResponses = new AtomicInteger();
+  private final AtomicInteger rateLimitRemaining = new AtomicInteger(4999);
+  private final AtomicInteger failureStatus = new AtomicInteger(0);
+
+  public FakeGitHubServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/", this::handle);
+    server.start();
+  }
+
+  public String getUrl() {
+    return "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  public void respond(String path, String json) {
+    bodies.put(path, json);
+  }
+
+  public int getFullResponses() {
+    return fullResponses.get();
+  }
+
+  public int getNotModifiedResponses() {
+    return notModifiedResponses.get();
+  }
+
+  public void setRateLimitRemaining(int remaining) {
+    rateLimitRemaining.set(remaining);
+  }
+
+  /**
+   * Answer every request with status (e.g. 502) until called again with 0.
+   */
+  public void failWith(int status) {
+    failureStatus.set(status);
+  }
+
+  public void reset() {
+    fullResponses.set(0);
+    notModifiedResponses.set(0);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    if (failureStatus.get() != 0) {
+      exchange.sendResponseHeaders(failureStatus.get(), -1);
+      exchange.close();
+      return;
+    }
+
+    String body = bodies.get(exchange.getRequestURI().getPath());
+    if (body == null) {
+      exchange.sendResponseHeaders(404, -1);
+      exchange.close();
+      return;
+    }
+
+    String etag = "\"" + Integer.toHexString(body.hashCode()) + "\"";
+    exchange.getResponseHeaders().add("ETag", etag);
+    exchange.getResponseHeaders().add("Cache-Control", "private, max-age=60, s-maxage=60");
+    exchange.getResponseHeaders().add("Vary", "Accept, Authorization");
+    exchange.getResponseHeaders().add("X-RateLimit-Limit", "5000");
+    exchange.getResponseHeaders().add("X-RateLimit-Remaining", Integer.toString(rateLimitRemaining.get()));
+    exchange.getResponseHeaders().add("X-RateLimit-Reset", Long.toString(System.currentTimeMillis() / 1000 + 3600));
+
+    if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+      notModifiedResponses.incrementAndGet();
+      exchange.sendResponseHeaders(304, -1);
+      exchange.close();
+      return;
+    }
+
+    fullResponses.incrementAndGet();
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+    exchange.sendResponseHeaders(200, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+}
@@ -4,13 +4,20 @@ import edu.ucsb.cs156.organic.config.SecurityConfig;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 
+import edu.ucsb.cs156.organic.services.CourseCatalogCache;
+import edu.ucsb.cs156.organic.services.CurrentUserCache;
+import edu.ucsb.cs156.organic.services.CurrentUserRequestMemo;
 import edu.ucsb.cs156.organic.services.CurrentUserService;
 import edu.ucsb.cs156.organic.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.organic.services.StaffAuthorizationIndex;
+import edu.ucsb.cs156.organic.services.UserChangeTracker;
+import edu.ucsb.cs156.organic.services.UserRoleCache;
 import org.springframework.context.annotation.Import;
 
 @TestConfiguration
 
-@Import(SecurityConfig.class)
+@Import({SecurityConfig.class, CurrentUserCache.class, UserRoleCache.class, UserChangeTracker.class,
+    CurrentUserRequestMemo.class, StaffAuthorizationIndex.class, CourseCatalogCache.class})
 public class TestConfig {
 
     @Bean